@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BomCacheTest {
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private Path cacheFile;
+  private final Bom bom = new Bom(Arrays.asList(
+      "com.google.cloud:google-cloud-storage", "com.google.guava:guava"));
+
+  @Before
+  public void setUp() {
+    cacheFile = tempFolder.getRoot().toPath().resolve("boms.json");
+  }
+
+  @Test
+  public void testGet_notCached() {
+    assertNull(new BomCache(cacheFile).get("com.google.cloud", "libraries-bom", "4.0.0"));
+  }
+
+  @Test
+  public void testPut_sharedInstance() {
+    BomCache cache = new BomCache(cacheFile);
+    cache.put("com.google.cloud", "libraries-bom", "4.0.0", bom);
+    assertSame(bom, cache.get("com.google.cloud", "libraries-bom", "4.0.0"));
+    assertNull(cache.get("com.google.cloud", "libraries-bom", "4.1.0"));
+  }
+
+  @Test
+  public void testPut_persistedAcrossInstances() {
+    BomCache cache = new BomCache(cacheFile);
+    cache.put("com.google.cloud", "libraries-bom", "4.0.0", bom);
+    cache.flush();
+    assertTrue(Files.exists(cacheFile));
+
+    Bom cached = new BomCache(cacheFile).get("com.google.cloud", "libraries-bom", "4.0.0");
+    assertTrue(cached.defines("com.google.cloud", "google-cloud-storage"));
+    assertTrue(cached.defines("com.google.guava", "guava"));
+    assertFalse(cached.defines("com.google.cloud", "google-cloud-speech"));
+  }
+
+  @Test
+  public void testPut_snapshotNotCached() {
+    BomCache cache = new BomCache(cacheFile);
+    cache.put("com.google.cloud", "libraries-bom", "4.1.0-SNAPSHOT", bom);
+    cache.flush();
+    assertNull(cache.get("com.google.cloud", "libraries-bom", "4.1.0-SNAPSHOT"));
+    assertFalse(Files.exists(cacheFile));
+  }
+
+  @Test
+  public void testIsFixedVersion() {
+    assertTrue(BomCache.isFixedVersion("4.0.0"));
+    assertTrue(BomCache.isFixedVersion("0.41.0-alpha"));
+    assertFalse(BomCache.isFixedVersion(""));
+    assertFalse(BomCache.isFixedVersion("LATEST"));
+    assertFalse(BomCache.isFixedVersion("RELEASE"));
+    assertFalse(BomCache.isFixedVersion("1.0-SNAPSHOT"));
+    assertFalse(BomCache.isFixedVersion("${bom.version}"));
+    assertFalse(BomCache.isFixedVersion("[1.0,2.0)"));
+  }
+
+  @Test
+  public void testLoad_corruptFileIgnored() throws IOException {
+    Files.write(cacheFile, "{ not json".getBytes(StandardCharsets.UTF_8));
+    assertNull(new BomCache(cacheFile).get("com.google.cloud", "libraries-bom", "4.0.0"));
+  }
+}
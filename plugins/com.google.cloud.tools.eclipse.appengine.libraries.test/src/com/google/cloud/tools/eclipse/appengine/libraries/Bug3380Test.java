@@ -113,15 +113,13 @@ public class Bug3380Test {
         pom.document.getDocumentElement(), XPathConstants.NODE);
     Assert.assertNotNull(dependencies);
 
-    Element dependency1 =
-        pom.findDependency(dependencies, "com.google.cloud", "google-cloud-asset");
+    Element dependency1 = pom.findDependency("com.google.cloud", "google-cloud-asset");
     Assert.assertNotNull(dependency1);
 
     Node versionElement1 = Pom.findChildByName(dependency1, "version");
     Assert.assertNull(versionElement1); // new element
 
-    Element dependency2 =
-        pom.findDependency(dependencies, "com.google.cloud", "google-cloud-automl");
+    Element dependency2 = pom.findDependency("com.google.cloud", "google-cloud-automl");
     Assert.assertNotNull(dependency2);
 
     Node versionElement2 = Pom.findChildByName(dependency2, "version");
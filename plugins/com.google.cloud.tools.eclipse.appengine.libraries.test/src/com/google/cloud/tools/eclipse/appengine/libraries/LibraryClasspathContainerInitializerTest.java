@@ -30,6 +30,7 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.cloud.tools.eclipse.appengine.libraries.persistence.ContainerManifest;
 import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer;
 import com.google.cloud.tools.eclipse.test.util.ThreadDumpingWatchdog;
 import com.google.cloud.tools.eclipse.test.util.project.TestProjectCreator;
@@ -266,6 +267,42 @@ public class LibraryClasspathContainerInitializerTest {
     fail("classpath entry not found");
   }
 
+  @Test
+  public void testInitialize_ifManifestIsCurrentJarsVerifiedLater()
+      throws IOException, CoreException {
+    IClasspathEntry entry = mock(IClasspathEntry.class);
+    when(entry.getPath()).thenReturn(new Path(NON_EXISTENT_FILE));
+    IClasspathEntry[] entries = new IClasspathEntry[]{ entry };
+    LibraryClasspathContainer container = mock(LibraryClasspathContainer.class);
+    when(container.getClasspathEntries()).thenReturn(entries);
+    when(serializer.loadContainer(any(IJavaProject.class), any(IPath.class))).thenReturn(container);
+    ContainerManifest manifest = mock(ContainerManifest.class);
+    when(serializer.loadManifest(any(IJavaProject.class), any(IPath.class))).thenReturn(manifest);
+
+    boolean[] updateRequested = new boolean[] {false};
+    ContainerManifest[] verified = new ContainerManifest[1];
+    LibraryClasspathContainerInitializer containerInitializer =
+        new LibraryClasspathContainerInitializer(TEST_CONTAINER_PATH, serializer, resolverService) {
+          @Override
+          public void requestClasspathContainerUpdate(
+              IPath containerPath, IJavaProject project, IClasspathContainer containerSuggestion) {
+            updateRequested[0] = true;
+          }
+
+          @Override
+          void verifyJarsLater(IPath containerPath, IJavaProject project,
+              ContainerManifest containerManifest) {
+            verified[0] = containerManifest;
+          }
+        };
+    containerInitializer.initialize(new Path(TEST_LIBRARY_PATH), testProject.getJavaProject());
+
+    // the missing jar is not checked up front
+    assertFalse(updateRequested[0]);
+    assertEquals(manifest, verified[0]);
+    verifyResolveServiceResolveContainerNotCalled();
+  }
+
   @Test
   public void testComparisonIdUnique() {
     LibraryClasspathContainerInitializer containerInitializer =
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.eclipse.util.jobs.MutexRule;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.IJavaProject;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LibraryClasspathContainerResolverSchedulerTest {
+
+  // serializes all jobs, as the Maven resolving rule does
+  private final ISchedulingRule rule =
+      new MutexRule("LibraryClasspathContainerResolverSchedulerTest");
+  private final LibraryClasspathContainerResolverScheduler scheduler =
+      new LibraryClasspathContainerResolverScheduler(project -> rule);
+  private final ILibraryClasspathContainerResolverService resolverService =
+      mock(ILibraryClasspathContainerResolverService.class);
+  private final IJavaProject project1 = mock(IJavaProject.class);
+  private final IJavaProject project2 = mock(IJavaProject.class);
+  private final CountDownLatch firstJobRunning = new CountDownLatch(1);
+  private final CountDownLatch releaseFirstJob = new CountDownLatch(1);
+
+  @Before
+  public void setUp() {
+    when(project1.exists()).thenReturn(true);
+    when(project2.exists()).thenReturn(true);
+    when(resolverService.resolveAll(any(IJavaProject.class), any(IProgressMonitor.class)))
+        .thenReturn(Status.OK_STATUS);
+    when(resolverService.repairContainer(
+        any(IJavaProject.class), any(IPath.class), any(IProgressMonitor.class)))
+        .thenReturn(Status.OK_STATUS);
+    // the first job for project1 blocks until released
+    when(resolverService.resolveAll(eq(project1), any(IProgressMonitor.class)))
+        .thenAnswer(invocation -> {
+          firstJobRunning.countDown();
+          releaseFirstJob.await(10, TimeUnit.SECONDS);
+          return Status.OK_STATUS;
+        })
+        .thenReturn(Status.OK_STATUS);
+  }
+
+  @Test
+  public void testRequestsMergedWhileWaiting() throws InterruptedException {
+    scheduler.requestResolveAll(project1, resolverService);
+    assertTrue(firstJobRunning.await(10, TimeUnit.SECONDS));
+
+    // the running job cannot absorb requests; these all merge into a second job
+    for (int i = 0; i < 5; i++) {
+      scheduler.requestResolveAll(project1, resolverService);
+    }
+    scheduler.requestRepair(project1, new Path("container/a"), resolverService);
+    scheduler.requestResolveAll(project2, resolverService);
+    scheduler.requestResolveAll(project2, resolverService);
+
+    releaseFirstJob.countDown();
+    Job.getJobManager().join(ResourcesPlugin.FAMILY_MANUAL_BUILD, null);
+
+    assertEquals(9, scheduler.getRequestCount());
+    // 4 + 1 for project1, 1 for project2
+    assertEquals(6, scheduler.getMergedCount());
+    assertEquals(3, scheduler.getExecutedCount());
+    verify(resolverService, times(2)).resolveAll(eq(project1), any(IProgressMonitor.class));
+    verify(resolverService).resolveAll(eq(project2), any(IProgressMonitor.class));
+    // superseded by resolving all containers
+    verify(resolverService, never()).repairContainer(
+        any(IJavaProject.class), any(IPath.class), any(IProgressMonitor.class));
+  }
+
+  @Test
+  public void testRepairsMerged() throws InterruptedException {
+    scheduler.requestResolveAll(project1, resolverService);
+    assertTrue(firstJobRunning.await(10, TimeUnit.SECONDS));
+
+    scheduler.requestRepair(project1, new Path("container/a"), resolverService);
+    scheduler.requestRepair(project1, new Path("container/b"), resolverService);
+    scheduler.requestRepair(project1, new Path("container/a"), resolverService);
+
+    releaseFirstJob.countDown();
+    Job.getJobManager().join(ResourcesPlugin.FAMILY_MANUAL_BUILD, null);
+
+    assertEquals(2, scheduler.getMergedCount());
+    assertEquals(2, scheduler.getExecutedCount());
+    verify(resolverService).repairContainer(
+        eq(project1), eq(new Path("container/a")), any(IProgressMonitor.class));
+    verify(resolverService).repairContainer(
+        eq(project1), eq(new Path("container/b")), any(IProgressMonitor.class));
+  }
+
+  @Test
+  public void testRequestAfterCompletionRunsAgain() throws InterruptedException {
+    releaseFirstJob.countDown();
+    scheduler.requestResolveAll(project2, resolverService);
+    Job.getJobManager().join(ResourcesPlugin.FAMILY_MANUAL_BUILD, null);
+    scheduler.requestResolveAll(project2, resolverService);
+    Job.getJobManager().join(ResourcesPlugin.FAMILY_MANUAL_BUILD, null);
+
+    assertEquals(0, scheduler.getMergedCount());
+    assertEquals(2, scheduler.getExecutedCount());
+  }
+}
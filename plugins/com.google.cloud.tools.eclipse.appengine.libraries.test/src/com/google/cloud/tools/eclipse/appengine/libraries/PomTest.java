@@ -22,8 +22,11 @@ import com.google.cloud.tools.eclipse.appengine.libraries.model.MavenCoordinates
 import com.google.cloud.tools.eclipse.test.util.project.TestProjectCreator;
 import com.google.cloud.tools.eclipse.util.ArtifactRetriever;
 import com.google.cloud.tools.eclipse.util.MappedNamespaceContext;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -158,6 +161,27 @@ public class PomTest {
     }
   }
 
+  @Test
+  public void testAddDependencies_preservesFormatting() throws CoreException, IOException {
+    List<String> original = Files.readAllLines(Paths.get("testdata/testpom.xml"));
+    Library library =
+        newLibrary("id1", new LibraryFile(coordinates("com.example.group1", "artifact1", "1.0")));
+
+    pom.addDependencies(Arrays.asList(library));
+
+    try (InputStream contents = pomFile.getContents()) {
+      List<String> actual = Arrays.asList(
+          new String(ByteStreams.toByteArray(contents), StandardCharsets.UTF_8).split("\\r?\\n"));
+      // every original line, comments and odd spacing included, is still there and in order
+      int index = 0;
+      for (String line : original) {
+        index = actual.subList(index, actual.size()).indexOf(line) + index + 1;
+        Assert.assertTrue("Missing line: " + line, index > 0);
+      }
+      Assert.assertThat(actual, Matchers.hasItem("      <artifactId>artifact1</artifactId>"));
+    }
+  }
+
   @Test
   public void testAddDependencies_withDuplicates() throws CoreException,
       ParserConfigurationException, IOException, SAXException, XPathExpressionException {
@@ -357,6 +381,38 @@ public class PomTest {
     Assert.assertThat(resolved, Matchers.hasItem(library2));
   }
 
+  @Test
+  public void testResolveLibraries_largePom() throws CoreException, SAXException, IOException {
+    StringBuilder xml = new StringBuilder(
+        "<project xmlns='http://maven.apache.org/POM/4.0.0'><dependencies>");
+    for (int i = 0; i < 200; i++) {
+      xml.append("<dependency><groupId>com.example.group").append(i)
+          .append("</groupId><artifactId>artifact").append(i)
+          .append("</artifactId><version>1.0</version></dependency>");
+    }
+    xml.append("</dependencies></project>");
+    byte[] contents = xml.toString().getBytes(StandardCharsets.UTF_8);
+    pomFile.setContents(new ByteArrayInputStream(contents), true, false, null);
+    Pom largePom = Pom.parse(pomFile);
+
+    // libraries of two files each; every other library needs an artifact not in the pom
+    List<Library> libraries = new ArrayList<>();
+    for (int i = 0; i < 150; i++) {
+      int second = i % 2 == 0 ? i + 1 : 1000 + i;
+      libraries.add(newLibrary("id" + i,
+          new LibraryFile(coordinates("com.example.group" + i, "artifact" + i)),
+          new LibraryFile(coordinates("com.example.group" + second, "artifact" + second))));
+    }
+
+    Collection<Library> resolved = largePom.resolveLibraries(libraries);
+    Assert.assertEquals(75, resolved.size());
+    for (Library library : resolved) {
+      Assert.assertEquals(0, Integer.parseInt(library.getId().substring(2)) % 2);
+    }
+    Assert.assertNotNull(largePom.findDependency("com.example.group199", "artifact199"));
+    Assert.assertNull(largePom.findDependency("com.example.group199", "artifact198"));
+  }
+
   private static Document parse(InputStream in)
       throws ParserConfigurationException, IOException, SAXException {
     DocumentBuilder builder = factory.newDocumentBuilder();
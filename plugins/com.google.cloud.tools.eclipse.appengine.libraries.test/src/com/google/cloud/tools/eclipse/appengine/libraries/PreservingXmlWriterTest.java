@@ -0,0 +1,177 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+public class PreservingXmlWriterTest {
+
+  private static final String POM_NAMESPACE = "http://maven.apache.org/POM/4.0.0";
+  private static final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+
+  @BeforeClass
+  public static void configureParser() {
+    factory.setNamespaceAware(true);
+  }
+
+  private static final String POM = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+      + "<!-- header -->\n"
+      + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+      + "    <name>caf\u00e9</name>\n"
+      + "    <dependencies>\n"
+      + "        <dependency>\n"
+      + "            <groupId>a</groupId>\n"
+      + "            <version>1</version>\n"
+      + "        </dependency>\n"
+      + "        <!-- test dependencies -->\n"
+      + "        <dependency><groupId>junit</groupId></dependency>\n"
+      + "    </dependencies>\n"
+      + "    <build/>\n"
+      + "</project>\n";
+
+  private byte[] content;
+  private Document document;
+
+  private void parse(String xml, Charset charset)
+      throws ParserConfigurationException, SAXException, IOException {
+    content = xml.getBytes(charset);
+    document = factory.newDocumentBuilder().parse(new ByteArrayInputStream(content));
+  }
+
+  private String write() {
+    return new String(PreservingXmlWriter.write(document, content), StandardCharsets.UTF_8);
+  }
+
+  private Element getElement(String name, int index) {
+    return (Element) document.getElementsByTagNameNS(POM_NAMESPACE, name).item(index);
+  }
+
+  private Element newElement(String name, String text) {
+    Element element = document.createElementNS(POM_NAMESPACE, name);
+    element.setTextContent(text);
+    return element;
+  }
+
+  @Test
+  public void testWrite_unchanged() throws Exception {
+    parse(POM, StandardCharsets.UTF_8);
+    assertTrue(PreservingXmlWriter.recordPositions(document, content));
+    assertEquals(POM, write());
+  }
+
+  @Test
+  public void testWrite_removesWholeLines() throws Exception {
+    parse(POM, StandardCharsets.UTF_8);
+    assertTrue(PreservingXmlWriter.recordPositions(document, content));
+    Element dependency = getElement("dependency", 0);
+    dependency.removeChild(getElement("version", 0));
+    getElement("dependencies", 0).removeChild(getElement("dependency", 1));
+
+    assertEquals(POM
+        .replace("            <version>1</version>\n", "")
+        .replace("        <dependency><groupId>junit</groupId></dependency>\n", ""), write());
+  }
+
+  @Test
+  public void testWrite_insertsIndented() throws Exception {
+    parse(POM, StandardCharsets.UTF_8);
+    assertTrue(PreservingXmlWriter.recordPositions(document, content));
+    Element dependencies = getElement("dependencies", 0);
+    Node testComment = getElement("dependency", 1).getPreviousSibling().getPreviousSibling();
+    assertEquals(Node.COMMENT_NODE, testComment.getNodeType());
+    Element dependency = document.createElementNS(POM_NAMESPACE, "dependency");
+    dependency.appendChild(newElement("groupId", "b&c"));
+    dependencies.insertBefore(dependency, testComment);
+    getElement("dependency", 0).appendChild(newElement("scope", "test"));
+
+    assertEquals(POM
+        .replace("            <version>1</version>\n",
+            "            <version>1</version>\n"
+            + "            <scope>test</scope>\n")
+        .replace("        <!-- test dependencies -->\n",
+            "        <dependency>\n"
+            + "            <groupId>b&amp;c</groupId>\n"
+            + "        </dependency>\n"
+            + "        <!-- test dependencies -->\n"), write());
+  }
+
+  @Test
+  public void testWrite_addToEmptyElementTag() throws Exception {
+    parse(POM, StandardCharsets.UTF_8);
+    assertTrue(PreservingXmlWriter.recordPositions(document, content));
+    getElement("build", 0).appendChild(document.createElementNS(POM_NAMESPACE, "plugins"));
+
+    assertNull(PreservingXmlWriter.write(document, content));
+  }
+
+  @Test
+  public void testWrite_otherNamespace() throws Exception {
+    parse(POM, StandardCharsets.UTF_8);
+    assertTrue(PreservingXmlWriter.recordPositions(document, content));
+    document.getDocumentElement().appendChild(document.createElementNS("urn:other", "other"));
+
+    assertNull(PreservingXmlWriter.write(document, content));
+  }
+
+  @Test
+  public void testWrite_keepsLineSeparators() throws Exception {
+    String pom = POM.replace("\n", "\r\n");
+    parse(pom, StandardCharsets.UTF_8);
+    assertTrue(PreservingXmlWriter.recordPositions(document, content));
+    getElement("dependency", 0).appendChild(newElement("scope", "test"));
+
+    assertEquals(pom.replace("            <version>1</version>\r\n",
+        "            <version>1</version>\r\n"
+        + "            <scope>test</scope>\r\n"), write());
+  }
+
+  @Test
+  public void testWrite_afterRecordingWrittenContent() throws Exception {
+    parse(POM, StandardCharsets.UTF_8);
+    assertTrue(PreservingXmlWriter.recordPositions(document, content));
+    getElement("dependency", 0).appendChild(newElement("scope", "test"));
+    String written = write();
+
+    content = written.getBytes(StandardCharsets.UTF_8);
+    assertTrue(PreservingXmlWriter.recordPositions(document, content));
+    Element dependency = getElement("dependency", 0);
+    dependency.removeChild(getElement("scope", 0));
+    assertEquals(POM, write());
+  }
+
+  @Test
+  public void testRecordPositions_unsupportedEncoding() throws Exception {
+    parse(POM.replace("UTF-8", "UTF-16"), StandardCharsets.UTF_16);
+    assertFalse(PreservingXmlWriter.recordPositions(document, content));
+  }
+}
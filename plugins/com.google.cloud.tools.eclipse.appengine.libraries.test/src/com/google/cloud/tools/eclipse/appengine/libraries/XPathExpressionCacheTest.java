@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import com.google.cloud.tools.eclipse.util.MappedNamespaceContext;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+public class XPathExpressionCacheTest {
+
+  private static final NamespaceContext CONTEXT =
+      new MappedNamespaceContext("m", "http://maven.apache.org/POM/4.0.0");
+
+  @Test
+  public void testGet_compiledOncePerThread() throws XPathExpressionException {
+    XPathExpression expression = XPathExpressionCache.get("//m:dependency", CONTEXT);
+    assertSame(expression, XPathExpressionCache.get("//m:dependency", CONTEXT));
+  }
+
+  @Test
+  public void testGet_keyedByNamespaceContext() throws XPathExpressionException {
+    NamespaceContext other = new MappedNamespaceContext("m", "http://example.com");
+    assertNotSame(XPathExpressionCache.get("//m:dependency", CONTEXT),
+        XPathExpressionCache.get("//m:dependency", other));
+  }
+
+  @Test
+  public void testGet_notSharedAcrossThreads() throws Exception {
+    XPathExpression expression = XPathExpressionCache.get("//m:dependency", CONTEXT);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      XPathExpression otherThread =
+          executor.submit(() -> XPathExpressionCache.get("//m:dependency", CONTEXT)).get();
+      assertNotSame(expression, otherThread);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testGet_evaluatesWithNamespaces() throws Exception {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    Document document = factory.newDocumentBuilder().parse(new ByteArrayInputStream(
+        "<project xmlns='http://maven.apache.org/POM/4.0.0'><version>1.0</version></project>"
+            .getBytes(StandardCharsets.UTF_8)));
+
+    assertEquals("1.0", XPathExpressionCache.get("string(/m:project/m:version)", CONTEXT)
+        .evaluate(document, XPathConstants.STRING));
+    assertEquals("", XPathExpressionCache.get("string(/project/version)", null)
+        .evaluate(document, XPathConstants.STRING));
+  }
+
+  @Test(expected = XPathExpressionException.class)
+  public void testGet_invalidExpression() throws XPathExpressionException {
+    XPathExpressionCache.get("//m:dependency[", CONTEXT);
+  }
+}
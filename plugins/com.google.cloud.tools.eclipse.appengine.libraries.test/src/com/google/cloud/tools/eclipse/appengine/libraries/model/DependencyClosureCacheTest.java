@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.eclipse.core.runtime.CoreException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DependencyClosureCacheTest {
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private Path cacheFile;
+  private final MavenCoordinates root = coordinates("com.example", "root", "1.0");
+  private final List<MavenCoordinates> closure = Arrays.asList(
+      coordinates("com.example", "root", "1.0"),
+      coordinates("com.google.guava", "guava", "28.1-android"));
+
+  private static MavenCoordinates coordinates(String groupId, String artifactId, String version) {
+    return new MavenCoordinates.Builder()
+        .setGroupId(groupId).setArtifactId(artifactId).setVersion(version).build();
+  }
+
+  @Before
+  public void setUp() {
+    cacheFile = tempFolder.getRoot().toPath().resolve("closures.json");
+  }
+
+  @Test
+  public void testGet_notCached() {
+    DependencyClosureCache cache = new DependencyClosureCache(cacheFile, "abc");
+    assertNull(cache.get(root));
+  }
+
+  @Test
+  public void testPut_persistedAcrossInstances() {
+    DependencyClosureCache cache = new DependencyClosureCache(cacheFile, "abc");
+    cache.put(root, closure);
+    cache.flush();
+    assertTrue(Files.exists(cacheFile));
+
+    List<MavenCoordinates> cached = new DependencyClosureCache(cacheFile, "abc").get(root);
+    assertEquals(2, cached.size());
+    assertEquals("root", cached.get(0).getArtifactId());
+    assertEquals("guava", cached.get(1).getArtifactId());
+    assertEquals("28.1-android", cached.get(1).getVersion());
+  }
+
+  @Test
+  public void testGet_keyedByVersion() {
+    DependencyClosureCache cache = new DependencyClosureCache(cacheFile, "abc");
+    cache.put(root, closure);
+    assertNull(cache.get(coordinates("com.example", "root", "2.0")));
+  }
+
+  @Test
+  public void testPut_latestNotCached() {
+    DependencyClosureCache cache = new DependencyClosureCache(cacheFile, "abc");
+    MavenCoordinates latest = coordinates("com.example", "root", MavenCoordinates.LATEST_VERSION);
+    cache.put(latest, closure);
+    cache.flush();
+    assertNull(cache.get(latest));
+    assertFalse(Files.exists(cacheFile));
+  }
+
+  @Test
+  public void testLoad_definitionsChanged() {
+    DependencyClosureCache cache = new DependencyClosureCache(cacheFile, "abc");
+    cache.put(root, closure);
+    cache.flush();
+    assertNull(new DependencyClosureCache(cacheFile, "def").get(root));
+  }
+
+  @Test
+  public void testLoad_corruptFile() throws IOException {
+    Files.write(cacheFile, "{ not json".getBytes(StandardCharsets.UTF_8));
+    DependencyClosureCache cache = new DependencyClosureCache(cacheFile, "abc");
+    assertNull(cache.get(root));
+
+    cache.put(root, closure);
+    cache.flush();
+    assertEquals(2, new DependencyClosureCache(cacheFile, "abc").get(root).size());
+  }
+
+  @Test
+  public void testGet_corruptEntryRemovedFromFile() throws IOException {
+    String json = "{\"formatVersion\":1,\"fingerprint\":\"abc\","
+        + "\"closures\":{\"com.example:root:1.0\":[\"corrupt\"]}}";
+    Files.write(cacheFile, json.getBytes(StandardCharsets.UTF_8));
+    DependencyClosureCache cache = new DependencyClosureCache(cacheFile, "abc");
+    assertNull(cache.get(root));
+    cache.flush();
+
+    String saved = new String(Files.readAllBytes(cacheFile), StandardCharsets.UTF_8);
+    assertFalse(saved.contains("corrupt"));
+  }
+
+  @Test
+  public void testPut_leastRecentlyUsedEvicted() {
+    DependencyClosureCache cache = new DependencyClosureCache(cacheFile, "abc");
+    cache.put(root, closure);
+    for (int i = 0; i < DependencyClosureCache.MAX_CLOSURES - 1; i++) {
+      cache.put(coordinates("com.example", "other" + i, "1.0"), closure);
+      // keeps root the most recently used
+      assertNotNull(cache.get(root));
+    }
+    cache.put(coordinates("com.example", "another", "1.0"), closure);
+    cache.flush();
+
+    DependencyClosureCache reloaded = new DependencyClosureCache(cacheFile, "abc");
+    assertNotNull(reloaded.get(root));
+    assertNull(reloaded.get(coordinates("com.example", "other0", "1.0")));
+    assertNotNull(reloaded.get(coordinates("com.example", "other1", "1.0")));
+  }
+
+  @Test
+  public void testMemoryOnly() {
+    DependencyClosureCache cache = new DependencyClosureCache(null, "abc");
+    cache.put(root, closure);
+    assertEquals(2, cache.get(root).size());
+  }
+
+  @Test
+  public void testLoadTransitiveDependencies_cached() throws CoreException {
+    // an unresolvable artifact: would fail if Aether were consulted
+    MavenCoordinates missing = coordinates("com.example.nonexistent", "missing", "0.0.1");
+    DependencyClosureCache cache = new DependencyClosureCache(null, "abc");
+    cache.put(missing, closure);
+
+    Collection<LibraryFile> dependencies = LibraryFactory.loadTransitiveDependencies(missing, cache);
+    assertEquals(2, dependencies.size());
+    assertTrue(dependencies.contains(new LibraryFile(closure.get(1))));
+  }
+
+  @Test
+  public void testGet_rootSetOrderIndependent() {
+    MavenCoordinates other = coordinates("com.example", "other", "2.0");
+    DependencyClosureCache cache = new DependencyClosureCache(null, "abc");
+    cache.put(Arrays.asList(root, other), closure);
+
+    assertEquals(2, cache.get(Arrays.asList(other, root)).size());
+    assertNull(cache.get(root));
+  }
+
+  @Test
+  public void testLoadMediatedDependencies_cached() throws CoreException {
+    MavenCoordinates missing = coordinates("com.example.nonexistent", "missing", "0.0.1");
+    List<MavenCoordinates> roots = Arrays.asList(root, missing);
+    DependencyClosureCache cache = new DependencyClosureCache(null, "abc");
+    cache.put(roots, closure);
+
+    assertEquals(closure.size(), LibraryFactory.loadMediatedDependencies(roots, cache).size());
+  }
+}
@@ -23,6 +23,11 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -32,6 +37,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.eclipse.core.runtime.IProgressMonitor;
 
 import org.junit.Test;
 
@@ -177,6 +183,73 @@ public class LibraryTest {
     assertTrue(transitiveDependencies.size() > directFiles.size()); 
   }
 
+
+  @Test
+  public void testGetAllDependencies_resolvedLibraries() {
+    MavenCoordinates guava19 = new MavenCoordinates.Builder()
+        .setGroupId("com.google.guava").setArtifactId("guava").setVersion("19.0").build();
+    MavenCoordinates guava20 = guava19.toBuilder().setVersion("20.0").build();
+    MavenCoordinates servlet = new MavenCoordinates.Builder()
+        .setGroupId("javax.servlet").setArtifactId("servlet-api").setVersion("2.5").build();
+    Library first = new Library("first");
+    first.setLibraryFiles(Arrays.asList(new LibraryFile(guava19), new LibraryFile(servlet)));
+    first.setResolved();
+    Library second = new Library("second");
+    second.setLibraryFiles(Arrays.asList(new LibraryFile(guava20)));
+    second.setResolved();
+
+    // no resolution needed, so duplicates are reconciled by version
+    List<LibraryFile> dependencies = Library.getAllDependencies(Arrays.asList(first, second));
+    assertEquals(2, dependencies.size());
+    assertEquals("guava", dependencies.get(0).getMavenCoordinates().getArtifactId());
+    assertEquals("20.0", dependencies.get(0).getMavenCoordinates().getVersion());
+    assertEquals("servlet-api", dependencies.get(1).getMavenCoordinates().getArtifactId());
+  }
+
+  @Test
+  public void testGetAllDependencies_reportsProgressPerLibrary() {
+    Library first = new Library("first");
+    first.setResolved();
+    Library second = new Library("second");
+    second.setResolved();
+    IProgressMonitor monitor = mock(IProgressMonitor.class);
+
+    Library.getAllDependencies(Arrays.asList(first, second), monitor);
+    verify(monitor).beginTask(anyString(), anyInt());
+    verify(monitor, atLeastOnce()).worked(anyInt());
+  }
+
+  @Test
+  public void testGetAllDependencies_resolvedTogether() {
+    // objectify depends on guava
+    MavenCoordinates objectify = new MavenCoordinates.Builder()
+        .setGroupId("com.googlecode.objectify")
+        .setArtifactId("objectify")
+        .setVersion("5.1.21").build();
+    LibraryFile objectifyFile = new LibraryFile(objectify);
+    objectifyFile.setPinned(true);
+    library.setLibraryFiles(Arrays.asList(objectifyFile));
+    Library guavaLibrary = new Library("guava");
+    MavenCoordinates guava = new MavenCoordinates.Builder()
+        .setGroupId("com.google.guava").setArtifactId("guava").setVersion("19.0").build();
+    LibraryFile guavaFile = new LibraryFile(guava);
+    guavaFile.setPinned(true);
+    guavaLibrary.setLibraryFiles(Arrays.asList(guavaFile));
+
+    List<LibraryFile> dependencies =
+        Library.getAllDependencies(Arrays.asList(library, guavaLibrary));
+    assertTrue(dependencies.size() > 2);
+    assertTrue(dependencies.contains(objectifyFile));
+    // the directly requested guava is nearest, so it wins over objectify's
+    int guavaCount = 0;
+    for (LibraryFile dependency : dependencies) {
+      if ("guava".equals(dependency.getMavenCoordinates().getArtifactId())) {
+        assertEquals("19.0", dependency.getMavenCoordinates().getVersion());
+        guavaCount++;
+      }
+    }
+    assertEquals(1, guavaCount);
+  }
   
   @Test
   public void testResolvedDuplicates() {
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JsonFileStoreTest {
+
+  private static class State {
+    private String value;
+
+    private State(String value) {
+      this.value = value;
+    }
+  }
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private Path file;
+
+  @Before
+  public void setUp() {
+    file = tempFolder.getRoot().toPath().resolve("cache").resolve("state.json");
+  }
+
+  @Test
+  public void testLoad_noFile() {
+    assertNull(new JsonFileStore<>(file, State.class).load());
+  }
+
+  @Test
+  public void testLoad_corruptFile() throws IOException {
+    Files.createDirectories(file.getParent());
+    Files.write(file, "{ not json".getBytes(StandardCharsets.UTF_8));
+    assertNull(new JsonFileStore<>(file, State.class).load());
+  }
+
+  @Test
+  public void testSave_deferred() {
+    JsonFileStore<State> store = new JsonFileStore<>(file, State.class, 60_000);
+    store.save(() -> new State("saved"));
+    assertFalse(Files.exists(file));
+
+    store.flush();
+    assertEquals("saved", new JsonFileStore<>(file, State.class).load().value);
+  }
+
+  @Test
+  public void testSave_coalesced() {
+    AtomicInteger snapshots = new AtomicInteger();
+    JsonFileStore<State> store = new JsonFileStore<>(file, State.class, 60_000);
+    store.save(() -> new State("first" + snapshots.incrementAndGet()));
+    store.save(() -> new State("second" + snapshots.incrementAndGet()));
+    store.flush();
+    store.flush();
+
+    assertEquals(1, snapshots.get());
+    assertEquals("second1", store.load().value);
+  }
+
+  @Test
+  public void testSave_afterDelay() throws InterruptedException {
+    JsonFileStore<State> store = new JsonFileStore<>(file, State.class, 10);
+    store.save(() -> new State("saved"));
+    for (int i = 0; i < 500 && !Files.exists(file); i++) {
+      Thread.sleep(10);
+    }
+    assertEquals("saved", store.load().value);
+  }
+
+  @Test
+  public void testFlushAll() {
+    JsonFileStore<State> store = new JsonFileStore<>(file, State.class, 60_000);
+    store.save(() -> new State("saved"));
+    JsonFileStore.flushAll();
+    assertEquals("saved", store.load().value);
+  }
+
+  @Test
+  public void testSave_noTemporaryFileLeft() throws IOException {
+    JsonFileStore<State> store = new JsonFileStore<>(file, State.class, 60_000);
+    store.save(() -> new State("first"));
+    store.flush();
+    store.save(() -> new State("second"));
+    store.flush();
+
+    try (Stream<Path> files = Files.list(file.getParent())) {
+      assertEquals(1, files.count());
+    }
+  }
+
+  @Test
+  public void testSave_failedWriteLeavesNoTemporaryFile() throws IOException {
+    // a directory cannot be replaced by the written file
+    Files.createDirectories(file.resolve("child"));
+    JsonFileStore<State> store = new JsonFileStore<>(file, State.class, 60_000);
+    store.save(() -> new State("saved"));
+    store.flush();
+
+    assertTrue(Files.isDirectory(file));
+    try (Stream<Path> files = Files.list(file.getParent())) {
+      assertEquals(1, files.count());
+    }
+  }
+}
@@ -131,6 +131,23 @@ public class LibraryClasspathContainerSerializerTest {
     compare(container, containerFromFile);
   }
 
+  @Test
+  public void testSaveAndLoadManifest() throws CoreException, IOException {
+    Path stateFilePath = new Path(stateFolder.newFile().getAbsolutePath());
+    when(stateLocationProvider.getContainerStateFile(any(IJavaProject.class), anyString(),
+        anyBoolean())).thenReturn(stateFilePath);
+    LibraryClasspathContainerSerializer serializer = new LibraryClasspathContainerSerializer(
+        stateLocationProvider, binaryBaseLocationProvider, sourceBaseLocationProvider);
+    serializer.saveContainer(javaProject, container);
+
+    ContainerManifest manifest = serializer.loadManifest(javaProject, new Path(CONTAINER_PATH));
+    assertEquals(1, manifest.getEntryCount());
+
+    Files.write(Paths.get(stateFilePath.toOSString() + ".manifest"),
+        "{ not json".getBytes(StandardCharsets.UTF_8));
+    assertNull(serializer.loadManifest(javaProject, new Path(CONTAINER_PATH)));
+  }
+
   @Test
   public void testLoadContainer() throws IOException, CoreException {
     Path stateFilePath = new Path(stateFolder.newFile().getAbsolutePath());
@@ -16,6 +16,7 @@
 
 package com.google.cloud.tools.eclipse.appengine.libraries;
 
+import com.google.cloud.tools.eclipse.appengine.libraries.persistence.JsonFileStore;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.WorkspaceJob;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -86,5 +87,6 @@ public class Activator implements BundleActivator {
   @Override
   public void stop(BundleContext context) {
     JavaCore.removeElementChangedListener(listener);
+    JsonFileStore.flushAll();
   }
 }
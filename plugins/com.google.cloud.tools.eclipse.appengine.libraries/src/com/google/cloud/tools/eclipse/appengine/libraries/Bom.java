@@ -17,42 +17,59 @@
 package com.google.cloud.tools.eclipse.appengine.libraries;
 
 import com.google.cloud.tools.eclipse.util.DependencyResolver;
+import com.google.common.collect.ImmutableSet;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Set;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.graph.Dependency;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 
 /**
- * A cache of a pom.xml file and all its transitive dependencies.
+ * The dependencies managed by a BOM, indexed by {@code groupId:artifactId}. Instances are immutable
+ * and shared through the {@link BomCache}.
  */
 class Bom {
-  
-  private Map<String, Artifact> artifacts;
 
-  private Bom(Map<String, Artifact> artifacts) {
-    this.artifacts = artifacts;
+  private final ImmutableSet<String> managedArtifacts;
+
+  Bom(Collection<String> managedArtifacts) {
+    this.managedArtifacts = ImmutableSet.copyOf(managedArtifacts);
   }
 
+  /**
+   * Returns the BOM with the given coordinates, resolving it through Maven only if it is not in the
+   * {@link BomCache}.
+   */
   static Bom loadBom(String groupId, String artifactId, String version, IProgressMonitor monitor)
       throws CoreException {
-    
+    BomCache cache = BomCache.getDefault();
+    Bom bom = cache.get(groupId, artifactId, version);
+    if (bom == null) {
+      bom = resolveBom(groupId, artifactId, version, monitor);
+      cache.put(groupId, artifactId, version, bom);
+    }
+    return bom;
+  }
+
+  private static Bom resolveBom(String groupId, String artifactId, String version,
+      IProgressMonitor monitor) throws CoreException {
     Collection<Dependency> dependencies =
         DependencyResolver.getManagedDependencies(groupId, artifactId, version, monitor);
-    Map<String, Artifact> artifacts = new HashMap<>();
+    ImmutableSet.Builder<String> managedArtifacts = ImmutableSet.builder();
     for (Dependency dependency : dependencies) {
       Artifact artifact = dependency.getArtifact();
-      artifacts.put(artifact.getGroupId() + ":" + artifact.getArtifactId(), artifact);
-
+      managedArtifacts.add(artifact.getGroupId() + ":" + artifact.getArtifactId());
     }
-    
-    return new Bom(artifacts);
+    return new Bom(managedArtifacts.build());
   }
-  
+
   boolean defines(String groupId, String artifactId) {
-    return artifacts.containsKey(groupId + ":" + artifactId);
+    return managedArtifacts.contains(groupId + ":" + artifactId);
   }
 
+  /** Returns the managed artifacts as {@code groupId:artifactId}. */
+  Set<String> getManagedArtifacts() {
+    return managedArtifacts;
+  }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.model.MavenCoordinates;
+import com.google.cloud.tools.eclipse.appengine.libraries.persistence.JsonFileStore;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Shares the {@link Bom}s loaded by all {@link Pom}s, keyed by the BOM's {@code
+ * groupId:artifactId:version}, and persists them in the bundle state location so that restarting
+ * the IDE does not resolve them again. Only fixed release versions are persisted: a released BOM
+ * never changes, while a snapshot, range or property reference may resolve differently later and
+ * is not cached at all.
+ */
+class BomCache {
+
+  private static final String CACHE_FILE_NAME = "boms.json"; //$NON-NLS-1$
+  private static final int FORMAT_VERSION = 1;
+
+  private static BomCache instance;
+
+  /** The saved BOMs: the managed artifacts of each, by BOM. */
+  private static class CacheState {
+    private int formatVersion;
+    private Map<String, List<String>> boms = new HashMap<>();
+  }
+
+  private final JsonFileStore<CacheState> store;
+  private final Map<String, Bom> boms = new HashMap<>();
+
+  /** @param cacheFile the file backing the cache; if {@code null} the cache is memory-only */
+  @VisibleForTesting
+  BomCache(Path cacheFile) {
+    store = cacheFile == null ? null : new JsonFileStore<>(cacheFile, CacheState.class);
+    load();
+  }
+
+  static synchronized BomCache getDefault() {
+    if (instance == null) {
+      instance = new BomCache(JsonFileStore.getStateFile(BomCache.class, CACHE_FILE_NAME));
+    }
+    return instance;
+  }
+
+  /** Returns the cached BOM, or {@code null} if it is not cached. */
+  synchronized Bom get(String groupId, String artifactId, String version) {
+    return boms.get(toKey(groupId, artifactId, version));
+  }
+
+  /** Records {@code bom} and saves the cache to disk, unless its version may change. */
+  synchronized void put(String groupId, String artifactId, String version, Bom bom) {
+    if (!isFixedVersion(version)) {
+      return;
+    }
+    boms.put(toKey(groupId, artifactId, version), bom);
+    if (store != null) {
+      store.save(this::snapshot);
+    }
+  }
+
+  /** Writes any pending changes to disk now. */
+  @VisibleForTesting
+  void flush() {
+    if (store != null) {
+      store.flush();
+    }
+  }
+
+  @VisibleForTesting
+  static boolean isFixedVersion(String version) {
+    return !Strings.isNullOrEmpty(version)
+        && !MavenCoordinates.LATEST_VERSION.equals(version)
+        && !"RELEASE".equals(version) //$NON-NLS-1$
+        && !version.endsWith("-SNAPSHOT") //$NON-NLS-1$
+        && !version.contains("${") //$NON-NLS-1$
+        && version.indexOf('[') < 0 && version.indexOf('(') < 0;
+  }
+
+  private static String toKey(String groupId, String artifactId, String version) {
+    return groupId + ":" + artifactId + ":" + version; //$NON-NLS-1$ //$NON-NLS-2$
+  }
+
+  private void load() {
+    if (store == null) {
+      return;
+    }
+    CacheState state = store.load();
+    if (state != null && state.formatVersion == FORMAT_VERSION && state.boms != null) {
+      for (Map.Entry<String, List<String>> entry : state.boms.entrySet()) {
+        if (entry.getValue() != null) {
+          boms.put(entry.getKey(), new Bom(entry.getValue()));
+        }
+      }
+    }
+  }
+
+  private synchronized CacheState snapshot() {
+    CacheState state = new CacheState();
+    state.formatVersion = FORMAT_VERSION;
+    for (Map.Entry<String, Bom> entry : boms.entrySet()) {
+      // sorted so that saving the same BOMs writes the same file
+      state.boms.put(entry.getKey(), new ArrayList<>(new TreeSet<>(
+          entry.getValue().getManagedArtifacts())));
+    }
+    return state;
+  }
+}
@@ -31,8 +31,6 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.SortedSet;
-import java.util.TreeSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
@@ -143,14 +141,12 @@ public class BuildPath {
     
     SubMonitor subMonitor = SubMonitor.convert(monitor,
         Messages.getString("calculating.dependencies"), //$NON-NLS-1$
-        10 + libraries.size());
+        10);
     
-    SortedSet<LibraryFile> masterFiles = new TreeSet<>();
+    List<Library> masterLibraries = new ArrayList<>(libraries);
     List<String> dependentIds = new ArrayList<>();
     for (Library library : libraries) {
       dependentIds.add(library.getId());
-      masterFiles.addAll(library.getAllDependencies());
-      subMonitor.worked(1);
     }
 
     // need to get old master library entries first if they exist
@@ -163,8 +159,7 @@ public class BuildPath {
         // if someone edited the serialized data behind Eclipse's back
         if (library != null && !dependentIds.contains(id)) { 
           dependentIds.add(library.getId());
-          masterFiles.addAll(library.getAllDependencies());
-          subMonitor.worked(1);
+          masterLibraries.add(library);
         }
       }
     } catch (IOException | CoreException ex) {
@@ -176,8 +171,9 @@ public class BuildPath {
     masterLibrary.setLibraryDependencies(dependentIds);
     subMonitor.worked(1);
     
-    List<LibraryFile> resolved = Library.resolveDuplicates(new ArrayList<>(masterFiles));
-    subMonitor.worked(8);
+    // resolves all libraries in one dependency graph
+    List<LibraryFile> resolved =
+        Library.getAllDependencies(masterLibraries, subMonitor.newChild(8));
     
     masterLibrary.setLibraryFiles(resolved);
     
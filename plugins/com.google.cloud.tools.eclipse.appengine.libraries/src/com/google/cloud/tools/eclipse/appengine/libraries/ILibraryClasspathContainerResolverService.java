@@ -57,4 +57,13 @@ public interface ILibraryClasspathContainerResolverService {
    * asynchronously.
    */
   IStatus resolveContainer(IJavaProject javaProject, IPath containerPath, IProgressMonitor monitor);
-}
\ No newline at end of file
+
+  /**
+   * Re-resolves only the entries of the {@link LibraryClasspathContainer} corresponding to
+   * <code>containerPath</code> in <code>javaProject</code> whose binary or source artifacts are
+   * missing or have changed, rather than the whole container. Falls back to {@link
+   * #resolveContainer(IJavaProject, IPath, IProgressMonitor)} if the container cannot be repaired
+   * incrementally.
+   */
+  IStatus repairContainer(IJavaProject javaProject, IPath containerPath, IProgressMonitor monitor);
+}
@@ -16,6 +16,7 @@
 
 package com.google.cloud.tools.eclipse.appengine.libraries;
 
+import com.google.cloud.tools.eclipse.appengine.libraries.persistence.ContainerManifest;
 import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer;
 import com.google.cloud.tools.eclipse.util.status.StatusUtil;
 import com.google.common.annotations.VisibleForTesting;
@@ -25,7 +26,11 @@ import java.util.Collections;
 import javax.inject.Inject;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.ClasspathContainerInitializer;
 import org.eclipse.jdt.core.IClasspathContainer;
 import org.eclipse.jdt.core.IClasspathEntry;
@@ -74,6 +79,19 @@ public class LibraryClasspathContainerInitializer extends ClasspathContainerInit
     }
     try {
       LibraryClasspathContainer container = serializer.loadContainer(project, containerPath);
+      ContainerManifest manifest =
+          container != null ? serializer.loadManifest(project, containerPath) : null;
+      if (manifest != null) {
+        // The state file is unchanged since it was saved: use the container right away, and
+        // check its jars in the background
+        JavaCore.setClasspathContainer(
+            containerPath,
+            new IJavaProject[] {project},
+            new IClasspathContainer[] {container},
+            new NullProgressMonitor());
+        verifyJarsLater(containerPath, project, manifest);
+        return;
+      }
       if (container != null && jarPathsAreValid(container)) {
         JavaCore.setClasspathContainer(
             containerPath,
@@ -100,6 +118,28 @@ public class LibraryClasspathContainerInitializer extends ClasspathContainerInit
     }
   }
 
+  /**
+   * Schedules a check of the jars recorded in {@code manifest}. If any have been removed or
+   * modified, schedules a job to re-resolve only those.
+   */
+  @VisibleForTesting
+  void verifyJarsLater(IPath containerPath, IJavaProject project, ContainerManifest manifest) {
+    Job verifier =
+        new Job(Messages.getString("VerifyContainerJobName")) { //$NON-NLS-1$
+          @Override
+          protected IStatus run(IProgressMonitor monitor) {
+            if (!manifest.findStaleEntries().isEmpty() && project.exists()) {
+              LibraryClasspathContainerResolverScheduler.getDefault()
+                  .requestRepair(project, containerPath, resolverService);
+            }
+            return Status.OK_STATUS;
+          }
+        };
+    verifier.setSystem(true);
+    verifier.setPriority(Job.DECORATE);
+    verifier.schedule();
+  }
+
   private static boolean jarPathsAreValid(LibraryClasspathContainer container) {
     IClasspathEntry[] classpathEntries = container.getClasspathEntries();
     for (IClasspathEntry classpathEntry : classpathEntries) {
@@ -121,12 +161,8 @@ public class LibraryClasspathContainerInitializer extends ClasspathContainerInit
   public void requestClasspathContainerUpdate(
       IPath containerPath, IJavaProject project, IClasspathContainer containerSuggestion)
       throws CoreException {
-
-    LibraryClasspathContainerResolverJob job =
-        new LibraryClasspathContainerResolverJob(
-            BuildPath.resolvingRule(project), resolverService, project);
-    job.setUser(true);
-    job.schedule();
+    LibraryClasspathContainerResolverScheduler.getDefault()
+        .requestResolveAll(project, resolverService);
   }
 
   @Override
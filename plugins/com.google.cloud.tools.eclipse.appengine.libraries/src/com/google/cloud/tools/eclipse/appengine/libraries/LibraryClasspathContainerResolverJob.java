@@ -16,12 +16,20 @@
 
 package com.google.cloud.tools.eclipse.appengine.libraries;
 
+import com.google.cloud.tools.eclipse.util.status.StatusUtil;
 import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.logging.Logger;
 import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.IJavaProject;
@@ -32,20 +40,57 @@ public class LibraryClasspathContainerResolverJob extends Job {
 
   private ILibraryClasspathContainerResolverService resolverService;
   private IJavaProject javaProject;
+  /** Whether all containers are resolved; if not, only the stale entries of repairPaths are. */
+  private boolean resolveAll;
+  private final Set<IPath> repairPaths = new LinkedHashSet<>();
 
   public LibraryClasspathContainerResolverJob(
       ISchedulingRule rule,
       ILibraryClasspathContainerResolverService service,
       IJavaProject javaProject) {
+    this(rule, service, javaProject, null);
+  }
+
+  /**
+   * Creates a job that repairs the container at {@code containerPath}, re-resolving only those
+   * artifacts that are missing, or that resolves all containers if {@code containerPath} is null.
+   */
+  public LibraryClasspathContainerResolverJob(
+      ISchedulingRule rule,
+      ILibraryClasspathContainerResolverService service,
+      IJavaProject javaProject,
+      IPath containerPath) {
     super(Messages.getString("AppEngineLibraryContainerResolverJobName"));
     // This job must be protected; our lower-level Maven classes actions do more verification
     Preconditions.checkNotNull(rule, "rule must be prvided");
     Preconditions.checkNotNull(javaProject, "javaProject is null");
     this.resolverService = service;
     this.javaProject = javaProject;
+    if (containerPath == null) {
+      resolveAll = true;
+    } else {
+      repairPaths.add(containerPath);
+    }
     setRule(rule);
   }
 
+  IJavaProject getJavaProject() {
+    return javaProject;
+  }
+
+  /**
+   * Widens this job to also cover the given request: a {@code null} {@code containerPath} requests
+   * resolving all containers, which supersedes any repairs. Only valid before the job runs.
+   */
+  synchronized void merge(IPath containerPath) {
+    if (containerPath == null) {
+      resolveAll = true;
+      repairPaths.clear();
+    } else if (!resolveAll) {
+      repairPaths.add(containerPath);
+    }
+  }
+
   @Override
   protected IStatus run(IProgressMonitor monitor) {
     // may have been deleted before this job runs
@@ -53,7 +98,22 @@ public class LibraryClasspathContainerResolverJob extends Job {
       logger.warning("Project no longer exists: " + javaProject.getElementName());
       return Status.OK_STATUS;
     }
-    return resolverService.resolveAll(javaProject, monitor);
+    List<IPath> containerPaths;
+    synchronized (this) {
+      if (resolveAll) {
+        return resolverService.resolveAll(javaProject, monitor);
+      }
+      containerPaths = new ArrayList<>(repairPaths);
+    }
+    if (containerPaths.size() == 1) {
+      return resolverService.repairContainer(javaProject, containerPaths.get(0), monitor);
+    }
+    SubMonitor progress = SubMonitor.convert(monitor, containerPaths.size());
+    MultiStatus status = StatusUtil.multi(this, getName());
+    for (IPath containerPath : containerPaths) {
+      status.add(resolverService.repairContainer(javaProject, containerPath, progress.newChild(1)));
+    }
+    return StatusUtil.filter(status);
   }
 
   @Override
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.eclipse.jdt.core.IJavaProject;
+
+/**
+ * Schedules {@link LibraryClasspathContainerResolverJob}s, coalescing requests for a project that
+ * arrive while an earlier job for that project is still waiting to run: the waiting job is widened
+ * to cover the new request instead of queuing another job behind the Maven resolving rule.
+ * Distinct projects are resolved by separate jobs, which run concurrently as far as their
+ * scheduling rules allow.
+ */
+class LibraryClasspathContainerResolverScheduler {
+
+  private static final LibraryClasspathContainerResolverScheduler INSTANCE =
+      new LibraryClasspathContainerResolverScheduler(BuildPath::resolvingRule);
+
+  private final Function<IJavaProject, ISchedulingRule> ruleFactory;
+
+  /** Jobs that have not started yet, and so can still absorb requests for their project. */
+  private final Map<IJavaProject, LibraryClasspathContainerResolverJob> pending = new HashMap<>();
+
+  private int requestCount;
+  private int mergedCount;
+  private int executedCount;
+
+  static LibraryClasspathContainerResolverScheduler getDefault() {
+    return INSTANCE;
+  }
+
+  @VisibleForTesting
+  LibraryClasspathContainerResolverScheduler(
+      Function<IJavaProject, ISchedulingRule> ruleFactory) {
+    this.ruleFactory = ruleFactory;
+  }
+
+  /** Requests that all library containers of {@code project} be resolved. */
+  void requestResolveAll(
+      IJavaProject project, ILibraryClasspathContainerResolverService resolverService) {
+    request(project, null, resolverService);
+  }
+
+  /** Requests that the stale entries of the container at {@code containerPath} be re-resolved. */
+  void requestRepair(IJavaProject project, IPath containerPath,
+      ILibraryClasspathContainerResolverService resolverService) {
+    Preconditions.checkNotNull(containerPath);
+    request(project, containerPath, resolverService);
+  }
+
+  private synchronized void request(IJavaProject project, IPath containerPath,
+      ILibraryClasspathContainerResolverService resolverService) {
+    requestCount++;
+    LibraryClasspathContainerResolverJob job = pending.get(project);
+    if (job != null) {
+      job.merge(containerPath);
+      mergedCount++;
+      return;
+    }
+
+    job = new LibraryClasspathContainerResolverJob(
+        ruleFactory.apply(project), resolverService, project, containerPath);
+    job.setUser(true);
+    job.addJobChangeListener(new JobChangeAdapter() {
+      @Override
+      public void running(IJobChangeEvent event) {
+        started((LibraryClasspathContainerResolverJob) event.getJob());
+      }
+
+      @Override
+      public void done(IJobChangeEvent event) {
+        // covers jobs canceled before they started
+        removePending((LibraryClasspathContainerResolverJob) event.getJob());
+      }
+    });
+    pending.put(project, job);
+    job.schedule();
+  }
+
+  /** Requests arriving from now on need a new job, as this one may have read stale state. */
+  private synchronized void started(LibraryClasspathContainerResolverJob job) {
+    removePending(job);
+    executedCount++;
+  }
+
+  private synchronized void removePending(LibraryClasspathContainerResolverJob job) {
+    pending.remove(job.getJavaProject(), job);
+  }
+
+  /** Returns the number of resolution requests received. */
+  synchronized int getRequestCount() {
+    return requestCount;
+  }
+
+  /** Returns the number of requests merged into a job that was still waiting to run. */
+  synchronized int getMergedCount() {
+    return mergedCount;
+  }
+
+  /** Returns the number of resolver jobs that have started running. */
+  synchronized int getExecutedCount() {
+    return executedCount;
+  }
+}
@@ -25,6 +25,7 @@ import com.google.cloud.tools.eclipse.util.status.StatusUtil;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Verify;
+import com.google.common.io.ByteStreams;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -40,6 +41,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
 import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -49,10 +51,8 @@ import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 import org.apache.maven.artifact.versioning.ArtifactVersion;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.CoreException;
@@ -66,7 +66,6 @@ import org.xml.sax.SAXException;
 
 class Pom {
 
-  private static final XPathFactory xpathFactory = XPathFactory.newInstance();
   // todo we're doing enough of this we should import or write some utilities
   private static final DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
   private static final TransformerFactory transformerFactory = TransformerFactory.newInstance();
@@ -80,37 +79,79 @@ class Pom {
   @VisibleForTesting
   final Document document;
   private final IFile pomFile;
+  /** The file content the document was last read from or written as. */
+  private byte[] content;
+  /**
+   * Whether the positions of the document's nodes in {@link #content} have been recorded, which is
+   * only done before the first edit, as a POM that is only read never needs them.
+   */
+  private boolean positionsRecorded;
+  /** Whether the document can be written as edits of {@link #content}. */
+  private boolean positioned;
   private final List<Bom> boms = new ArrayList<>();
+  /** The top-level dependencies by {@code groupId:artifactId}, kept up to date on changes. */
+  private final Map<String, Element> dependencyIndex = new HashMap<>();
   
-  private Pom(Document document, IFile pomFile) {
+  private Pom(Document document, IFile pomFile, byte[] content) {
     this.document = document;
     this.pomFile = pomFile;
+    this.content = content;
+  }
+
+  /** Records the node positions, if not yet done, before the document is changed. */
+  private void recordPositions() {
+    if (!positionsRecorded) {
+      positioned = PreservingXmlWriter.recordPositions(document, content);
+      positionsRecorded = true;
+    }
+  }
+
+  /** Indexes the children of the top-level {@code <dependencies>} element. */
+  private void indexDependencies(Element dependencies) {
+    dependencyIndex.clear();
+    NodeList children = dependencies.getChildNodes();
+    for (int i = 0; i < children.getLength(); i++) {
+      Node node = children.item(i);
+      if (node.getNodeType() == Node.ELEMENT_NODE) {
+        Element dependency = (Element) node;
+        String groupId = getValue(dependency, "groupId");
+        String artifactId = getValue(dependency, "artifactId");
+        // the first declaration wins, as Maven warns about and ignores duplicates
+        dependencyIndex.putIfAbsent(groupId + ":" + artifactId, dependency);
+      }
+    }
   }
 
   static Pom parse(IFile pomFile) throws SAXException, IOException, CoreException {
     Preconditions.checkState(pomFile.exists(), pomFile.getFullPath() + " does not exist");
     
     try {
+      byte[] content = readContents(pomFile);
       DocumentBuilder builder = builderFactory.newDocumentBuilder();
-      Document document = builder.parse(pomFile.getContents());
-      Pom pom = new Pom(document, pomFile);
+      Document document = builder.parse(new ByteArrayInputStream(content));
+      Pom pom = new Pom(document, pomFile, content);
       
-      XPath xpath = xpathFactory.newXPath();
-      xpath.setNamespaceContext(maven4NamespaceContext);
+      Element dependencies = (Element) evaluate(
+          "./m:dependencies", // top-level elements only
+          document.getDocumentElement(),
+          XPathConstants.NODE);
+      if (dependencies != null) {
+        pom.indexDependencies(dependencies);
+      }
 
-      NodeList bomNodes = (NodeList) xpath.evaluate(
+      NodeList bomNodes = (NodeList) evaluate(
           "//m:dependencyManagement/m:dependencies/m:dependency[m:type='pom'][m:scope='import']",
           document.getDocumentElement(),
           XPathConstants.NODESET);
       
       for (int i = 0; i < bomNodes.getLength(); i++) {
-        String artifactId = (String) xpath.evaluate("string(./m:artifactId)",
+        String artifactId = (String) evaluate("string(./m:artifactId)",
             bomNodes.item(i),
             XPathConstants.STRING);
-        String groupId = (String) xpath.evaluate("string(./m:groupId)",
+        String groupId = (String) evaluate("string(./m:groupId)",
             bomNodes.item(i),
             XPathConstants.STRING);
-        String version = (String) xpath.evaluate("string(./m:version)",
+        String version = (String) evaluate("string(./m:version)",
             bomNodes.item(i),
             XPathConstants.STRING);
         Bom bom = Bom.loadBom(groupId, artifactId, version, null);
@@ -128,26 +169,21 @@ class Pom {
    * Select libraries whose artifacts are satisfied by the pom's dependencies.
    */
   public Collection<Library> resolveLibraries(Collection<Library> availableLibraries) {
-    XPath xpath = xpathFactory.newXPath();
-    xpath.setNamespaceContext(maven4NamespaceContext);
-
     try {
-      NodeList dependenciesNodes = (NodeList) xpath.evaluate(
+      NodeList dependenciesNodes = (NodeList) evaluate(
           "./m:dependencies", // top-level elements only
           document.getDocumentElement(),
           XPathConstants.NODESET);
       if (dependenciesNodes.getLength() == 0) {
         return Collections.emptyList();
       } 
-      
-      final Element dependencies = (Element) dependenciesNodes.item(0);
   
       Predicate<LibraryFile> dependencyFound = libraryFile -> {
         Preconditions.checkNotNull(libraryFile);
         MavenCoordinates coordinates = libraryFile.getMavenCoordinates();
         String groupId = coordinates.getGroupId();
         String artifactId = coordinates.getArtifactId();
-        return dependencyExists(dependencies, groupId, artifactId);
+        return findDependency(groupId, artifactId) != null;
       };
   
       List<Library> matched = new ArrayList<>();
@@ -183,12 +219,10 @@ class Pom {
     // m2e-core/org.eclipse.m2e.core.ui/src/org/eclipse/m2e/core/ui/internal/actions/AddDependencyAction.java
     // m2e-core/org.eclipse.m2e.core.ui/src/org/eclipse/m2e/core/ui/internal/editing/AddDependencyOperation.java
     
-    XPath xpath = xpathFactory.newXPath();
-    xpath.setNamespaceContext(maven4NamespaceContext);
-    
+    recordPositions();
     Element dependencies;
     try {
-      NodeList dependenciesNodes = (NodeList) xpath.evaluate(
+      NodeList dependenciesNodes = (NodeList) evaluate(
           "./m:dependencies", // top-level elements only
           document.getDocumentElement(),
           XPathConstants.NODESET);
@@ -206,11 +240,13 @@ class Pom {
     // our template includes a <!— test dependencies —> comment 
     // to delimit compilation/runtime dependencies from test dependencies.
     Comment testComment = findTestComment(dependencies);
-    
-    createBOMIfNeeded(xpath);
+
+    createBOMIfNeeded();
     if (removedLibraries != null) {
       removeUnusedDependencies(dependencies, selectedLibraries, removedLibraries);
+      indexDependencies(dependencies);
     }
+    prefetchVersions(selectedLibraries);
 
     for (Library library : selectedLibraries) {
       for (LibraryFile artifact : library.getDirectDependencies()) {
@@ -219,7 +255,7 @@ class Pom {
         String groupId = coordinates.getGroupId();
         String artifactId = coordinates.getArtifactId();
         
-        Element dependency = findDependency(dependencies, groupId, artifactId);
+        Element dependency = findDependency(groupId, artifactId);
         if (dependency == null) {
           dependency = document.createElementNS(
               "http://maven.apache.org/POM/4.0.0", "dependency");
@@ -238,6 +274,7 @@ class Pom {
           } else {
             dependencies.insertBefore(dependency, testComment);
           }
+          dependencyIndex.put(groupId + ":" + artifactId, dependency);
         }
         handleDependencyManaged(artifact, dependency);
       }
@@ -254,6 +291,33 @@ class Pom {
     }   
   }
 
+  /**
+   * Retrieves the versions looked up by {@link #handleDependencyManaged} concurrently rather than
+   * one at a time. Must follow {@link #createBOMIfNeeded}, as only the artifacts that no BOM
+   * manages and that have no version yet are looked up.
+   */
+  private void prefetchVersions(Collection<Library> selectedLibraries) {
+    Set<String> coordinates = new HashSet<>();
+    for (Library library : selectedLibraries) {
+      for (LibraryFile artifact : library.getDirectDependencies()) {
+        MavenCoordinates mavenCoordinates = artifact.getMavenCoordinates();
+        String groupId = mavenCoordinates.getGroupId();
+        String artifactId = mavenCoordinates.getArtifactId();
+        if (!artifact.isPinned() && !dependencyManaged(groupId, artifactId)
+            && !hasVersion(findDependency(groupId, artifactId))) {
+          coordinates.add(groupId + ":" + artifactId);
+        }
+      }
+    }
+    if (!coordinates.isEmpty()) {
+      ArtifactRetriever.DEFAULT.prefetch(coordinates);
+    }
+  }
+
+  private static boolean hasVersion(Element dependency) {
+    return dependency != null && findChildByName(dependency, "version") != null;
+  }
+
   private void handleDependencyManaged(LibraryFile artifact, Element dependency) {
     MavenCoordinates coordinates = artifact.getMavenCoordinates();
     String groupId = coordinates.getGroupId();
@@ -284,22 +348,22 @@ class Pom {
     }
   }
 
-  private void createBOMIfNeeded(XPath xpath) throws CoreException {
+  private void createBOMIfNeeded() throws CoreException {
     try {
-      Element bomElement = (Element) xpath.evaluate(
+      Element bomElement = (Element) evaluate(
           "//m:dependencyManagement/m:dependencies/m:dependency[m:groupId='com.google.cloud'][m:artifactId='libraries-bom']",
           document.getDocumentElement(), XPathConstants.NODE);
       if (bomElement == null) {
         Element dependencies = null;
         NodeList dependenciesNodes =
-            (NodeList) xpath.evaluate("//m:dependencyManagement/m:dependencies",
+            (NodeList) evaluate("//m:dependencyManagement/m:dependencies",
                 document.getDocumentElement(), XPathConstants.NODESET);
         if (dependenciesNodes.getLength() > 0) {
           dependencies = (Element) dependenciesNodes.item(0);
         } else {
           dependencies =
               document.createElementNS("http://maven.apache.org/POM/4.0.0", "dependencies");
-          Node dependencyManagement = (Node) xpath.evaluate("//m:dependencyManagement",
+          Node dependencyManagement = (Node) evaluate("//m:dependencyManagement",
               document.getDocumentElement(), XPathConstants.NODE);
           if (dependencyManagement == null) {
             dependencyManagement = document.createElementNS("http://maven.apache.org/POM/4.0.0",
@@ -329,6 +393,12 @@ class Pom {
     }
   }
 
+  private static Object evaluate(String expression, Node node, QName returnType)
+      throws XPathExpressionException {
+    return XPathExpressionCache.get(expression, maven4NamespaceContext)
+        .evaluate(node, returnType);
+  }
+
   private String getBestVersion(String groupId, String artifactId) {
     ArtifactVersion latestVersion = ArtifactRetriever.DEFAULT.getBestVersion(groupId, artifactId);
     return latestVersion != null ? latestVersion.toString() : MavenCoordinates.LATEST_VERSION;
@@ -448,26 +518,10 @@ class Pom {
     }
   }
 
-  private boolean dependencyExists(Element dependencies, String targetGroupId,
-      String targetArtifactId) {
-    return findDependency(dependencies, targetGroupId, targetArtifactId) != null;
-  }
-
+  /** Returns the top-level dependency on the artifact, or {@code null} if there is none. */
   @VisibleForTesting
-  Element findDependency(Element dependencies, String targetGroupId, String targetArtifactId) {
-    NodeList children = dependencies.getChildNodes();
-    for (int i = 0; i < children.getLength(); i++) {
-      Node node = children.item(i);
-      if (node.getNodeType() == Node.ELEMENT_NODE) {
-        Element dependency = (Element) node;
-        String groupId = getValue(dependency, "groupId");
-        String artifactId = getValue(dependency, "artifactId");
-        if (targetGroupId.equals(groupId) && targetArtifactId.equals(artifactId)) {
-          return dependency;
-        }
-      }
-    }
-    return null;
+  Element findDependency(String groupId, String artifactId) {
+    return dependencyIndex.get(groupId + ":" + artifactId);
   }
 
   private static String getValue(Element dependency, String childName) {
@@ -479,13 +533,31 @@ class Pom {
     return null;
   }
 
+  /**
+   * Writes the changes to the document as insertions and deletions in the original file content,
+   * so that the rest of the file keeps its formatting. The document is only reformatted as a
+   * whole if it cannot be located in the content.
+   */
   private void writeDocument() throws CoreException, TransformerException {
-    Transformer transformer = transformerFactory.newTransformer();
-    transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-    ByteArrayOutputStream out = new ByteArrayOutputStream();
-    transformer.transform(new DOMSource(document), new StreamResult(out));
-    InputStream in = new ByteArrayInputStream(out.toByteArray());
-    
-    pomFile.setContents(in, true, true, null);
+    byte[] written = positionsRecorded && positioned
+        ? PreservingXmlWriter.write(document, content) : null;
+    if (written == null) {
+      Transformer transformer = transformerFactory.newTransformer();
+      transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      transformer.transform(new DOMSource(document), new StreamResult(out));
+      written = out.toByteArray();
+    }
+    pomFile.setContents(new ByteArrayInputStream(written), true, true, null);
+
+    // later edits apply to the content just written
+    content = written;
+    positionsRecorded = false;
+  }
+
+  private static byte[] readContents(IFile file) throws CoreException, IOException {
+    try (InputStream in = file.getContents()) {
+      return ByteStreams.toByteArray(in);
+    }
   }
 }
@@ -0,0 +1,508 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.DefaultHandler2;
+
+/**
+ * Writes a POM document back over the bytes it was parsed from, as text edits that insert the
+ * elements {@link Pom} adds and delete those it removes. Everything else, including formatting
+ * and comments, keeps its original bytes.
+ * <p>
+ * {@link #recordPositions} must be called before the document is changed. Only UTF-8 documents
+ * are supported, and elements may only be added, in the namespace of their parent, to elements
+ * that have an end tag; callers fall back to a full serialization otherwise.
+ */
+class PreservingXmlWriter {
+
+  private static final Logger logger = Logger.getLogger(PreservingXmlWriter.class.getName());
+
+  private static final String POSITION = PreservingXmlWriter.class.getName() + ".position"; //$NON-NLS-1$
+  private static final String CHILDREN = PreservingXmlWriter.class.getName() + ".children"; //$NON-NLS-1$
+
+  private static final SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+
+  static {
+    parserFactory.setNamespaceAware(true);
+  }
+
+  /** Where an element or comment occurs in the original bytes. */
+  private static class Position {
+    /** Offset of the opening {@code <}. */
+    private final int start;
+    /** Offset of the {@code <} of the end tag, or -1 for an empty-element tag or a comment. */
+    private int endTagStart = -1;
+    /** Offset just past the closing {@code >}. */
+    private int end;
+
+    private Position(int start) {
+      this.start = start;
+    }
+  }
+
+  private PreservingXmlWriter() {}
+
+  /**
+   * Records where each element and comment of {@code document} occurs in {@code content}, which it
+   * was parsed from or last written as, along with the current children of each element.
+   *
+   * @return {@code false} if positions cannot be recorded, in which case {@link #write} cannot be
+   *     used
+   */
+  static boolean recordPositions(Document document, byte[] content) {
+    if (!isUtf8(document)) {
+      return false;
+    }
+    try {
+      PositionHandler handler = new PositionHandler(content);
+      SAXParser parser = parserFactory.newSAXParser();
+      parser.setProperty("http://xml.org/sax/properties/lexical-handler", handler); //$NON-NLS-1$
+      parser.parse(new ByteArrayInputStream(content), handler);
+
+      List<Node> nodes = new ArrayList<>();
+      collectNodes(document, nodes);
+      // guards against SAX and DOM disagreeing, e.g. on comments in a DTD
+      if (nodes.size() != handler.positions.size()) {
+        return false;
+      }
+      for (int i = 0; i < nodes.size(); i++) {
+        Node node = nodes.get(i);
+        node.setUserData(POSITION, handler.positions.get(i), null);
+        if (node instanceof Element) {
+          node.setUserData(CHILDREN, toList(node.getChildNodes()), null);
+        }
+      }
+      return true;
+    } catch (ParserConfigurationException | SAXException | IOException
+        | IllegalStateException ex) {
+      logger.log(Level.FINE, "Cannot locate XML nodes; document will be reformatted", ex); //$NON-NLS-1$
+      return false;
+    }
+  }
+
+  /**
+   * Returns the content of {@code document} as edits of {@code content}, or {@code null} if the
+   * changes to the document cannot be expressed as such edits.
+   *
+   * @param content the bytes last passed to {@link #recordPositions}
+   */
+  static byte[] write(Document document, byte[] content) {
+    if (!isUtf8(document)) {
+      return null;
+    }
+    try {
+      Editor editor = new Editor(content);
+      editor.visit(document.getDocumentElement());
+      return editor.apply();
+    } catch (IllegalStateException ex) {
+      logger.log(Level.FINE, "Cannot edit XML in place; document will be reformatted", ex); //$NON-NLS-1$
+      return null;
+    }
+  }
+
+  private static boolean isUtf8(Document document) {
+    String encoding = document.getInputEncoding();
+    return encoding == null || "UTF-8".equalsIgnoreCase(encoding); //$NON-NLS-1$
+  }
+
+  /** Collects elements and comments in document order, matching the order of SAX events. */
+  private static void collectNodes(Node node, List<Node> nodes) {
+    if (node.getNodeType() == Node.ELEMENT_NODE || node.getNodeType() == Node.COMMENT_NODE) {
+      nodes.add(node);
+    }
+    for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+      collectNodes(child, nodes);
+    }
+  }
+
+  private static List<Node> toList(NodeList nodeList) {
+    List<Node> nodes = new ArrayList<>(nodeList.getLength());
+    for (int i = 0; i < nodeList.getLength(); i++) {
+      nodes.add(nodeList.item(i));
+    }
+    return nodes;
+  }
+
+  private static Position getPosition(Node node) {
+    return (Position) node.getUserData(POSITION);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Node> getOriginalChildren(Element element) {
+    return (List<Node>) element.getUserData(CHILDREN);
+  }
+
+  /** Converts SAX locations, reported just past each tag, into byte offsets of whole tags. */
+  private static class PositionHandler extends DefaultHandler2 {
+    private final byte[] content;
+    private final List<Integer> lineStarts = new ArrayList<>();
+    private final List<Position> positions = new ArrayList<>();
+    private final List<Position> openElements = new ArrayList<>();
+    private Locator locator;
+
+    private PositionHandler(byte[] content) {
+      this.content = content;
+      boolean bom = content.length >= 3 && (content[0] & 0xFF) == 0xEF
+          && (content[1] & 0xFF) == 0xBB && (content[2] & 0xFF) == 0xBF;
+      lineStarts.add(bom ? 3 : 0);
+      // same line ends as the parser: \n, \r\n, or \r alone
+      for (int i = 0; i < content.length; i++) {
+        if (content[i] == '\n'
+            || (content[i] == '\r' && (i + 1 == content.length || content[i + 1] != '\n'))) {
+          lineStarts.add(i + 1);
+        }
+      }
+    }
+
+    @Override
+    public void setDocumentLocator(Locator locator) {
+      this.locator = locator;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName,
+        Attributes attributes) {
+      Position position = new Position(lastIndexOf("<", currentOffset())); //$NON-NLS-1$
+      positions.add(position);
+      openElements.add(position);
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+      Position position = openElements.remove(openElements.size() - 1);
+      position.end = currentOffset();
+      int endTagStart = lastIndexOf("<", position.end); //$NON-NLS-1$
+      if (endTagStart != position.start) {
+        position.endTagStart = endTagStart;
+      }
+    }
+
+    @Override
+    public void comment(char[] text, int start, int length) {
+      int end = currentOffset();
+      Position position = new Position(lastIndexOf("<!--", end)); //$NON-NLS-1$
+      position.end = end;
+      positions.add(position);
+    }
+
+    /** Returns the byte offset of the parser's current line and (character) column. */
+    private int currentOffset() {
+      int line = locator.getLineNumber();
+      int column = locator.getColumnNumber();
+      if (line < 1 || line > lineStarts.size() || column < 1) {
+        throw new IllegalStateException("No location for " + line + ":" + column); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+      int offset = lineStarts.get(line - 1);
+      for (int characters = column - 1; characters > 0; ) {
+        int lead = content[offset] & 0xFF;
+        if (lead < 0x80) {
+          offset += 1;
+        } else if (lead < 0xE0) {
+          offset += 2;
+        } else if (lead < 0xF0) {
+          offset += 3;
+        } else {
+          offset += 4;  // a surrogate pair
+          characters--;
+        }
+        characters--;
+      }
+      return offset;
+    }
+
+    private int lastIndexOf(String marker, int before) {
+      byte[] bytes = marker.getBytes(StandardCharsets.US_ASCII);
+      for (int i = before - bytes.length; i >= 0; i--) {
+        boolean found = true;
+        for (int j = 0; j < bytes.length && found; j++) {
+          found = content[i + j] == bytes[j];
+        }
+        if (found) {
+          return i;
+        }
+      }
+      throw new IllegalStateException("No " + marker + " before offset " + before); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+  }
+
+  /** Collects the edits for a changed document and applies them to the original content. */
+  private static class Editor {
+
+    /** Replaces {@code [start, end)} with {@code text}; an insertion if the range is empty. */
+    private static class Edit {
+      private final int start;
+      private final int end;
+      private final String text;
+
+      private Edit(int start, int end, String text) {
+        this.start = start;
+        this.end = end;
+        this.text = text;
+      }
+    }
+
+    private final byte[] content;
+    private final String lineSeparator;
+    private final List<Edit> edits = new ArrayList<>();
+    private String indentUnit;
+
+    private Editor(byte[] content) {
+      this.content = content;
+      this.lineSeparator = detectLineSeparator(content);
+    }
+
+    private void visit(Element element) {
+      Position position = getPosition(element);
+      List<Node> originalChildren = getOriginalChildren(element);
+      if (position == null || originalChildren == null) {
+        throw new IllegalStateException("Element was not positioned: " + element.getTagName()); //$NON-NLS-1$
+      }
+      Set<Node> original = identitySet(originalChildren);
+      Set<Node> current = identitySet(toList(element.getChildNodes()));
+
+      for (Node child : originalChildren) {
+        if (!current.contains(child) && getPosition(child) != null) {
+          delete(getPosition(child));
+        }
+      }
+
+      for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+        if (original.contains(child)) {
+          if (child.getNodeType() == Node.ELEMENT_NODE) {
+            visit((Element) child);
+          }
+        } else if (child.getNodeType() == Node.ELEMENT_NODE) {
+          if (position.endTagStart < 0) {
+            throw new IllegalStateException("Cannot add to empty-element tag: " //$NON-NLS-1$
+                + element.getTagName());
+          }
+          insert(element, position, (Element) child);
+        } else if (!child.getTextContent().trim().isEmpty()) {
+          throw new IllegalStateException("Only elements may be added"); //$NON-NLS-1$
+        }
+      }
+    }
+
+    /** Deletes whole lines where the node is alone on its line(s). */
+    private void delete(Position position) {
+      int lineStart = blankLineStart(position.start);
+      int lineEnd = blankLineEnd(position.end);
+      if (lineStart >= 0 && lineEnd >= 0) {
+        edits.add(new Edit(lineStart, lineEnd, "")); //$NON-NLS-1$
+      } else {
+        edits.add(new Edit(position.start, position.end, "")); //$NON-NLS-1$
+      }
+    }
+
+    private void insert(Element parent, Position parentPosition, Element child) {
+      Node next = child.getNextSibling();
+      while (next != null && getPosition(next) == null) {
+        next = next.getNextSibling();
+      }
+      int anchor = next != null ? getPosition(next).start : parentPosition.endTagStart;
+      String childIndent = getChildIndent(parent);
+      String text = serialize(child, childIndent);
+
+      int lineStart = blankLineStart(anchor);
+      if (lineStart >= 0) {
+        edits.add(new Edit(lineStart, lineStart, childIndent + text + lineSeparator));
+      } else if (next != null) {
+        edits.add(new Edit(anchor, anchor, text));
+      } else {
+        edits.add(new Edit(anchor, anchor, lineSeparator + childIndent + text + lineSeparator
+            + getIndent(parentPosition)));
+      }
+    }
+
+    /** Returns the indentation of the children of {@code element}, as found or as inferred. */
+    private String getChildIndent(Element element) {
+      for (Node child : getOriginalChildren(element)) {
+        Position position = getPosition(child);
+        if (position != null && blankLineStart(position.start) >= 0) {
+          return getIndent(position);
+        }
+      }
+      return getIndent(getPosition(element)) + getIndentUnit(element.getOwnerDocument());
+    }
+
+    /** Returns the indentation step of the document's top-level elements, or two spaces. */
+    private String getIndentUnit(Document document) {
+      if (indentUnit == null) {
+        indentUnit = "  "; //$NON-NLS-1$
+        Element root = document.getDocumentElement();
+        String rootIndent = getIndent(getPosition(root));
+        for (Node child : getOriginalChildren(root)) {
+          Position position = getPosition(child);
+          if (position != null && blankLineStart(position.start) >= 0) {
+            String indent = getIndent(position);
+            if (indent.length() > rootIndent.length() && indent.startsWith(rootIndent)) {
+              indentUnit = indent.substring(rootIndent.length());
+            }
+            break;
+          }
+        }
+      }
+      return indentUnit;
+    }
+
+    /** Returns the whitespace preceding the node on its line, or "" if it is not first. */
+    private String getIndent(Position position) {
+      int lineStart = blankLineStart(position.start);
+      if (lineStart < 0) {
+        return ""; //$NON-NLS-1$
+      }
+      return new String(content, lineStart, position.start - lineStart,
+          StandardCharsets.US_ASCII);
+    }
+
+    /** Returns the start of the line of {@code offset} if only blanks precede it, or -1. */
+    private int blankLineStart(int offset) {
+      int i = offset;
+      while (i > 0 && isBlank(content[i - 1])) {
+        i--;
+      }
+      return i == 0 || content[i - 1] == '\n' || content[i - 1] == '\r' ? i : -1;
+    }
+
+    /** Returns the start of the next line if only blanks follow {@code offset}, or -1. */
+    private int blankLineEnd(int offset) {
+      int i = offset;
+      while (i < content.length && isBlank(content[i])) {
+        i++;
+      }
+      if (i == content.length) {
+        return i;
+      } else if (content[i] == '\r') {
+        return i + 1 < content.length && content[i + 1] == '\n' ? i + 2 : i + 1;
+      } else if (content[i] == '\n') {
+        return i + 1;
+      }
+      return -1;
+    }
+
+    private static boolean isBlank(byte b) {
+      return b == ' ' || b == '\t';
+    }
+
+    /** Serializes an added element, one child element per line below {@code indent}. */
+    private String serialize(Element element, String indent) {
+      StringBuilder builder = new StringBuilder();
+      serialize(element, indent, builder);
+      return builder.toString();
+    }
+
+    private void serialize(Element element, String indent, StringBuilder builder) {
+      Node parent = element.getParentNode();
+      if (element.getPrefix() != null
+          || !Objects.equals(element.getNamespaceURI(), parent.lookupNamespaceURI(null))) {
+        throw new IllegalStateException("Added element needs a namespace declaration"); //$NON-NLS-1$
+      }
+      builder.append('<').append(element.getTagName());
+
+      List<Element> children = new ArrayList<>();
+      for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+        if (child.getNodeType() == Node.ELEMENT_NODE) {
+          children.add((Element) child);
+        } else if (child.getNodeType() != Node.TEXT_NODE) {
+          throw new IllegalStateException("Only elements and text may be added"); //$NON-NLS-1$
+        }
+      }
+      if (!element.hasChildNodes()) {
+        builder.append("/>"); //$NON-NLS-1$
+        return;
+      }
+      builder.append('>');
+      if (children.isEmpty()) {
+        builder.append(escape(element.getTextContent()));
+      } else {
+        String childIndent = indent + getIndentUnit(element.getOwnerDocument());
+        for (Element child : children) {
+          builder.append(lineSeparator).append(childIndent);
+          serialize(child, childIndent, builder);
+        }
+        builder.append(lineSeparator).append(indent);
+      }
+      builder.append("</").append(element.getTagName()).append('>'); //$NON-NLS-1$
+    }
+
+    private static String escape(String text) {
+      return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+    }
+
+    /** Returns the original content with the edits applied. */
+    private byte[] apply() {
+      List<Edit> sorted = new ArrayList<>(edits);
+      // stable, so insertions at one offset keep their document order
+      Collections.sort(sorted, Comparator.comparingInt(edit -> edit.start));
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream(content.length);
+      int offset = 0;
+      for (Edit edit : sorted) {
+        if (edit.start > offset) {
+          out.write(content, offset, edit.start - offset);
+        }
+        byte[] text = edit.text.getBytes(StandardCharsets.UTF_8);
+        out.write(text, 0, text.length);
+        offset = Math.max(offset, edit.end);
+      }
+      if (offset < content.length) {
+        out.write(content, offset, content.length - offset);
+      }
+      return out.toByteArray();
+    }
+
+    private static String detectLineSeparator(byte[] content) {
+      for (int i = 0; i < content.length; i++) {
+        if (content[i] == '\n') {
+          return i > 0 && content[i - 1] == '\r' ? "\r\n" : "\n"; //$NON-NLS-1$ //$NON-NLS-2$
+        } else if (content[i] == '\r' && (i + 1 == content.length || content[i + 1] != '\n')) {
+          return "\r"; //$NON-NLS-1$
+        }
+      }
+      return System.lineSeparator();
+    }
+
+    private static Set<Node> identitySet(List<Node> nodes) {
+      Set<Node> set = Collections.newSetFromMap(new IdentityHashMap<>());
+      set.addAll(nodes);
+      return set;
+    }
+  }
+}
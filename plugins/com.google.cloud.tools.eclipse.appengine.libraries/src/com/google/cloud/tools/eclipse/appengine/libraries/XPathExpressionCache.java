@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import com.google.common.base.Preconditions;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+/**
+ * The compiled XPath expressions of {@link Pom}, kept per thread as neither {@link XPath} nor
+ * {@link XPathExpression} is thread-safe. Expressions are keyed by their text and namespace
+ * context, which is compared with {@code equals}; callers should hold their context in a constant.
+ */
+class XPathExpressionCache {
+
+  /** Bounds the expressions kept by each thread; Pom uses a handful of constant expressions. */
+  private static final int MAXIMUM_SIZE = 64;
+
+  private static final ThreadLocal<XPathFactory> factories =
+      ThreadLocal.withInitial(XPathFactory::newInstance);
+
+  private static final ThreadLocal<Map<Key, XPathExpression>> caches =
+      ThreadLocal.withInitial(() -> new LinkedHashMap<Key, XPathExpression>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, XPathExpression> eldest) {
+          return size() > MAXIMUM_SIZE;
+        }
+      });
+
+  private static class Key {
+    private final String expression;
+    private final NamespaceContext namespaceContext;
+
+    private Key(String expression, NamespaceContext namespaceContext) {
+      this.expression = expression;
+      this.namespaceContext = namespaceContext;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return expression.equals(key.expression)
+          && Objects.equals(namespaceContext, key.namespaceContext);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(expression, namespaceContext);
+    }
+  }
+
+  private XPathExpressionCache() {}
+
+  /**
+   * Returns {@code expression} compiled with {@code namespaceContext}, compiling it only on the
+   * first request from the current thread. The result must not be shared with other threads.
+   *
+   * @param namespaceContext the prefixes used by {@code expression}, or {@code null} if none
+   * @throws XPathExpressionException if {@code expression} cannot be compiled
+   */
+  static XPathExpression get(String expression, NamespaceContext namespaceContext)
+      throws XPathExpressionException {
+    Preconditions.checkNotNull(expression);
+    Map<Key, XPathExpression> cache = caches.get();
+    Key key = new Key(expression, namespaceContext);
+    XPathExpression compiled = cache.get(key);
+    if (compiled == null) {
+      XPath xpath = factories.get().newXPath();
+      if (namespaceContext != null) {
+        xpath.setNamespaceContext(namespaceContext);
+      }
+      compiled = xpath.compile(expression);
+      cache.put(key, compiled);
+    }
+    return compiled;
+  }
+}
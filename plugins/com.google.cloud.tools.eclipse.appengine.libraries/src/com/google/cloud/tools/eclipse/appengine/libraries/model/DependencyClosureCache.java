@@ -0,0 +1,261 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.model;
+
+import com.google.cloud.tools.appengine.operations.CloudSdk;
+import com.google.cloud.tools.eclipse.appengine.libraries.persistence.JsonFileStore;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.RegistryFactory;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Persists the transitive dependency closures computed by {@link
+ * LibraryFactory#loadTransitiveDependencies(MavenCoordinates)} in the bundle state location, so
+ * that restarting the IDE does not repeat the Aether dependency collection. Closures are keyed by
+ * the root artifacts' {@code groupId:artifactId:version}, where the version is the resolved
+ * version; a closure may belong to a single root or to a set of roots resolved together. The
+ * whole cache is discarded when the library definitions ({@code libraries.json} or the {@code
+ * plugin.xml} files contributing libraries) change. Only the most recently used closures are kept,
+ * as every distinct set of roots adds a closure.
+ */
+class DependencyClosureCache {
+
+  private static final Logger logger = Logger.getLogger(DependencyClosureCache.class.getName());
+
+  private static final String CACHE_FILE_NAME = "dependency-closures.json"; //$NON-NLS-1$
+  private static final int FORMAT_VERSION = 1;
+
+  /** The number of closures kept. */
+  @VisibleForTesting
+  static final int MAX_CLOSURES = 256;
+
+  private static DependencyClosureCache instance;
+
+  /** The on-disk form of the cache. */
+  private static class CacheState {
+    private int formatVersion;
+    private String fingerprint;
+    // least recently used first
+    private Map<String, List<String>> closures;
+  }
+
+  private final JsonFileStore<CacheState> store;
+  private final String fingerprint;
+  private final Map<String, List<String>> closures =
+      new LinkedHashMap<String, List<String>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+          return size() > MAX_CLOSURES;
+        }
+      };
+
+  /**
+   * @param cacheFile the file backing the cache; if {@code null} the cache is memory-only
+   * @param fingerprint identifies the library definitions the cached closures were computed for
+   */
+  @VisibleForTesting
+  DependencyClosureCache(Path cacheFile, String fingerprint) {
+    store = cacheFile == null ? null : new JsonFileStore<>(cacheFile, CacheState.class);
+    this.fingerprint = Preconditions.checkNotNull(fingerprint);
+    load();
+  }
+
+  static synchronized DependencyClosureCache getDefault() {
+    if (instance == null) {
+      Path cacheFile = JsonFileStore.getStateFile(DependencyClosureCache.class, CACHE_FILE_NAME);
+      instance = new DependencyClosureCache(cacheFile, computeDefinitionsFingerprint());
+    }
+    return instance;
+  }
+
+  /**
+   * Returns the cached transitive closure of {@code root}, or {@code null} if none is cached.
+   */
+  List<MavenCoordinates> get(MavenCoordinates root) {
+    return get(Collections.singletonList(root));
+  }
+
+  /**
+   * Returns the cached mediated transitive closure of the set of {@code roots}, or {@code null} if
+   * none is cached.
+   */
+  synchronized List<MavenCoordinates> get(Collection<MavenCoordinates> roots) {
+    String rootsKey = toKey(roots);
+    List<String> closure = closures.get(rootsKey);
+    if (closure == null) {
+      return null;
+    }
+    List<MavenCoordinates> coordinates = new ArrayList<>(closure.size());
+    for (String entry : closure) {
+      String[] parts = entry.split(":"); //$NON-NLS-1$
+      if (parts.length != 3) {
+        logger.warning("Ignoring corrupt dependency closure for " + rootsKey); //$NON-NLS-1$
+        closures.remove(rootsKey);
+        if (store != null) {
+          store.save(this::snapshot);
+        }
+        return null;
+      }
+      coordinates.add(new MavenCoordinates.Builder()
+          .setGroupId(parts[0])
+          .setArtifactId(parts[1])
+          .setVersion(parts[2])
+          .build());
+    }
+    return coordinates;
+  }
+
+  /**
+   * Records the transitive closure of {@code root} and saves the cache to disk. Closures of
+   * unresolved {@code LATEST} versions are not cached.
+   */
+  void put(MavenCoordinates root, Collection<MavenCoordinates> closure) {
+    put(Collections.singletonList(root), closure);
+  }
+
+  /**
+   * Records the mediated transitive closure of the set of {@code roots} and saves the cache to
+   * disk. Closures involving unresolved {@code LATEST} versions are not cached.
+   */
+  synchronized void put(Collection<MavenCoordinates> roots, Collection<MavenCoordinates> closure) {
+    for (MavenCoordinates root : roots) {
+      if (MavenCoordinates.LATEST_VERSION.equals(root.getVersion())) {
+        return;
+      }
+    }
+    // sorted for a stable file content
+    TreeSet<String> entries = new TreeSet<>();
+    for (MavenCoordinates coordinates : closure) {
+      entries.add(toKey(coordinates));
+    }
+    closures.put(toKey(roots), new ArrayList<>(entries));
+    if (store != null) {
+      store.save(this::snapshot);
+    }
+  }
+
+  /** Writes any pending changes to disk now. */
+  @VisibleForTesting
+  void flush() {
+    if (store != null) {
+      store.flush();
+    }
+  }
+
+  /** Order-independent key for a set of roots. */
+  private static String toKey(Collection<MavenCoordinates> roots) {
+    TreeSet<String> keys = new TreeSet<>();
+    for (MavenCoordinates root : roots) {
+      keys.add(toKey(root));
+    }
+    return String.join(",", keys); //$NON-NLS-1$
+  }
+
+  private static String toKey(MavenCoordinates coordinates) {
+    return coordinates.getGroupId() + ":" + coordinates.getArtifactId() //$NON-NLS-1$
+        + ":" + coordinates.getVersion(); //$NON-NLS-1$
+  }
+
+  private void load() {
+    if (store == null) {
+      return;
+    }
+    CacheState state = store.load();
+    if (state != null && state.formatVersion == FORMAT_VERSION
+        && fingerprint.equals(state.fingerprint) && state.closures != null) {
+      closures.putAll(state.closures);
+    }
+  }
+
+  private synchronized CacheState snapshot() {
+    CacheState state = new CacheState();
+    state.formatVersion = FORMAT_VERSION;
+    state.fingerprint = fingerprint;
+    state.closures = new LinkedHashMap<>(closures);
+    return state;
+  }
+
+  /**
+   * Hashes {@code libraries.json} and the {@code plugin.xml} of every bundle contributing to the
+   * libraries extension point.
+   */
+  private static String computeDefinitionsFingerprint() {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+      Bundle sdkBundle = FrameworkUtil.getBundle(CloudSdk.class);
+      if (sdkBundle != null) {
+        update(digest, sdkBundle.getResource("/com/google/cloud/tools/libraries/libraries.json")); //$NON-NLS-1$
+      }
+      IExtensionPoint extensionPoint = RegistryFactory.getRegistry().getExtensionPoint(
+          "com.google.cloud.tools.eclipse.appengine.libraries"); //$NON-NLS-1$
+      if (extensionPoint != null) {
+        // extension order is not guaranteed
+        TreeSet<String> contributors = new TreeSet<>();
+        for (IExtension extension : extensionPoint.getExtensions()) {
+          contributors.add(extension.getContributor().getName());
+        }
+        for (String contributor : contributors) {
+          digest.update(contributor.getBytes(StandardCharsets.UTF_8));
+          Bundle bundle = Platform.getBundle(contributor);
+          if (bundle != null) {
+            update(digest, bundle.getEntry("plugin.xml")); //$NON-NLS-1$
+          }
+        }
+      }
+      return new BigInteger(1, digest.digest()).toString(16);
+    } catch (NoSuchAlgorithmException | IOException ex) {
+      logger.log(Level.WARNING, "Could not fingerprint library definitions", ex); //$NON-NLS-1$
+      // never matches a persisted fingerprint
+      return "unknown-" + System.nanoTime(); //$NON-NLS-1$
+    }
+  }
+
+  private static void update(MessageDigest digest, URL url) throws IOException {
+    if (url == null) {
+      return;
+    }
+    try (InputStream in = url.openStream()) {
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    }
+  }
+}
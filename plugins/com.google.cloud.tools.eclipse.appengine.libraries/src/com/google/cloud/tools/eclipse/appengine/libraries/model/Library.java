@@ -22,12 +22,16 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.maven.artifact.versioning.ComparableVersion;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
 
 /**
  * A library that can be added to App Engine projects, e.g. App Engine Endpoints library.
@@ -219,6 +223,106 @@ public final class Library {
     return resolveDuplicates(resolvedDependencies);
   }  
   
+  /**
+   * Returns the combined transitive dependencies of {@code libraries}.
+   *
+   * @see #getAllDependencies(Collection, IProgressMonitor)
+   */
+  public static List<LibraryFile> getAllDependencies(Collection<Library> libraries) {
+    return getAllDependencies(libraries, null);
+  }
+
+  /**
+   * Returns the combined transitive dependencies of {@code libraries}. Unlike merging each
+   * library's {@link #getAllDependencies()}, the direct dependencies of all libraries still
+   * requiring resolution are resolved together as a single dependency graph, so conflicting
+   * versions are mediated by Maven rather than by {@link #resolveDuplicates(List)}. Only if that
+   * fails is each library resolved on its own and their dependencies merged.
+   *
+   * @param monitor reports progress as the graph, or each library, is resolved
+   * @return the dependencies, ordered by their Maven coordinates
+   */
+  public static List<LibraryFile> getAllDependencies(Collection<Library> libraries,
+      IProgressMonitor monitor) {
+    SubMonitor progress = SubMonitor.convert(monitor, libraries.size() + 1);
+    List<LibraryFile> resolvedFiles = new ArrayList<>();
+    List<Library> unresolvedLibraries = new ArrayList<>();
+    List<LibraryFile> rootFiles = new ArrayList<>();
+    for (Library library : libraries) {
+      synchronized (library) {
+        if (library.transitiveDependencies != null) {
+          resolvedFiles.addAll(library.transitiveDependencies);
+        } else {
+          unresolvedLibraries.add(library);
+          for (LibraryFile artifact : library.directDependencies) {
+            artifact.updateVersion();
+            rootFiles.add(artifact);
+          }
+        }
+      }
+    }
+    progress.worked(libraries.size() - unresolvedLibraries.size());
+    if (unresolvedLibraries.isEmpty()) {
+      return resolveDuplicates(resolvedFiles);
+    }
+
+    List<LibraryFile> mediated = resolveTogether(rootFiles, resolvedFiles);
+    progress.worked(1);
+    if (mediated != null) {
+      return mediated;
+    }
+
+    List<LibraryFile> dependencies = new ArrayList<>(resolvedFiles);
+    for (Library library : unresolvedLibraries) {
+      dependencies.addAll(library.getAllDependencies());
+      progress.worked(1);
+    }
+    return resolveDuplicates(dependencies);
+  }
+
+  /**
+   * Resolves {@code rootFiles} as a single dependency graph and adds {@code resolvedFiles} that do
+   * not conflict with it.
+   *
+   * @return the dependencies, ordered by their Maven coordinates, or {@code null} if the graph
+   *     could not be resolved
+   */
+  private static List<LibraryFile> resolveTogether(List<LibraryFile> rootFiles,
+      List<LibraryFile> resolvedFiles) {
+    Map<String, LibraryFile> rootsByCoordinates = new HashMap<>();
+    List<MavenCoordinates> roots = new ArrayList<>();
+    for (LibraryFile rootFile : rootFiles) {
+      rootsByCoordinates.putIfAbsent(rootFile.toString(), rootFile);
+      roots.add(rootFile.getMavenCoordinates());
+    }
+    try {
+      long start = System.nanoTime();
+      List<MavenCoordinates> closure = LibraryFactory.loadMediatedDependencies(roots);
+      logger.fine("Resolved " + roots.size() + " root artifacts to " + closure.size() //$NON-NLS-1$
+          + " artifacts in " + (System.nanoTime() - start) / 1_000_000 + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
+
+      TreeMap<String, LibraryFile> merged = new TreeMap<>();
+      for (MavenCoordinates coordinates : closure) {
+        LibraryFile file = new LibraryFile(coordinates);
+        // keep the declared file, which may carry filters and source and javadoc locations
+        LibraryFile rootFile = rootsByCoordinates.get(file.toString());
+        merged.put(getKey(coordinates), rootFile != null ? rootFile : file);
+      }
+      // libraries that are not resolved transitively cannot override the mediated versions
+      for (LibraryFile file : resolvedFiles) {
+        merged.putIfAbsent(getKey(file.getMavenCoordinates()), file);
+      }
+      return new ArrayList<>(merged.values());
+    } catch (CoreException ex) {
+      logger.log(Level.WARNING, "Could not resolve libraries together; resolving separately", ex); //$NON-NLS-1$
+      return null;
+    }
+  }
+
+  private static String getKey(MavenCoordinates coordinates) {
+    return coordinates.getGroupId() + ":" + coordinates.getArtifactId(); //$NON-NLS-1$
+  }
+
   /**
    * Strip out different versions of the same library, retaining only the most recent.
    *
@@ -228,7 +332,7 @@ public final class Library {
     TreeMap<String, LibraryFile> map = new TreeMap<>();
     for (LibraryFile file : dependencies) {
       MavenCoordinates coordinates = file.getMavenCoordinates();
-      String key = coordinates.getGroupId() + ":" + coordinates.getArtifactId();
+      String key = getKey(coordinates);
       if (map.containsKey(key)) {
         MavenCoordinates previousCoordinates = map.get(key).getMavenCoordinates();
         if (newer(coordinates, previousCoordinates)) {
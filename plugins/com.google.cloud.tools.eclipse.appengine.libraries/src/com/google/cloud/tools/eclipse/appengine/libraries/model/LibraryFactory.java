@@ -19,11 +19,13 @@ package com.google.cloud.tools.eclipse.appengine.libraries.model;
 import com.google.cloud.tools.eclipse.appengine.libraries.Messages;
 import com.google.cloud.tools.eclipse.util.ArtifactRetriever;
 import com.google.cloud.tools.eclipse.util.DependencyResolver;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -114,23 +116,60 @@ class LibraryFactory {
     return libraryFiles;
   }
 
+  /**
+   * Returns the transitive closure of {@code root}, using the persistent {@link
+   * DependencyClosureCache} when possible.
+   */
   static Collection<LibraryFile> loadTransitiveDependencies(MavenCoordinates root)
       throws CoreException {
+    return loadTransitiveDependencies(root, DependencyClosureCache.getDefault());
+  }
+
+  @VisibleForTesting
+  static Collection<LibraryFile> loadTransitiveDependencies(MavenCoordinates root,
+      DependencyClosureCache cache) throws CoreException {
     Set<LibraryFile> dependencies = new HashSet<>();
-    Collection<Artifact> artifacts = DependencyResolver.getTransitiveDependencies(
-        root.getGroupId(), root.getArtifactId(), root.getVersion(), null);
-    for (Artifact artifact : artifacts) {
-      MavenCoordinates coordinates = new MavenCoordinates.Builder()
-          .setGroupId(artifact.getGroupId())
-          .setArtifactId(artifact.getArtifactId())
-          .setVersion(artifact.getVersion())
-          .build();
-      LibraryFile file = new LibraryFile(coordinates);
-      dependencies.add(file);
+    for (MavenCoordinates coordinates
+        : loadMediatedDependencies(Collections.singletonList(root), cache)) {
+      dependencies.add(new LibraryFile(coordinates));
     }
     return dependencies;
   }
 
+  /**
+   * Returns the transitive closure of all {@code roots} resolved together as a single dependency
+   * graph, so that each artifact appears once with its Maven-mediated version. Uses the persistent
+   * {@link DependencyClosureCache} when possible.
+   */
+  static List<MavenCoordinates> loadMediatedDependencies(List<MavenCoordinates> roots)
+      throws CoreException {
+    return loadMediatedDependencies(roots, DependencyClosureCache.getDefault());
+  }
+
+  @VisibleForTesting
+  static List<MavenCoordinates> loadMediatedDependencies(List<MavenCoordinates> roots,
+      DependencyClosureCache cache) throws CoreException {
+    List<MavenCoordinates> closure = cache.get(roots);
+    if (closure == null) {
+      List<String> rootCoordinates = new ArrayList<>();
+      for (MavenCoordinates root : roots) {
+        rootCoordinates.add(
+            root.getGroupId() + ":" + root.getArtifactId() + ":" + root.getVersion());
+      }
+      closure = new ArrayList<>();
+      for (Artifact artifact
+          : DependencyResolver.getTransitiveDependencies(rootCoordinates, null)) {
+        closure.add(new MavenCoordinates.Builder()
+            .setGroupId(artifact.getGroupId())
+            .setArtifactId(artifact.getArtifactId())
+            .setVersion(artifact.getVersion())
+            .build());
+      }
+      cache.put(roots, closure);
+    }
+    return closure;
+  }
+
   private static LibraryFile loadSingleFile(IConfigurationElement libraryFileElement,
       MavenCoordinates mavenCoordinates) throws URISyntaxException {
     LibraryFile libraryFile = new LibraryFile(mavenCoordinates);
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.persistence;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.LibraryClasspathContainer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.IClasspathEntry;
+
+/**
+ * Records the state of a persisted {@link LibraryClasspathContainer}: the checksum, size and
+ * modification time of its state file, and the size and modification time of each jar and source
+ * attachment it refers to. This allows a workspace to start using a persisted container after a
+ * single check of the state file, and to defer checking the individual jars.
+ */
+public class ContainerManifest {
+
+  private static class FileState {
+    private String path;
+    private long length;
+    private long lastModified;
+
+    private FileState(File file) {
+      path = file.getAbsolutePath();
+      length = file.length();
+      lastModified = file.lastModified();
+    }
+
+    private boolean isCurrent() {
+      File file = new File(path);
+      // lastModified() is 0 for a missing file
+      return file.lastModified() == lastModified && file.length() == length;
+    }
+  }
+
+  private static class EntryState {
+    private FileState jar;
+    private FileState source;
+  }
+
+  private long stateFileLength;
+  private long stateFileLastModified;
+  private long stateFileChecksum;
+  private final List<EntryState> entries = new ArrayList<>();
+
+  private ContainerManifest() {}
+
+  static ContainerManifest create(File stateFile, LibraryClasspathContainer container)
+      throws IOException {
+    ContainerManifest manifest = new ContainerManifest();
+    manifest.stateFileLength = stateFile.length();
+    manifest.stateFileLastModified = stateFile.lastModified();
+    manifest.stateFileChecksum = checksum(stateFile);
+    for (IClasspathEntry classpathEntry : container.getClasspathEntries()) {
+      EntryState entry = new EntryState();
+      entry.jar = new FileState(classpathEntry.getPath().toFile());
+      IPath sourcePath = classpathEntry.getSourceAttachmentPath();
+      if (sourcePath != null) {
+        entry.source = new FileState(sourcePath.toFile());
+      }
+      manifest.entries.add(entry);
+    }
+    return manifest;
+  }
+
+  /**
+   * Returns {@code true} if this manifest describes {@code stateFile} as it is now. The checksum is
+   * only computed if the size or modification time differ.
+   */
+  boolean describes(File stateFile) throws IOException {
+    if (stateFile.length() != stateFileLength) {
+      return false;
+    }
+    return stateFile.lastModified() == stateFileLastModified
+        || checksum(stateFile) == stateFileChecksum;
+  }
+
+  /** Returns the number of classpath entries recorded. */
+  public int getEntryCount() {
+    return entries.size();
+  }
+
+  /**
+   * Returns the indices of the classpath entries whose jar or source attachment was removed or
+   * modified since the manifest was recorded.
+   */
+  public List<Integer> findStaleEntries() {
+    List<Integer> stale = new ArrayList<>();
+    for (int i = 0; i < entries.size(); i++) {
+      EntryState entry = entries.get(i);
+      if (!entry.jar.isCurrent() || (entry.source != null && !entry.source.isCurrent())) {
+        stale.add(i);
+      }
+    }
+    return stale;
+  }
+
+  private static long checksum(File file) throws IOException {
+    CRC32 crc = new CRC32();
+    crc.update(Files.readAllBytes(file.toPath()));
+    return crc.getValue();
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.persistence;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.core.runtime.Platform;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * A JSON file holding the state of a cache between IDE sessions. A save is deferred for a moment
+ * so that a burst of updates writes the file once, and replaces the whole file so that another
+ * IDE sharing it never reads a partial file.
+ *
+ * @param <T> the Gson-serializable type of the state
+ */
+public class JsonFileStore<T> {
+
+  private static final Logger logger = Logger.getLogger(JsonFileStore.class.getName());
+
+  /** How long a save waits for further updates. */
+  private static final long SAVE_DELAY_MS = 1000;
+
+  private static final ScheduledExecutorService saver = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder()
+          .setNameFormat("json-file-store-%d") //$NON-NLS-1$
+          .setDaemon(true)
+          .build());
+
+  /** The stores with a save pending, to write when the bundle stops. */
+  private static final Set<JsonFileStore<?>> pendingStores = ConcurrentHashMap.newKeySet();
+
+  private final Path file;
+  private final Class<T> stateType;
+  private final long saveDelayMs;
+  private final Gson gson = new Gson();
+  /** Held while writing, so that an older state never replaces a newer one. */
+  private final Object writeLock = new Object();
+
+  // guarded by this
+  private Supplier<T> pendingState;
+
+  public JsonFileStore(Path file, Class<T> stateType) {
+    this(file, stateType, SAVE_DELAY_MS);
+  }
+
+  @VisibleForTesting
+  JsonFileStore(Path file, Class<T> stateType, long saveDelayMs) {
+    this.file = Preconditions.checkNotNull(file);
+    this.stateType = Preconditions.checkNotNull(stateType);
+    this.saveDelayMs = saveDelayMs;
+  }
+
+  /**
+   * Returns the file {@code fileName} in the state location of the bundle of {@code bundleClass},
+   * or {@code null} if there is no state location, such as outside of OSGi.
+   */
+  public static Path getStateFile(Class<?> bundleClass, String fileName) {
+    Bundle bundle = FrameworkUtil.getBundle(bundleClass);
+    if (bundle == null) {
+      return null;
+    }
+    try {
+      return Platform.getStateLocation(bundle).append(fileName).toFile().toPath();
+    } catch (IllegalStateException ex) {
+      logger.log(Level.WARNING,
+          "No state location; not saving " + fileName, ex); //$NON-NLS-1$
+      return null;
+    }
+  }
+
+  /** Returns the saved state, or {@code null} if there is none or it cannot be read. */
+  public T load() {
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      return gson.fromJson(reader, stateType);
+    } catch (IOException | JsonParseException ex) {
+      logger.log(Level.WARNING, "Ignoring unreadable cache: " + file, ex); //$NON-NLS-1$
+      return null;
+    }
+  }
+
+  /**
+   * Saves the state returned by {@code state} shortly. {@code state} is only called when the file
+   * is written, from another thread, so a later call before then replaces it.
+   */
+  public synchronized void save(Supplier<T> state) {
+    boolean scheduled = pendingState != null;
+    pendingState = Preconditions.checkNotNull(state);
+    if (!scheduled) {
+      pendingStores.add(this);
+      saver.schedule(this::flush, saveDelayMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /** Writes the pending state, if any, now. */
+  public void flush() {
+    synchronized (writeLock) {
+      Supplier<T> state;
+      synchronized (this) {
+        state = pendingState;
+        pendingState = null;
+        pendingStores.remove(this);
+      }
+      if (state != null) {
+        write(state.get());
+      }
+    }
+  }
+
+  /** Writes the pending state of every store now, such as when the bundle stops. */
+  public static void flushAll() {
+    for (JsonFileStore<?> store : pendingStores) {
+      store.flush();
+    }
+  }
+
+  private void write(T state) {
+    Path temporary = null;
+    try {
+      Files.createDirectories(file.getParent());
+      temporary = Files.createTempFile(
+          file.getParent(), file.getFileName().toString(), ".tmp"); //$NON-NLS-1$
+      try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+        gson.toJson(state, writer);
+      }
+      try {
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException ex) {
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException ex) {
+      logger.log(Level.WARNING, "Could not save cache: " + file, ex); //$NON-NLS-1$
+    } finally {
+      deleteTemporary(temporary);
+    }
+  }
+
+  private static void deleteTemporary(Path temporary) {
+    if (temporary == null) {
+      return;
+    }
+    try {
+      // only still exists if the move failed
+      Files.deleteIfExists(temporary);
+    } catch (IOException ex) {
+      logger.log(Level.FINE, "Could not delete " + temporary, ex); //$NON-NLS-1$
+    }
+  }
+}
@@ -60,6 +60,7 @@ public class LibraryClasspathContainerSerializer {
       Logger.getLogger(LibraryClasspathContainerSerializer.class.getName());
 
   private static final String CONTAINER_LIBRARY_LIST_FILE_ID = "_libraries"; //$NON-NLS-1$
+  private static final String MANIFEST_FILE_EXTENSION = ".manifest"; //$NON-NLS-1$
 
   private final LibraryContainerStateLocationProvider stateLocationProvider;
   private final ArtifactBaseLocationProvider binaryArtifactBaseLocationProvider;
@@ -97,6 +98,7 @@ public class LibraryClasspathContainerSerializer {
               sourceBaseLocationProvider.getBaseLocation());
       out.write(gson.toJson(serializableContainer));
     }
+    saveManifest(container, stateFile);
   }
 
   public LibraryClasspathContainer loadContainer(IJavaProject javaProject, IPath containerPath)
@@ -121,10 +123,49 @@ public class LibraryClasspathContainerSerializer {
     }
   }
 
+  /** The manifest is kept next to the container state file. */
+  private static File getManifestFile(File stateFile) {
+    return new File(stateFile.getPath() + MANIFEST_FILE_EXTENSION);
+  }
+
+  /** Writes the manifest now, replacing the whole file so that it is never read half-written. */
+  private static void saveManifest(LibraryClasspathContainer container, File stateFile)
+      throws IOException {
+    ContainerManifest manifest = ContainerManifest.create(stateFile, container);
+    JsonFileStore<ContainerManifest> store = getManifestStore(stateFile);
+    store.save(() -> manifest);
+    store.flush();
+  }
+
+  private static JsonFileStore<ContainerManifest> getManifestStore(File stateFile) {
+    return new JsonFileStore<>(getManifestFile(stateFile).toPath(), ContainerManifest.class);
+  }
+
+  /**
+   * Returns the manifest recorded when the container was last saved, or {@code null} if there is
+   * no manifest or the container state file has been changed since.
+   */
+  public ContainerManifest loadManifest(IJavaProject javaProject, IPath containerPath)
+      throws IOException, CoreException {
+    File stateFile = getContainerStateFile(javaProject, containerPath.lastSegment(), false);
+    if (stateFile == null || !getManifestFile(stateFile).exists()) {
+      return null;
+    }
+    ContainerManifest manifest = getManifestStore(stateFile).load();
+    if (manifest == null || !manifest.describes(stateFile)) {
+      return null;
+    }
+    return manifest;
+  }
+
   public void resetContainer(IJavaProject javaProject, IPath containerPath)
       throws CoreException {
     // delete the container state cache file since the library list has changed
+    File stateFile = getContainerStateFile(javaProject, containerPath.lastSegment(), false);
     stateLocationProvider.removeContainerStateFile(javaProject, containerPath.lastSegment());
+    if (stateFile != null) {
+      getManifestFile(stateFile).delete();
+    }
   }
 
   /**
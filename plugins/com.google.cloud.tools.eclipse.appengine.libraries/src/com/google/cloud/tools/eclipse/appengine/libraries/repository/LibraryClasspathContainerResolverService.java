@@ -25,6 +25,7 @@ import com.google.cloud.tools.eclipse.appengine.libraries.model.CloudLibraries;
 import com.google.cloud.tools.eclipse.appengine.libraries.model.Filter;
 import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
 import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFile;
+import com.google.cloud.tools.eclipse.appengine.libraries.persistence.ContainerManifest;
 import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer;
 import com.google.cloud.tools.eclipse.util.MavenUtils;
 import com.google.cloud.tools.eclipse.util.status.StatusUtil;
@@ -34,6 +35,7 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -45,6 +47,7 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
@@ -180,6 +183,79 @@ public class LibraryClasspathContainerResolverService
     }
   }
 
+  @Override
+  public IStatus repairContainer(
+      IJavaProject javaProject, IPath containerPath, IProgressMonitor monitor) {
+    ISchedulingRule currentRule = Job.getJobManager().currentRule();
+    Preconditions.checkState(
+        currentRule == null || currentRule.contains(getSchedulingRule()),
+        "current scheduling rule is insufficient");
+
+    SubMonitor subMonitor = SubMonitor.convert(monitor, 10);
+    try {
+      IClasspathContainer current = JavaCore.getClasspathContainer(containerPath, javaProject);
+      if (!(current instanceof LibraryClasspathContainer)) {
+        return resolveContainer(javaProject, containerPath, subMonitor.newChild(10));
+      }
+      LibraryClasspathContainer container = (LibraryClasspathContainer) current;
+      List<IClasspathEntry> entries =
+          new ArrayList<>(Arrays.asList(container.getClasspathEntries()));
+      List<LibraryFile> libraryFiles = container.getLibraryFiles();
+      ContainerManifest manifest = serializer.loadManifest(javaProject, containerPath);
+      if (entries.size() != libraryFiles.size()
+          || (manifest != null && manifest.getEntryCount() != entries.size())) {
+        // entries cannot be matched to their library files
+        return resolveContainer(javaProject, containerPath, subMonitor.newChild(10));
+      }
+
+      List<Integer> staleIndices =
+          manifest != null ? manifest.findStaleEntries() : findMissingEntries(entries);
+      subMonitor.worked(1);
+      if (staleIndices.isEmpty()) {
+        return Status.OK_STATUS;
+      }
+      List<LibraryFile> staleFiles = new ArrayList<>();
+      for (int index : staleIndices) {
+        staleFiles.add(libraryFiles.get(index));
+      }
+      List<Artifact> artifacts = resolveArtifacts(staleFiles, subMonitor.newChild(7));
+
+      List<Job> sourceAttacherJobs = new ArrayList<>();
+      for (int i = 0; i < staleIndices.size(); i++) {
+        entries.set(staleIndices.get(i),
+            createLibraryEntryAttachSourceAsync(javaProject, containerPath, staleFiles.get(i),
+                artifacts.get(i), sourceAttacherJobs, subMonitor));
+      }
+      LibraryClasspathContainer repaired = container.copyWithNewEntries(entries);
+      JavaCore.setClasspathContainer(
+          containerPath,
+          new IJavaProject[] {javaProject},
+          new IClasspathContainer[] {repaired},
+          subMonitor.newChild(1));
+      serializer.saveContainer(javaProject, repaired);
+      for (Job job : sourceAttacherJobs) {
+        job.schedule();
+      }
+      return Status.OK_STATUS;
+    } catch (CoreException | IOException ex) {
+      return StatusUtil.error(
+          this, Messages.getString("TaskResolveContainerError", containerPath), ex);
+    }
+  }
+
+  private static List<Integer> findMissingEntries(List<IClasspathEntry> entries) {
+    List<Integer> missing = new ArrayList<>();
+    for (int i = 0; i < entries.size(); i++) {
+      IClasspathEntry entry = entries.get(i);
+      if (!entry.getPath().toFile().exists()
+          || (entry.getSourceAttachmentPath() != null
+              && !entry.getSourceAttachmentPath().toFile().exists())) {
+        missing.add(i);
+      }
+    }
+    return missing;
+  }
+
   private LibraryClasspathContainer resolveLibraryFiles(
       IJavaProject javaProject,
       IPath containerPath,
@@ -189,19 +265,21 @@ public class LibraryClasspathContainerResolverService
       throws CoreException {
 
     List<LibraryFile> libraryFiles = library.getAllDependencies();
-    SubMonitor subMonitor = SubMonitor.convert(monitor, libraryFiles.size());
+    SubMonitor subMonitor = SubMonitor.convert(monitor, libraryFiles.size() + 1);
     subMonitor.subTask(Messages.getString("TaskResolveArtifacts", getLibraryDescription(library)));
-    SubMonitor child = subMonitor.newChild(libraryFiles.size());
+
+    List<Artifact> artifacts =
+        resolveArtifacts(libraryFiles, subMonitor.newChild(libraryFiles.size()));
 
     List<IClasspathEntry> entries = new ArrayList<>();
-    for (LibraryFile libraryFile : libraryFiles) {
+    for (int i = 0; i < libraryFiles.size(); i++) {
       IClasspathEntry newLibraryEntry =
-          resolveLibraryFileAttachSourceAsync(
-              javaProject, containerPath, libraryFile, sourceAttacherJobs, monitor);
+          createLibraryEntryAttachSourceAsync(
+              javaProject, containerPath, libraryFiles.get(i), artifacts.get(i),
+              sourceAttacherJobs, monitor);
       entries.add(newLibraryEntry);
-      child.worked(1);
     }
-    monitor.done();
+    subMonitor.worked(1);
     LibraryClasspathContainer container =
         new LibraryClasspathContainer(
             containerPath, getLibraryDescription(library), entries, libraryFiles);
@@ -209,15 +287,36 @@ public class LibraryClasspathContainerResolverService
     return container;
   }
 
-  private IClasspathEntry resolveLibraryFileAttachSourceAsync(
+  /**
+   * Resolves the artifacts one at a time: m2e resolves into the local repository under {@link
+   * MavenUtils#mavenResolvingRule()}, which serializes the resolutions anyway.
+   *
+   * @return the resolved artifacts, in the same order as {@code libraryFiles}
+   */
+  private List<Artifact> resolveArtifacts(List<LibraryFile> libraryFiles,
+      IProgressMonitor monitor) throws CoreException {
+    SubMonitor progress = SubMonitor.convert(monitor, libraryFiles.size());
+    List<Artifact> artifacts = new ArrayList<>();
+    for (LibraryFile libraryFile : libraryFiles) {
+      if (progress.isCanceled()) {
+        throw new OperationCanceledException();
+      }
+      progress.subTask(Messages.getString(
+          "TaskResolveArtifact", libraryFile.getMavenCoordinates())); //$NON-NLS-1$
+      artifacts.add(repositoryService.resolveArtifact(libraryFile, progress.newChild(1)));
+    }
+    return artifacts;
+  }
+
+  private IClasspathEntry createLibraryEntryAttachSourceAsync(
       IJavaProject javaProject,
       IPath containerPath,
       LibraryFile libraryFile,
+      Artifact artifact,
       List<Job> sourceAttacherJobs,
       IProgressMonitor monitor)
       throws CoreException {
 
-    Artifact artifact = repositoryService.resolveArtifact(libraryFile, monitor);
     IPath artifactPath = new Path(artifact.getFile().getAbsolutePath());
     Job job =
         createSourceAttacherJob(
@@ -202,6 +202,15 @@ public class LocalAppEngineServerBehaviourTest {
     assertEquals("http://localhost:8183/", serverBehavior.getServiceUrl("third"));
   }
 
+  @Test
+  public void testExtractModuleUrlFromOutput_onlyAtStartOfLine() {
+    simulateOutputParsing(new String[] {
+        "[INFO] INFO: Module instance first is running at http://localhost:8181/",
+        "INFO: Module instance second is running at http://localhost:8182/"});
+    assertNull(serverBehavior.getServiceUrl("first"));
+    assertEquals("http://localhost:8182/", serverBehavior.getServiceUrl("second"));
+  }
+
   private void setUpServerPort(int port) {
     serverBehavior.serverPort = port;
   }
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.localserver.server;
+
+import static com.google.cloud.tools.eclipse.appengine.localserver.server.ModuleResourceDeltas.createDelta;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.wst.server.core.model.IModuleFile;
+import org.eclipse.wst.server.core.model.IModuleFolder;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.eclipse.wst.server.core.model.IModuleResourceDelta;
+import org.junit.Test;
+
+public class ModuleChangesTest {
+
+  @Test
+  public void testChangedClass() {
+    assertFalse(ModuleChanges.requireRestart(inClasses(
+        fileDelta("WEB-INF/classes/com/example", "Servlet.class", IModuleResourceDelta.CHANGED))));
+  }
+
+  @Test
+  public void testAddedClass() {
+    assertFalse(ModuleChanges.requireRestart(inClasses(
+        fileDelta("WEB-INF/classes/com/example", "Helper.class", IModuleResourceDelta.ADDED))));
+  }
+
+  @Test
+  public void testRemovedClass() {
+    assertTrue(ModuleChanges.requireRestart(inClasses(
+        fileDelta("WEB-INF/classes/com/example", "Helper.class", IModuleResourceDelta.REMOVED))));
+  }
+
+  @Test
+  public void testChangedResourceInClasses() {
+    assertTrue(ModuleChanges.requireRestart(inClasses(
+        fileDelta("WEB-INF/classes/com/example", "strings.properties",
+            IModuleResourceDelta.CHANGED))));
+  }
+
+  @Test
+  public void testAddedResourceInClasses() {
+    IModuleResourceDelta webInf = folderDelta("", "WEB-INF", IModuleResourceDelta.NO_CHANGE,
+        folderDelta("WEB-INF", "classes", IModuleResourceDelta.NO_CHANGE,
+            fileDelta("WEB-INF/classes", "logging.properties", IModuleResourceDelta.ADDED)));
+    assertTrue(ModuleChanges.requireRestart(new IModuleResourceDelta[] {webInf}));
+  }
+
+  @Test
+  public void testRemovedPackage() {
+    IModuleResourceDelta removed =
+        folderDelta("WEB-INF/classes/com", "example", IModuleResourceDelta.REMOVED);
+    assertTrue(ModuleChanges.requireRestart(new IModuleResourceDelta[] {removed}));
+  }
+
+  @Test
+  public void testStaticFiles() {
+    IModuleResourceDelta[] deltas = {
+        fileDelta("", "index.html", IModuleResourceDelta.CHANGED),
+        fileDelta("", "hello.jsp", IModuleResourceDelta.REMOVED),
+        folderDelta("", "css", IModuleResourceDelta.NO_CHANGE,
+            fileDelta("css", "style.css", IModuleResourceDelta.ADDED))};
+    assertFalse(ModuleChanges.requireRestart(deltas));
+  }
+
+  @Test
+  public void testDescriptorChanged() {
+    IModuleResourceDelta webInf = folderDelta("", "WEB-INF", IModuleResourceDelta.NO_CHANGE,
+        fileDelta("WEB-INF", "appengine-web.xml", IModuleResourceDelta.CHANGED));
+    assertTrue(ModuleChanges.requireRestart(new IModuleResourceDelta[] {webInf}));
+  }
+
+  @Test
+  public void testJspInWebInfChanged() {
+    IModuleResourceDelta webInf = folderDelta("", "WEB-INF", IModuleResourceDelta.NO_CHANGE,
+        folderDelta("WEB-INF", "views", IModuleResourceDelta.NO_CHANGE,
+            fileDelta("WEB-INF/views", "page.jsp", IModuleResourceDelta.CHANGED)));
+    assertFalse(ModuleChanges.requireRestart(new IModuleResourceDelta[] {webInf}));
+  }
+
+  @Test
+  public void testLibraryAdded() {
+    IModuleResourceDelta webInf = folderDelta("", "WEB-INF", IModuleResourceDelta.NO_CHANGE,
+        folderDelta("WEB-INF", "lib", IModuleResourceDelta.NO_CHANGE,
+            fileDelta("WEB-INF/lib", "library.jar", IModuleResourceDelta.ADDED)));
+    assertTrue(ModuleChanges.requireRestart(new IModuleResourceDelta[] {webInf}));
+  }
+
+  private static IModuleResourceDelta[] inClasses(IModuleResourceDelta classDelta) {
+    IModuleResourceDelta webInf = folderDelta("", "WEB-INF", IModuleResourceDelta.NO_CHANGE,
+        folderDelta("WEB-INF", "classes", IModuleResourceDelta.NO_CHANGE,
+            folderDelta("WEB-INF/classes", "com", IModuleResourceDelta.NO_CHANGE,
+                folderDelta("WEB-INF/classes/com", "example", IModuleResourceDelta.NO_CHANGE,
+                    classDelta))));
+    return new IModuleResourceDelta[] {webInf};
+  }
+
+  private static IModuleResourceDelta fileDelta(String relativePath, String name, int kind) {
+    IModuleFile file = mock(IModuleFile.class);
+    setUpResource(file, relativePath, name);
+    return createDelta(file, kind);
+  }
+
+  private static IModuleResourceDelta folderDelta(String relativePath, String name, int kind,
+      IModuleResourceDelta... children) {
+    IModuleFolder folder = mock(IModuleFolder.class);
+    setUpResource(folder, relativePath, name);
+    return createDelta(folder, kind, children);
+  }
+
+  private static void setUpResource(IModuleResource resource, String relativePath, String name) {
+    IPath path = relativePath.isEmpty() ? Path.EMPTY : new Path(relativePath);
+    when(resource.getModuleRelativePath()).thenReturn(path);
+    when(resource.getName()).thenReturn(name);
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.localserver.server;
+
+import static com.google.cloud.tools.eclipse.appengine.localserver.server.ModuleResourceDeltas.createDelta;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.wst.server.core.model.IModuleFile;
+import org.eclipse.wst.server.core.model.IModuleFolder;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.eclipse.wst.server.core.model.IModuleResourceDelta;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ModulePublisherTest {
+
+  private static final IPath MODULE_ROOT = org.eclipse.core.runtime.Path.EMPTY;
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private Path sourceDirectory;
+  private Path deployDirectory;
+
+  @Before
+  public void setUp() throws IOException {
+    sourceDirectory = tempFolder.newFolder("source").toPath();
+    deployDirectory = tempFolder.newFolder("deploy").toPath();
+  }
+
+  @Test
+  public void testPublishFull() throws IOException {
+    IModuleResource[] resources = {
+        createFile(MODULE_ROOT, "index.html", "<html/>"),
+        createFolder(MODULE_ROOT, "WEB-INF",
+            createFile(modulePath("WEB-INF"), "web.xml", "<web-app/>"))};
+
+    ModulePublisher publisher = new ModulePublisher(deployDirectory, 2, false);
+    IStatus[] statuses = publisher.publishFull(resources, null);
+
+    assertEquals(0, statuses.length);
+    assertEquals(2, publisher.getCopiedCount());
+    assertEquals(0, publisher.getSkippedCount());
+    assertContents("<html/>", deployDirectory.resolve("index.html"));
+    assertContents("<web-app/>", deployDirectory.resolve("WEB-INF/web.xml"));
+  }
+
+  @Test
+  public void testPublishFull_skipsIdenticalFiles() throws IOException {
+    IModuleResource[] resources = {
+        createFile(MODULE_ROOT, "unchanged.html", "same"),
+        createFile(MODULE_ROOT, "changed.html", "new")};
+    Path unchanged = write(deployDirectory.resolve("unchanged.html"), "same");
+    FileTime deployedTime = FileTime.fromMillis(1000);
+    Files.setLastModifiedTime(unchanged, deployedTime);
+    write(deployDirectory.resolve("changed.html"), "old");
+
+    ModulePublisher publisher = new ModulePublisher(deployDirectory, 2, false);
+    publisher.publishFull(resources, null);
+
+    assertEquals(1, publisher.getCopiedCount());
+    assertEquals(1, publisher.getSkippedCount());
+    assertEquals(deployedTime, Files.getLastModifiedTime(unchanged));
+    assertContents("new", deployDirectory.resolve("changed.html"));
+  }
+
+  @Test
+  public void testPublishFull_sameSizeDifferentContent() throws IOException {
+    IModuleResource[] resources = {createFile(MODULE_ROOT, "file.txt", "abc")};
+    write(deployDirectory.resolve("file.txt"), "abd");
+
+    ModulePublisher publisher = new ModulePublisher(deployDirectory, 1, false);
+    publisher.publishFull(resources, null);
+
+    assertEquals(1, publisher.getCopiedCount());
+    assertContents("abc", deployDirectory.resolve("file.txt"));
+  }
+
+  @Test
+  public void testPublishFull_hardLinks() throws IOException {
+    IModuleResource[] resources = {createFile(MODULE_ROOT, "file.txt", "linked")};
+
+    ModulePublisher publisher = new ModulePublisher(deployDirectory, 1, true);
+    publisher.publishFull(resources, null);
+    publisher.publishFull(resources, null);
+
+    assertEquals(1, publisher.getCopiedCount());
+    assertEquals(1, publisher.getSkippedCount());
+    assertContents("linked", deployDirectory.resolve("file.txt"));
+  }
+
+  @Test
+  public void testPublishFull_missingSource() {
+    IModuleFile file = mock(IModuleFile.class);
+    when(file.getName()).thenReturn("missing.txt");
+    when(file.getModuleRelativePath()).thenReturn(MODULE_ROOT);
+
+    ModulePublisher publisher = new ModulePublisher(deployDirectory, 1, false);
+    IStatus[] statuses = publisher.publishFull(new IModuleResource[] {file}, null);
+
+    assertEquals(1, statuses.length);
+    assertEquals(IStatus.ERROR, statuses[0].getSeverity());
+  }
+
+  @Test
+  public void testPublishDelta() throws IOException {
+    IModuleFile added = createFile(modulePath("WEB-INF"), "added.xml", "added");
+    IModuleFile changed = createFile(modulePath("WEB-INF"), "changed.xml", "changed");
+    IModuleFile removed = createFile(modulePath("WEB-INF"), "removed.xml", "removed");
+    IModuleFile untouched = createFile(modulePath("WEB-INF"), "untouched.xml", "untouched");
+    IModuleFolder webInf =
+        createFolder(MODULE_ROOT, "WEB-INF", added, changed, removed, untouched);
+    write(deployDirectory.resolve("WEB-INF/changed.xml"), "old");
+    write(deployDirectory.resolve("WEB-INF/removed.xml"), "removed");
+    write(deployDirectory.resolve("WEB-INF/untouched.xml"), "stale");
+
+    IModuleResourceDelta delta = createDelta(webInf, IModuleResourceDelta.NO_CHANGE,
+        createDelta(added, IModuleResourceDelta.ADDED),
+        createDelta(changed, IModuleResourceDelta.CHANGED),
+        createDelta(removed, IModuleResourceDelta.REMOVED));
+
+    ModulePublisher publisher = new ModulePublisher(deployDirectory, 2, false);
+    IStatus[] statuses = publisher.publishDelta(new IModuleResourceDelta[] {delta}, null);
+
+    assertEquals(0, statuses.length);
+    assertEquals(2, publisher.getCopiedCount());
+    assertEquals(1, publisher.getDeletedCount());
+    assertContents("added", deployDirectory.resolve("WEB-INF/added.xml"));
+    assertContents("changed", deployDirectory.resolve("WEB-INF/changed.xml"));
+    assertFalse(Files.exists(deployDirectory.resolve("WEB-INF/removed.xml")));
+    assertContents("stale", deployDirectory.resolve("WEB-INF/untouched.xml"));
+  }
+
+  @Test
+  public void testPublishDelta_addedFolder() throws IOException {
+    IModuleFile file = createFile(modulePath("css"), "style.css", "body {}");
+    IModuleFolder css = createFolder(MODULE_ROOT, "css", file);
+    IModuleResourceDelta delta = createDelta(css, IModuleResourceDelta.ADDED,
+        createDelta(file, IModuleResourceDelta.ADDED));
+
+    ModulePublisher publisher = new ModulePublisher(deployDirectory, 1, false);
+    publisher.publishDelta(new IModuleResourceDelta[] {delta}, null);
+
+    assertContents("body {}", deployDirectory.resolve("css/style.css"));
+  }
+
+  @Test
+  public void testPublishDelta_removedFolder() throws IOException {
+    IModuleFolder css = createFolder(MODULE_ROOT, "css");
+    write(deployDirectory.resolve("css/style.css"), "body {}");
+    IModuleResourceDelta delta = createDelta(css, IModuleResourceDelta.REMOVED);
+
+    ModulePublisher publisher = new ModulePublisher(deployDirectory, 1, false);
+    publisher.publishDelta(new IModuleResourceDelta[] {delta}, null);
+
+    assertFalse(Files.exists(deployDirectory.resolve("css")));
+    assertTrue(Files.exists(deployDirectory));
+  }
+
+  private static IPath modulePath(String path) {
+    return org.eclipse.core.runtime.Path.fromPortableString(path);
+  }
+
+  private IModuleFile createFile(IPath relativePath, String name, String contents)
+      throws IOException {
+    File source = write(sourceDirectory.resolve(relativePath.append(name).toString()), contents)
+        .toFile();
+    IModuleFile file = mock(IModuleFile.class);
+    when(file.getName()).thenReturn(name);
+    when(file.getModuleRelativePath()).thenReturn(relativePath);
+    when(file.getAdapter(File.class)).thenReturn(source);
+    return file;
+  }
+
+  private static IModuleFolder createFolder(IPath relativePath, String name,
+      IModuleResource... members) {
+    IModuleFolder folder = mock(IModuleFolder.class);
+    when(folder.getName()).thenReturn(name);
+    when(folder.getModuleRelativePath()).thenReturn(relativePath);
+    when(folder.members()).thenReturn(members);
+    return folder;
+  }
+
+  private static Path write(Path file, String contents)
+      throws IOException {
+    Files.createDirectories(file.getParent());
+    return Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void assertContents(String expected, Path file)
+      throws IOException {
+    assertEquals(expected, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+  }
+}
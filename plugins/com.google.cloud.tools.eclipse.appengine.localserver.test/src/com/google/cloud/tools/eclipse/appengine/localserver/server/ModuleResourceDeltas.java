@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.localserver.server;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.eclipse.wst.server.core.model.IModuleResourceDelta;
+
+/** Mock publish deltas for the tests of the module publishing classes. */
+class ModuleResourceDeltas {
+
+  private ModuleResourceDeltas() {}
+
+  static IModuleResourceDelta createDelta(IModuleResource resource, int kind,
+      IModuleResourceDelta... children) {
+    IModuleResourceDelta delta = mock(IModuleResourceDelta.class);
+    when(delta.getModuleResource()).thenReturn(resource);
+    when(delta.getKind()).thenReturn(kind);
+    when(delta.getAffectedChildren()).thenReturn(children);
+    return delta;
+  }
+}
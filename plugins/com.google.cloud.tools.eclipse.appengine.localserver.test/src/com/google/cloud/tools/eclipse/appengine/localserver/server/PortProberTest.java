@@ -0,0 +1,142 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.localserver.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.eclipse.appengine.localserver.server.PortProber.Report;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.wst.server.core.util.SocketUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PortProberTest {
+
+  private final InetAddress loopback = InetAddress.getLoopbackAddress();
+  private ServerSocket boundSocket;
+  private PortProber prober;
+
+  @Before
+  public void setUp() throws IOException {
+    boundSocket = new ServerSocket(0, 1, loopback);
+    prober = new PortProber(Executors.newCachedThreadPool(), host -> loopback,
+        SocketUtil::isPortInUse);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    boundSocket.close();
+  }
+
+  @Test
+  public void testProbe_portInUse() throws CoreException {
+    int port = boundSocket.getLocalPort();
+    Report report = PortProber.await(prober.probe(null, port));
+
+    assertEquals(loopback, report.getAddress());
+    assertEquals(1, report.getConflicts().size());
+    assertEquals("Port " + port + " is in use.", report.getConflicts().get(port).getMessage());
+    assertEquals(report.getConflicts().get(port), report.toStatus());
+  }
+
+  @Test
+  public void testProbe_portsFree() throws IOException, CoreException {
+    int port1 = freePort();
+    int port2 = freePort();
+    Report report = PortProber.await(prober.probe("localhost", port1, port2, 0));
+
+    assertTrue(report.getConflicts().isEmpty());
+    assertTrue(report.toStatus().isOK());
+  }
+
+  @Test
+  public void testProbe_severalConflicts() throws IOException, CoreException {
+    try (ServerSocket other = new ServerSocket(0, 1, loopback)) {
+      int freePort = freePort();
+      Report report = PortProber.await(prober.probe(null,
+          boundSocket.getLocalPort(), freePort, other.getLocalPort(), 65536));
+
+      assertEquals(3, report.getConflicts().size());
+      IStatus status = report.toStatus();
+      assertTrue(status.isMultiStatus());
+      assertEquals(3, status.getChildren().length);
+      assertEquals("Port must be between 0 and 65535.",
+          report.getConflicts().get(65536).getMessage());
+    }
+  }
+
+  @Test
+  public void testResolve_cached() {
+    @SuppressWarnings("unchecked")
+    Function<String, InetAddress> resolver = mock(Function.class);
+    when(resolver.apply("example.com")).thenReturn(loopback);
+    PortProber prober = new PortProber(Runnable::run, resolver, (addr, port) -> false);
+
+    assertEquals(loopback, prober.resolve("example.com").join());
+    assertEquals(loopback, prober.resolve("example.com").join());
+    verify(resolver, times(1)).apply("example.com");
+  }
+
+  @Test
+  public void testResolve_unresolvedNotCached() {
+    @SuppressWarnings("unchecked")
+    Function<String, InetAddress> resolver = mock(Function.class);
+    PortProber prober = new PortProber(Runnable::run, resolver, (addr, port) -> false);
+
+    assertNull(prober.resolve("unknown.example.com").join());
+    assertNull(prober.resolve("unknown.example.com").join());
+    verify(resolver, times(2)).apply("unknown.example.com");
+  }
+
+  @Test
+  public void testResolve_nullHostIsLoopback() {
+    assertEquals(loopback, prober.resolve(null).join());
+  }
+
+  @Test
+  public void testAwait_failedProbe() {
+    CompletableFuture<Report> probe = new CompletableFuture<>();
+    probe.completeExceptionally(new IllegalStateException("resolver failed"));
+    try {
+      PortProber.await(probe);
+      fail("Should throw CoreException");
+    } catch (CoreException ex) {
+      assertEquals("Could not check whether the server port is in use.", ex.getMessage());
+    }
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.localserver.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.wst.server.core.IModule;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ServiceRegistryTest {
+
+  private final Map<IModule, String> descriptors = new HashMap<>();
+  private final Map<IModule, Integer> reads = new HashMap<>();
+  private final ServiceRegistry registry = new ServiceRegistry(module -> {
+    reads.merge(module, 1, Integer::sum);
+    return descriptors.get(module);
+  });
+
+  private IProject project1;
+  private IProject project2;
+  private IModule module1;
+  private IModule module2;
+
+  @Before
+  public void setUp() {
+    project1 = mock(IProject.class);
+    project2 = mock(IProject.class);
+    module1 = mockModule(project1, "default");
+    module2 = mockModule(project2, "backend");
+  }
+
+  @Test
+  public void testGetServiceId_readOnce() {
+    assertEquals("default", registry.getServiceId(module1));
+    assertEquals("default", registry.getServiceId(module1));
+    assertEquals(1, (int) reads.get(module1));
+  }
+
+  @Test
+  public void testFindModule() {
+    IModule[] modules = {module1, module2};
+    assertSame(module2, registry.findModule(modules, "backend"));
+    assertSame(module1, registry.findModule(modules, "default"));
+    assertNull(registry.findModule(modules, "other"));
+    assertEquals(1, (int) reads.get(module1));
+    assertEquals(1, (int) reads.get(module2));
+  }
+
+  @Test
+  public void testFindModule_firstWins() {
+    IModule duplicate = mockModule(project2, "default");
+    assertSame(module1, registry.findModule(new IModule[] {module1, duplicate}, "default"));
+  }
+
+  @Test
+  public void testFindModule_modulesChanged() {
+    assertNull(registry.findModule(new IModule[] {module1}, "backend"));
+    assertSame(module2, registry.findModule(new IModule[] {module1, module2}, "backend"));
+    assertEquals(1, (int) reads.get(module1));
+  }
+
+  @Test
+  public void testInvalidate() {
+    IModule[] modules = {module1, module2};
+    registry.findModule(modules, "default");
+    descriptors.put(module2, "renamed");
+
+    registry.invalidate(project2);
+    assertSame(module2, registry.findModule(modules, "renamed"));
+    assertNull(registry.findModule(modules, "backend"));
+    assertEquals(1, (int) reads.get(module1));
+    assertEquals(2, (int) reads.get(module2));
+  }
+
+  @Test
+  public void testRemove() {
+    registry.getServiceId(module1);
+    registry.remove(module1);
+    registry.getServiceId(module1);
+    assertEquals(2, (int) reads.get(module1));
+  }
+
+  @Test
+  public void testResourceChanged_descriptorChanged() throws CoreException {
+    registry.findModule(new IModule[] {module1, module2}, "default");
+    IFile descriptor = mock(IFile.class);
+    when(descriptor.getType()).thenReturn(IResource.FILE);
+    when(descriptor.getName()).thenReturn("appengine-web.xml");
+    when(descriptor.getProject()).thenReturn(project1);
+
+    registry.resourceChanged(mockEvent(mockDelta(project1, IResourceDelta.CHANGED),
+        mockDelta(descriptor, IResourceDelta.CHANGED)));
+    registry.getServiceId(module1);
+    registry.getServiceId(module2);
+    assertEquals(2, (int) reads.get(module1));
+    assertEquals(1, (int) reads.get(module2));
+  }
+
+  @Test
+  public void testResourceChanged_otherFileChanged() throws CoreException {
+    registry.getServiceId(module1);
+    IFile file = mock(IFile.class);
+    when(file.getType()).thenReturn(IResource.FILE);
+    when(file.getName()).thenReturn("web.xml");
+    when(file.getProject()).thenReturn(project1);
+
+    registry.resourceChanged(mockEvent(mockDelta(project1, IResourceDelta.CHANGED),
+        mockDelta(file, IResourceDelta.CHANGED)));
+    registry.getServiceId(module1);
+    assertEquals(1, (int) reads.get(module1));
+  }
+
+  @Test
+  public void testResourceChanged_projectRemoved() throws CoreException {
+    registry.getServiceId(module1);
+
+    registry.resourceChanged(mockEvent(mockDelta(project1, IResourceDelta.REMOVED)));
+    registry.getServiceId(module1);
+    assertEquals(2, (int) reads.get(module1));
+  }
+
+  private IModule mockModule(IProject project, String serviceId) {
+    when(project.getType()).thenReturn(IResource.PROJECT);
+    IModule module = mock(IModule.class);
+    when(module.getProject()).thenReturn(project);
+    descriptors.put(module, serviceId);
+    return module;
+  }
+
+  private static IResourceDelta mockDelta(IResource resource, int kind) {
+    IResourceDelta delta = mock(IResourceDelta.class);
+    when(delta.getResource()).thenReturn(resource);
+    when(delta.getKind()).thenReturn(kind);
+    return delta;
+  }
+
+  /** Returns an event whose delta visits {@code deltas} in order, as if each was in the last. */
+  private static IResourceChangeEvent mockEvent(IResourceDelta... deltas) throws CoreException {
+    IResourceDelta root = mock(IResourceDelta.class);
+    doAnswer(invocation -> {
+      IResourceDeltaVisitor visitor = (IResourceDeltaVisitor) invocation.getArguments()[0];
+      for (IResourceDelta delta : deltas) {
+        if (!visitor.visit(delta)) {
+          break;
+        }
+      }
+      return null;
+    }).when(root).accept(any(IResourceDeltaVisitor.class));
+    IResourceChangeEvent event = mock(IResourceChangeEvent.class);
+    when(event.getDelta()).thenReturn(root);
+    return event;
+  }
+}
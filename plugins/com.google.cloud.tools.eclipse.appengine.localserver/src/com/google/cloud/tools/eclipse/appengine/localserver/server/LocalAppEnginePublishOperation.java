@@ -17,16 +17,27 @@
 package com.google.cloud.tools.eclipse.appengine.localserver.server;
 
 import com.google.cloud.tools.eclipse.jst.server.core.BasePublishOperation;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.server.core.IServer;
 import org.eclipse.wst.server.core.model.IModuleResource;
 import org.eclipse.wst.server.core.model.IModuleResourceDelta;
+import org.eclipse.wst.server.core.model.ServerBehaviourDelegate;
 
 /**
  * Handles the publishing operations for the App Engine development server.
  */
 public class LocalAppEnginePublishOperation extends BasePublishOperation {
 
+  private static final Logger logger =
+      Logger.getLogger(LocalAppEnginePublishOperation.class.getName());
+
   private LocalAppEngineServerBehaviour server;
 
   /**
@@ -40,6 +51,38 @@ public class LocalAppEnginePublishOperation extends BasePublishOperation {
     this.server = server;
   }
 
+  /**
+   * Publishes a web module, writing only the files whose content differs from the deployed copy.
+   * A clean publish or the removal of the module is left to the base implementation. Changes that
+   * the running server cannot pick up without restarting are reported to it.
+   */
+  @Override
+  protected void publishDir(IModule webModule, List<IStatus> statuses, IProgressMonitor monitor)
+      throws CoreException {
+    if (kind == IServer.PUBLISH_CLEAN || deltaKind == ServerBehaviourDelegate.REMOVED) {
+      super.publishDir(webModule, statuses, monitor);
+      return;
+    }
+
+    ModulePublisher publisher =
+        new ModulePublisher(getModuleDeployDirectory(webModule).toFile().toPath());
+    IStatus[] status;
+    if (kind == IServer.PUBLISH_FULL) {
+      status = publisher.publishFull(getResources(module), monitor);
+    } else {
+      IModuleResourceDelta[] deltas = getPublishedResourceDelta(module);
+      status = publisher.publishDelta(deltas, monitor);
+      if (ModuleChanges.requireRestart(deltas)) {
+        server.publishedChangesRequiringRestart();
+      }
+    }
+    addArrayToList(statuses, status);
+    logger.log(Level.FINE,
+        "Published {0}: {1} files copied, {2} unchanged, {3} removed", //$NON-NLS-1$
+        new Object[] {webModule.getName(), publisher.getCopiedCount(),
+            publisher.getSkippedCount(), publisher.getDeletedCount()});
+  }
+
   @Override
   protected IPath getRuntimeBaseDirectory() {
     return server.getRuntimeBaseDirectory();
@@ -31,7 +31,7 @@ import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessStart
 import com.google.cloud.tools.appengine.operations.cloudsdk.serialization.CloudSdkVersion;
 import com.google.cloud.tools.eclipse.appengine.localserver.Activator;
 import com.google.cloud.tools.eclipse.appengine.localserver.Messages;
-import com.google.cloud.tools.eclipse.sdk.MessageConsoleWriterListener;
+import com.google.cloud.tools.eclipse.sdk.BufferedConsoleOutput;
 import com.google.cloud.tools.eclipse.util.status.StatusUtil;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
@@ -41,6 +41,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiPredicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -54,6 +58,7 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
+import org.eclipse.debug.core.ILaunchManager;
 import org.eclipse.ui.console.MessageConsoleStream;
 import org.eclipse.wst.server.core.IModule;
 import org.eclipse.wst.server.core.IServer;
@@ -61,7 +66,6 @@ import org.eclipse.wst.server.core.internal.IModulePublishHelper;
 import org.eclipse.wst.server.core.model.IModuleResource;
 import org.eclipse.wst.server.core.model.IModuleResourceDelta;
 import org.eclipse.wst.server.core.model.ServerBehaviourDelegate;
-import org.eclipse.wst.server.core.util.SocketUtil;
 
 /**
  * A {@link ServerBehaviourDelegate} for DevAppServer.
@@ -89,6 +93,13 @@ public class LocalAppEngineServerBehaviour extends ServerBehaviourDelegate
   private static final Logger logger =
       Logger.getLogger(LocalAppEngineServerBehaviour.class.getName());
 
+  /** The start of every line matched by {@link #MODULE_RUNNING_PATTERN}. */
+  private static final String MODULE_RUNNING_PREFIX = "INFO: Module instance "; //$NON-NLS-1$
+
+  private static final Pattern MODULE_RUNNING_PATTERN = Pattern.compile(
+      MODULE_RUNNING_PREFIX
+      + "(?<service>[\\w\\d\\-]+) is running at (?<url>http://.+:(?<port>[0-9]+)/)$");
+
   private LocalAppEngineStartListener localAppEngineStartListener;
   private LocalAppEngineExitListener localAppEngineExitListener;
 
@@ -100,7 +111,28 @@ public class LocalAppEngineServerBehaviour extends ServerBehaviourDelegate
   @VisibleForTesting
   int serverPort = -1;
 
+  /** Checks the ports of each launch; remembers the addresses of host names between launches. */
+  private final PortProber portProber = new PortProber();
+
+  /**
+   * How old the result of a port check started ahead of the launch may be; the ports are checked
+   * again if the launch was held up for longer, such as by a prompt.
+   */
+  private static final long PORT_CHECK_MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+  /**
+   * The port check started for the next launch, the configuration it checks, and when it started,
+   * per {@link System#nanoTime()}.
+   */
+  // guarded by this
+  private CompletableFuture<PortProber.Report> pendingPortCheck;
+  private RunConfiguration pendingPortCheckConfiguration;
+  private long pendingPortCheckStart;
+
   private DevAppServerOutputListener serverOutputListener;
+
+  /** Batches the server's output to the console; a new one for each launch. */
+  private BufferedConsoleOutput consoleOutput;
   
   @VisibleForTesting
   Map<String, String> moduleToUrlMap = new LinkedHashMap<>();
@@ -108,7 +140,6 @@ public class LocalAppEngineServerBehaviour extends ServerBehaviourDelegate
   public LocalAppEngineServerBehaviour () {
     localAppEngineStartListener = new LocalAppEngineStartListener();
     localAppEngineExitListener = new LocalAppEngineExitListener();
-    serverOutputListener = new DevAppServerOutputListener();
   }
 
   @Override
@@ -207,6 +238,19 @@ public class LocalAppEngineServerBehaviour extends ServerBehaviourDelegate
     }
   }
 
+  /**
+   * Called once changes have been published that the server only picks up when it restarts. In
+   * run mode the server restarts itself on any change. In debug mode it does not, as the debugger
+   * replaces changed classes in place, so the server is marked as needing a restart instead.
+   */
+  void publishedChangesRequiringRestart() {
+    IServer server = getServer();
+    if (server.getServerState() == IServer.STATE_STARTED
+        && ILaunchManager.DEBUG_MODE.equals(server.getMode())) {
+      setServerRestartState(true);
+    }
+  }
+
   private static IStatus newErrorStatus(String message) {
     return new Status(IStatus.ERROR, Activator.PLUGIN_ID, message);
   }
@@ -227,16 +271,62 @@ public class LocalAppEngineServerBehaviour extends ServerBehaviourDelegate
     workingCopy.setMappedResources(projects.toArray(new IResource[projects.size()]));
   }
 
+  /**
+   * Starts checking, in the background, that the ports of the next launch are free, so that the
+   * check proceeds while the rest of the launch is prepared.
+   */
+  synchronized void startPortCheck(RunConfiguration devServerRunConfiguration) {
+    pendingPortCheckStart = System.nanoTime();
+    pendingPortCheck = probePorts(devServerRunConfiguration);
+    pendingPortCheckConfiguration = devServerRunConfiguration;
+  }
+
+  /** Forgets the port check started ahead of a launch that did not go ahead. */
+  synchronized void cancelPortCheck() {
+    pendingPortCheck = null;
+    pendingPortCheckConfiguration = null;
+  }
+
+  /**
+   * Returns the port check started ahead of this launch, or {@code null} if there is none for
+   * {@code devServerRunConfiguration} or its result may be out of date.
+   */
+  private synchronized Future<PortProber.Report> takePortCheck(
+      RunConfiguration devServerRunConfiguration) {
+    Future<PortProber.Report> portCheck = pendingPortCheck;
+    RunConfiguration checkedConfiguration = pendingPortCheckConfiguration;
+    cancelPortCheck();
+    if (portCheck == null
+        || !sameHostAndPort(checkedConfiguration, devServerRunConfiguration)
+        || System.nanoTime() - pendingPortCheckStart > PORT_CHECK_MAX_AGE_NANOS) {
+      return null;
+    }
+    return portCheck;
+  }
+
   @VisibleForTesting
-  void checkPorts(RunConfiguration devServerRunConfiguration,
-      BiPredicate<InetAddress, Integer> portInUse) throws CoreException {
-    InetAddress serverHost = InetAddress.getLoopbackAddress();
-    if (devServerRunConfiguration.getHost() != null) {
-      serverHost = LocalAppEngineServerLaunchConfigurationDelegate
-          .resolveAddress(devServerRunConfiguration.getHost());
+  void checkPorts(RunConfiguration devServerRunConfiguration) throws CoreException {
+    Future<PortProber.Report> portCheck = takePortCheck(devServerRunConfiguration);
+    if (portCheck == null) {
+      portCheck = probePorts(devServerRunConfiguration);
     }
-    serverPort = checkPort(serverHost,
-        ifNull(devServerRunConfiguration.getPort(), DEFAULT_SERVER_PORT), portInUse);
+
+    IStatus status = PortProber.await(portCheck).toStatus();
+    if (!status.isOK()) {
+      throw new CoreException(status);
+    }
+    serverPort = ifNull(devServerRunConfiguration.getPort(), DEFAULT_SERVER_PORT);
+  }
+
+  private CompletableFuture<PortProber.Report> probePorts(
+      RunConfiguration devServerRunConfiguration) {
+    return portProber.probe(devServerRunConfiguration.getHost(),
+        ifNull(devServerRunConfiguration.getPort(), DEFAULT_SERVER_PORT));
+  }
+
+  private static boolean sameHostAndPort(RunConfiguration first, RunConfiguration second) {
+    return Objects.equals(first.getHost(), second.getHost())
+        && Objects.equals(first.getPort(), second.getPort());
   }
 
   /**
@@ -300,15 +390,11 @@ public class LocalAppEngineServerBehaviour extends ServerBehaviourDelegate
       Path javaHomePath, MessageConsoleStream outputStream, MessageConsoleStream errorStream)
       throws CoreException, CloudSdkNotFoundException {
 
-    BiPredicate<InetAddress, Integer> portInUse = (addr, port) -> {
-      Preconditions.checkArgument(port >= 0, "invalid port");
-      return SocketUtil.isPortInUse(addr, port);
-    };
-
-    checkPorts(devServerRunConfiguration, portInUse);
+    checkPorts(devServerRunConfiguration);
 
     setServerState(IServer.STATE_STARTING);
     setMode(mode);
+    setServerRestartState(false);
 
     // Create dev app server instance
     initializeDevServer(outputStream, errorStream, javaHomePath);
@@ -328,8 +414,12 @@ public class LocalAppEngineServerBehaviour extends ServerBehaviourDelegate
 
   private void initializeDevServer(MessageConsoleStream stdout, MessageConsoleStream stderr,
       Path javaHomePath) throws CloudSdkNotFoundException {
-    MessageConsoleWriterListener stdoutListener = new MessageConsoleWriterListener(stdout);
-    MessageConsoleWriterListener stderrListener = new MessageConsoleWriterListener(stderr);
+    // a heavily logging server would otherwise update the console document for every line
+    consoleOutput = new BufferedConsoleOutput();
+    BufferedConsoleOutput.StreamWriter stdoutListener = consoleOutput.newWriter(stdout);
+    BufferedConsoleOutput.StreamWriter stderrListener = consoleOutput.newWriter(stderr);
+    // a new listener for each launch, as it tracks the progress of the server's startup
+    serverOutputListener = new DevAppServerOutputListener();
 
     // dev_appserver output goes to stderr
     cloudSdk = new CloudSdk.Builder()
@@ -356,6 +446,12 @@ public class LocalAppEngineServerBehaviour extends ServerBehaviourDelegate
     @Override
     public void onExit(int exitCode) {
       logger.log(Level.FINE, "Process exit: code=" + exitCode); //$NON-NLS-1$
+      if (consoleOutput != null) {
+        consoleOutput.flush();
+        logger.log(Level.FINE, "Console output: coalesced=" //$NON-NLS-1$
+            + consoleOutput.getCoalescedCount()
+            + " dropped=" + consoleOutput.getDroppedCount()); //$NON-NLS-1$
+      }
       devServer = null;
       devProcess = null;
       setServerState(IServer.STATE_STOPPED);
@@ -375,44 +471,63 @@ public class LocalAppEngineServerBehaviour extends ServerBehaviourDelegate
 
   /**
    * An output listener that monitors for well-known key dev_appserver output and effects server
-   * state changes.
+   * state changes. Lines are first checked with cheap string comparisons, so that only likely
+   * matches are tried against a regular expression. Once the server has started, only errors are
+   * looked for.
    */
   public class DevAppServerOutputListener implements ProcessOutputLineListener {
     // devappserver1 patterns
-    private final Pattern moduleRunningPattern = Pattern.compile(
-        "INFO: Module instance (?<service>[\\w\\d\\-]+) is running at (?<url>http://.+:(?<port>[0-9]+)/)$");
+    private final Matcher moduleRunningMatcher = MODULE_RUNNING_PATTERN.matcher("");
 
     private final boolean shouldAutoDetectPort = serverPort <= 0;
 
+    /** Set once the server reports that it has started, after which no startup lines follow. */
+    private boolean started;
+
     @Override
     public void onOutputLine(String line) {
-      Matcher matcher;
+      if (!started && checkStartupLine(line)) {
+        return;
+      }
+      if (line.equals("Traceback (most recent call last):")) { //$NON-NLS-1$
+        // An error occurred
+        setServerState(IServer.STATE_STOPPED);
+      } else if (line.contains("Error: A fatal exception has occurred. Program will exit")) { //$NON-NLS-1$
+        // terminate the Python process
+        stop(false);
+      }
+    }
 
+    /**
+     * Returns true if {@code line} reports the progress of the server's startup.
+     */
+    private boolean checkStartupLine(String line) {
       if (line.endsWith("Dev App Server is now running")) { //$NON-NLS-1$
         // App Engine Standard (v1)
+        started = true;
         setServerState(IServer.STATE_STARTED);
+        return true;
       } else if (line.endsWith(".Server:main: Started")) { //$NON-NLS-1$
         // App Engine Flexible (v2)
+        started = true;
         setServerState(IServer.STATE_STARTED);
-      } else if (line.equals("Traceback (most recent call last):")) { //$NON-NLS-1$
-        // An error occurred
-        setServerState(IServer.STATE_STOPPED);
-      } else if (line.contains("Error: A fatal exception has occurred. Program will exit")) { //$NON-NLS-1$
-        // terminate the Python process
-        stop(false);
-      } else if ((matcher = moduleRunningPattern.matcher(line)).matches()) {
-        String serviceId = matcher.group("service");
-        String url = matcher.group("url");
+        return true;
+      } else if (line.startsWith(MODULE_RUNNING_PREFIX)
+          && moduleRunningMatcher.reset(line).matches()) {
+        String serviceId = moduleRunningMatcher.group("service");
+        String url = moduleRunningMatcher.group("url");
         moduleToUrlMap.put(serviceId, url);
 
         if (shouldAutoDetectPort) {
-          String portString = matcher.group("port");
+          String portString = moduleRunningMatcher.group("port");
           int port = parseInt(portString, 0);
           if (port > 0 && (serverPort <= 0 || "default".equals(serviceId))) { // $NON-NLS-1$
             serverPort = port;
           }
         }
+        return true;
       }
+      return false;
     }
   }
 
@@ -29,6 +29,8 @@ import java.util.Map;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -177,11 +179,51 @@ public class LocalAppEngineServerDelegate extends ServerDelegate implements IURL
   @VisibleForTesting
   Function<IModule, String> serviceIdFunction;
 
+  /** The service IDs of this server's modules; created when first needed. */
+  private ServiceRegistry serviceRegistry;
+
   private String getServiceId(IModule module) {
     if (serviceIdFunction != null) {
       return serviceIdFunction.apply(module);
     }
-    return ModuleUtils.getServiceId(module);
+    return getServiceRegistry().getServiceId(module);
+  }
+
+  /**
+   * Returns the module of this server with the given App Engine service ID, or {@code null} if
+   * there is none.
+   */
+  IModule findService(String serviceId) {
+    IModule[] modules = getServer().getModules();
+    if (serviceIdFunction != null) {
+      for (IModule module : modules) {
+        if (serviceId.equals(getServiceId(module))) {
+          return module;
+        }
+      }
+      return null;
+    }
+    return getServiceRegistry().findModule(modules, serviceId);
+  }
+
+  private synchronized ServiceRegistry getServiceRegistry() {
+    if (serviceRegistry == null) {
+      serviceRegistry = new ServiceRegistry();
+      ResourcesPlugin.getWorkspace().addResourceChangeListener(serviceRegistry,
+          IResourceChangeEvent.POST_CHANGE);
+    }
+    return serviceRegistry;
+  }
+
+  @Override
+  public void dispose() {
+    synchronized (this) {
+      if (serviceRegistry != null) {
+        ResourcesPlugin.getWorkspace().removeResourceChangeListener(serviceRegistry);
+        serviceRegistry = null;
+      }
+    }
+    super.dispose();
   }
 
   private static IStatus hasAppEngineStandardFacet(IModule module) {
@@ -254,6 +296,13 @@ public class LocalAppEngineServerDelegate extends ServerDelegate implements IURL
       for (int i = 0; i < remove.length; i++) {
         modules.remove(remove[i].getId());
       }
+      synchronized (this) {
+        if (serviceRegistry != null) {
+          for (IModule module : remove) {
+            serviceRegistry.remove(module);
+          }
+        }
+      }
       // schedule server stop as App Engine server cannot run without modules.
       if (modules.isEmpty()) {
         getServer().stop(true);
@@ -171,6 +171,29 @@ public class LocalAppEngineServerLaunchConfigurationDelegate
     if (!super.finalLaunchCheck(configuration, mode, progress.newChild(10))) {
       return false;
     }
+    IServer server = ServerUtil.getServer(configuration);
+    LocalAppEngineServerBehaviour serverBehaviour = server == null ? null
+        : (LocalAppEngineServerBehaviour) server.loadAdapter(
+            LocalAppEngineServerBehaviour.class, null);
+    boolean launching = false;
+    try {
+      launching = checkLaunch(configuration, mode, server, serverBehaviour, progress, monitor);
+      return launching;
+    } finally {
+      if (!launching && serverBehaviour != null) {
+        serverBehaviour.cancelPortCheck();
+      }
+    }
+  }
+
+  /**
+   * The checks of {@link #finalLaunchCheck} once the server is known.
+   *
+   * @return whether the launch should proceed
+   */
+  private boolean checkLaunch(ILaunchConfiguration configuration, String mode, IServer server,
+      LocalAppEngineServerBehaviour serverBehaviour, SubMonitor progress,
+      IProgressMonitor monitor) throws CoreException {
     IStatus status = validateCloudSdk(progress.newChild(20));
     if (!status.isOK()) {
       // Throwing a CoreException will result in the ILaunch hanging around in
@@ -178,6 +201,12 @@ public class LocalAppEngineServerLaunchConfigurationDelegate
       StatusManager.getManager().handle(status, StatusManager.SHOW | StatusManager.LOG);
       return false;
     }
+    if (serverBehaviour != null) {
+      // check the ports while waiting for the build
+      RunConfiguration runConfig =
+          generateServerRunConfiguration(configuration, server, mode, new ArrayList<>());
+      serverBehaviour.startPortCheck(runConfig);
+    }
 
     // If we're auto-publishing before launch, check if there may be stale
     // resources not yet published. See
@@ -193,7 +222,6 @@ public class LocalAppEngineServerLaunchConfigurationDelegate
       } catch (InterruptedException ex) {
         /* ignore */
       }
-      IServer server = ServerUtil.getServer(configuration);
       if (server.shouldPublish() || hasPendingChangesToPublish()) {
         IStatusHandler prompter = DebugPlugin.getDefault().getStatusHandler(promptStatus);
         if (prompter != null) {
@@ -428,6 +456,13 @@ public class LocalAppEngineServerLaunchConfigurationDelegate
     ConsoleColorProvider colorProvider = new ConsoleColorProvider();
     LocalAppEngineConsole console = MessageConsoleUtilities.findOrCreateConsole(
         configuration.getName(), new LocalAppEngineConsole.Factory(serverBehaviour));
+    if (store.getBoolean(IDebugPreferenceConstants.CONSOLE_LIMIT_CONSOLE_OUTPUT)) {
+      // keep no more history than the user allows the consoles of other launches
+      console.setWaterMarks(store.getInt(IDebugPreferenceConstants.CONSOLE_LOW_WATER_MARK),
+          store.getInt(IDebugPreferenceConstants.CONSOLE_HIGH_WATER_MARK));
+    } else {
+      console.setWaterMarks(-1, -1);
+    }
     console.clearConsole();
     console.activate();
     MessageConsoleStream outputStream = console.newMessageStream();
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.localserver.server;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.wst.server.core.model.IModuleFile;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.eclipse.wst.server.core.model.IModuleResourceDelta;
+
+/**
+ * Decides whether changes published to a running development server only take effect once the
+ * server restarts.
+ */
+class ModuleChanges {
+
+  private static final IPath WEB_INF = new Path("WEB-INF"); //$NON-NLS-1$
+  private static final IPath CLASSES = WEB_INF.append("classes"); //$NON-NLS-1$
+  private static final IPath LIB = WEB_INF.append("lib"); //$NON-NLS-1$
+  private static final String CLASS_EXTENSION = "class"; //$NON-NLS-1$
+
+  private ModuleChanges() {}
+
+  /**
+   * Returns true if any of the changes is to something the server only reads as it starts: the
+   * files directly in {@code WEB-INF}, such as the deployment descriptors, the libraries in
+   * {@code WEB-INF/lib}, and the resources in {@code WEB-INF/classes} other than classes, which
+   * the class loader may already have read. Removing classes also needs a restart. Changed classes
+   * do not, as a debugger replaces them in the running server, and nor do added classes, which are
+   * loaded when first used, or static files and JSPs, which are read as they are requested.
+   */
+  static boolean requireRestart(IModuleResourceDelta[] deltas) {
+    for (IModuleResourceDelta delta : deltas) {
+      if (requireRestart(delta)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean requireRestart(IModuleResourceDelta delta) {
+    IModuleResource resource = delta.getModuleResource();
+    IPath path = resource.getModuleRelativePath().append(resource.getName());
+    int kind = delta.getKind();
+    if (resource instanceof IModuleFile) {
+      if (kind == IModuleResourceDelta.NO_CHANGE) {
+        return false;
+      }
+      IPath folder = path.removeLastSegments(1);
+      if (CLASSES.isPrefixOf(folder)) {
+        return kind == IModuleResourceDelta.REMOVED
+            || !CLASS_EXTENSION.equals(path.getFileExtension());
+      }
+      return WEB_INF.equals(folder) || LIB.isPrefixOf(folder);
+    }
+    if (kind == IModuleResourceDelta.REMOVED
+        && (path.isPrefixOf(CLASSES) || CLASSES.isPrefixOf(path) || LIB.isPrefixOf(path))) {
+      return true;
+    }
+    return requireRestart(delta.getAffectedChildren());
+  }
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.localserver.server;
+
+import com.google.cloud.tools.eclipse.util.status.StatusUtil;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.wst.server.core.model.IModuleFile;
+import org.eclipse.wst.server.core.model.IModuleFolder;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.eclipse.wst.server.core.model.IModuleResourceDelta;
+
+/**
+ * Publishes the resources of a module to its deploy directory. A file is only written if the
+ * deployed copy differs from it, so that unchanged files keep their timestamps and do not make the
+ * development server reload the module. The files to write are copied concurrently.
+ */
+class ModulePublisher {
+
+  /** System property to override the number of files copied concurrently. */
+  static final String PARALLELISM_PROPERTY =
+      "com.google.cloud.tools.eclipse.appengine.localserver.publishThreads"; //$NON-NLS-1$
+
+  /**
+   * System property to deploy files as hard links to the originals where the file system allows,
+   * rather than as copies.
+   */
+  static final String HARD_LINKS_PROPERTY =
+      "com.google.cloud.tools.eclipse.appengine.localserver.publishHardLinks"; //$NON-NLS-1$
+
+  static final int DEFAULT_PARALLELISM = 4;
+
+  /** How often the calling thread checks its monitor for cancellation while waiting. */
+  private static final long POLL_INTERVAL_MS = 100;
+
+  private final Path deployDirectory;
+  private final int parallelism;
+  private final boolean useHardLinks;
+
+  // the files to copy, as pairs of source and target
+  private final List<Path[]> copies = new ArrayList<>();
+  private final List<IStatus> statuses = new ArrayList<>();
+  private final AtomicInteger copiedCount = new AtomicInteger();
+  private final AtomicInteger skippedCount = new AtomicInteger();
+  private int deletedCount;
+
+  ModulePublisher(Path deployDirectory) {
+    this(deployDirectory, Integer.getInteger(PARALLELISM_PROPERTY, DEFAULT_PARALLELISM),
+        Boolean.getBoolean(HARD_LINKS_PROPERTY));
+  }
+
+  @VisibleForTesting
+  ModulePublisher(Path deployDirectory, int parallelism, boolean useHardLinks) {
+    Preconditions.checkArgument(parallelism > 0, "parallelism must be positive");
+    this.deployDirectory = deployDirectory;
+    this.parallelism = parallelism;
+    this.useHardLinks = useHardLinks;
+  }
+
+  /**
+   * Publishes all of {@code resources}. Files in the deploy directory that are not among them are
+   * left alone.
+   *
+   * @return the problems encountered
+   */
+  IStatus[] publishFull(IModuleResource[] resources, IProgressMonitor monitor) {
+    for (IModuleResource resource : resources) {
+      addResource(resource);
+    }
+    return copyAll(monitor);
+  }
+
+  /**
+   * Publishes the resources added or changed by {@code deltas}, and removes those deleted.
+   *
+   * @return the problems encountered
+   */
+  IStatus[] publishDelta(IModuleResourceDelta[] deltas, IProgressMonitor monitor) {
+    for (IModuleResourceDelta delta : deltas) {
+      addDelta(delta);
+    }
+    return copyAll(monitor);
+  }
+
+  /** Returns the number of files written so far. */
+  int getCopiedCount() {
+    return copiedCount.get();
+  }
+
+  /** Returns the number of files left in place so far, as they were unchanged. */
+  int getSkippedCount() {
+    return skippedCount.get();
+  }
+
+  /** Returns the number of files and folders removed so far. */
+  int getDeletedCount() {
+    return deletedCount;
+  }
+
+  private void addResource(IModuleResource resource) {
+    Path target = getTarget(resource);
+    if (resource instanceof IModuleFolder) {
+      createDirectory(target);
+      for (IModuleResource member : ((IModuleFolder) resource).members()) {
+        addResource(member);
+      }
+    } else if (resource instanceof IModuleFile) {
+      addFile((IModuleFile) resource, target);
+    }
+  }
+
+  private void addDelta(IModuleResourceDelta delta) {
+    IModuleResource resource = delta.getModuleResource();
+    Path target = getTarget(resource);
+    int kind = delta.getKind();
+    if (kind == IModuleResourceDelta.REMOVED) {
+      delete(target);
+    } else if (resource instanceof IModuleFile) {
+      if (kind == IModuleResourceDelta.ADDED || kind == IModuleResourceDelta.CHANGED) {
+        addFile((IModuleFile) resource, target);
+      }
+    } else {
+      if (kind == IModuleResourceDelta.ADDED) {
+        createDirectory(target);
+      }
+      for (IModuleResourceDelta child : delta.getAffectedChildren()) {
+        addDelta(child);
+      }
+    }
+  }
+
+  private Path getTarget(IModuleResource resource) {
+    IPath relativePath = resource.getModuleRelativePath().append(resource.getName());
+    return deployDirectory.resolve(relativePath.toString());
+  }
+
+  private void addFile(IModuleFile moduleFile, Path target) {
+    Path source = getSource(moduleFile);
+    if (source == null) {
+      statuses.add(StatusUtil.error(this, "Could not find " + moduleFile.getName()));
+    } else {
+      copies.add(new Path[] {source, target});
+    }
+  }
+
+  private static Path getSource(IModuleFile moduleFile) {
+    File file = moduleFile.getAdapter(File.class);
+    if (file != null) {
+      return file.toPath();
+    }
+    IFile workspaceFile = moduleFile.getAdapter(IFile.class);
+    if (workspaceFile != null && workspaceFile.getLocation() != null) {
+      return workspaceFile.getLocation().toFile().toPath();
+    }
+    return null;
+  }
+
+  private void createDirectory(Path directory) {
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException ex) {
+      statuses.add(StatusUtil.error(this, "Could not create " + directory, ex));
+    }
+  }
+
+  private void delete(Path target) {
+    if (!Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+      return;
+    }
+    try {
+      if (Files.isDirectory(target, LinkOption.NOFOLLOW_LINKS)) {
+        MoreFiles.deleteRecursively(target, RecursiveDeleteOption.ALLOW_INSECURE);
+      } else {
+        Files.delete(target);
+      }
+      deletedCount++;
+    } catch (IOException ex) {
+      statuses.add(StatusUtil.error(this, "Could not delete " + target, ex));
+    }
+  }
+
+  private IStatus[] copyAll(IProgressMonitor monitor) {
+    SubMonitor progress = SubMonitor.convert(monitor, copies.size());
+    try {
+      if (parallelism == 1 || copies.size() <= 1) {
+        for (Path[] copy : copies) {
+          if (progress.isCanceled()) {
+            throw new OperationCanceledException();
+          }
+          copy(copy[0], copy[1]);
+          progress.worked(1);
+        }
+      } else {
+        copyConcurrently(progress);
+      }
+      synchronized (statuses) {
+        return statuses.toArray(new IStatus[0]);
+      }
+    } finally {
+      copies.clear();
+      synchronized (statuses) {
+        statuses.clear();
+      }
+    }
+  }
+
+  private void copyConcurrently(SubMonitor progress) {
+    int threads = Math.min(parallelism, copies.size());
+    ExecutorService executor = Executors.newFixedThreadPool(threads,
+        new ThreadFactoryBuilder()
+            .setNameFormat("module-publisher-%d") //$NON-NLS-1$
+            .setDaemon(true)
+            .build());
+    try {
+      CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+      for (Path[] copy : copies) {
+        completionService.submit(() -> copy(copy[0], copy[1]), null);
+      }
+      for (int completed = 0; completed < copies.size(); ) {
+        if (progress.isCanceled()) {
+          throw new OperationCanceledException();
+        }
+        if (completionService.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS) != null) {
+          progress.worked(1);
+          completed++;
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new OperationCanceledException();
+    } finally {
+      // abandons outstanding copies on cancellation
+      stopWorkers(executor);
+    }
+  }
+
+  /**
+   * Interrupts the outstanding copies and waits for the workers to stop, so that none still writes
+   * to the deploy directory or reports a problem once the publish has returned.
+   */
+  private static void stopWorkers(ExecutorService executor) {
+    executor.shutdownNow();
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          if (executor.awaitTermination(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+            return;
+          }
+        } catch (InterruptedException ex) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Writes {@code source} to {@code target}, unless they are already identical.
+   */
+  private void copy(Path source, Path target) {
+    try {
+      if (isIdentical(source, target)) {
+        skippedCount.incrementAndGet();
+        return;
+      }
+      Files.createDirectories(target.getParent());
+      if (!useHardLinks || !link(source, target)) {
+        Files.copy(source, target,
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+      }
+      copiedCount.incrementAndGet();
+    } catch (IOException ex) {
+      IStatus status = StatusUtil.error(this, "Could not publish " + source, ex);
+      synchronized (statuses) {
+        statuses.add(status);
+      }
+    }
+  }
+
+  private static boolean isIdentical(Path source, Path target) throws IOException {
+    if (!Files.isRegularFile(target)) {
+      return false;
+    }
+    if (Files.isSameFile(source, target)) {
+      return true; // a hard link
+    }
+    return Files.size(source) == Files.size(target)
+        && MoreFiles.asByteSource(source).contentEquals(MoreFiles.asByteSource(target));
+  }
+
+  /** Returns false if the file system cannot link {@code target} to {@code source}. */
+  private static boolean link(Path source, Path target) throws IOException {
+    Files.deleteIfExists(target);
+    try {
+      Files.createLink(target, source);
+      return true;
+    } catch (UnsupportedOperationException | FileSystemException ex) {
+      return false;
+    }
+  }
+}
@@ -67,10 +67,18 @@ public class ModuleUtils {
     return "default";
   }
 
-  /** Find the module with the given App Engine Service ID. */
+  /**
+   * Find the module with the given App Engine Service ID. The service IDs of an App Engine
+   * server's modules are only read once, until their {@code appengine-web.xml} changes.
+   */
   public static IModule findService(IServer server, String serviceId) {
     Preconditions.checkNotNull(server);
     Preconditions.checkNotNull(serviceId);
+    LocalAppEngineServerDelegate serverDelegate =
+        LocalAppEngineServerDelegate.getAppEngineServer(server);
+    if (serverDelegate != null) {
+      return serverDelegate.findService(serviceId);
+    }
     for (IModule module : server.getModules()) {
       if (serviceId.equals(getServiceId(module))) {
         return module;
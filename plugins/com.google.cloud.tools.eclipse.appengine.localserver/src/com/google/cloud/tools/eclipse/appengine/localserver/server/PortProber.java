@@ -0,0 +1,217 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.localserver.server;
+
+import com.google.cloud.tools.eclipse.appengine.localserver.Activator;
+import com.google.cloud.tools.eclipse.appengine.localserver.Messages;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.wst.server.core.util.SocketUtil;
+
+/**
+ * Checks in the background whether the ports a server will listen on are free. The ports are
+ * checked concurrently, and the addresses of host names are remembered for a few minutes so that
+ * relaunching a server does not wait on a slow resolver each time.
+ */
+class PortProber {
+
+  /** How long a looked-up address is reused. */
+  private static final long ADDRESS_EXPIRY_MINUTES = 5;
+
+  /** How long to wait for the result of a probe before giving up on it. */
+  @VisibleForTesting
+  static final long TIMEOUT_SECONDS = 10;
+
+  /** The number of host lookups and port checks run at once by default. */
+  private static final int DEFAULT_THREADS = 4;
+
+  private static final Executor defaultExecutor = newDefaultExecutor();
+
+  private final Executor executor;
+  private final Function<String, InetAddress> resolver;
+  private final BiPredicate<InetAddress, Integer> portInUse;
+
+  // java.util.Optional as the address of an unresolvable host is null
+  private final Cache<String, CompletableFuture<Optional<InetAddress>>> addresses =
+      CacheBuilder.newBuilder()
+          .expireAfterWrite(ADDRESS_EXPIRY_MINUTES, TimeUnit.MINUTES)
+          .build();
+
+  PortProber() {
+    this(defaultExecutor, LocalAppEngineServerLaunchConfigurationDelegate::resolveAddress,
+        (addr, port) -> {
+          Preconditions.checkArgument(port >= 0, "invalid port");
+          return SocketUtil.isPortInUse(addr, port);
+        });
+  }
+
+  private static Executor newDefaultExecutor() {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        DEFAULT_THREADS, DEFAULT_THREADS, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(),
+        new ThreadFactoryBuilder()
+            .setNameFormat("port-prober-%d") //$NON-NLS-1$
+            .setDaemon(true)
+            .build());
+    // no threads are kept while idle
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  @VisibleForTesting
+  PortProber(Executor executor, Function<String, InetAddress> resolver,
+      BiPredicate<InetAddress, Integer> portInUse) {
+    this.executor = executor;
+    this.resolver = resolver;
+    this.portInUse = portInUse;
+  }
+
+  /**
+   * Starts checking {@code ports} on {@code host}.
+   *
+   * @param host a host name or address, or {@code null} for the loopback address
+   */
+  CompletableFuture<Report> probe(String host, int... ports) {
+    return resolve(host).thenCompose(address -> {
+      List<CompletableFuture<IStatus>> checks = new ArrayList<>();
+      for (int port : ports) {
+        checks.add(CompletableFuture.supplyAsync(() -> check(address, port), executor));
+      }
+      return CompletableFuture.allOf(checks.toArray(new CompletableFuture<?>[0]))
+          .thenApply(ignored -> {
+            SortedMap<Integer, IStatus> conflicts = new TreeMap<>();
+            for (int i = 0; i < ports.length; i++) {
+              IStatus status = checks.get(i).join();
+              if (!status.isOK()) {
+                conflicts.put(ports[i], status);
+              }
+            }
+            return new Report(address, conflicts);
+          });
+    });
+  }
+
+  /**
+   * Waits for the result of {@link #probe}.
+   *
+   * @throws CoreException if the probe failed or did not finish in time
+   */
+  static Report await(Future<Report> probe) throws CoreException {
+    try {
+      return probe.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new OperationCanceledException();
+    } catch (ExecutionException | TimeoutException ex) {
+      throw new CoreException(new Status(IStatus.ERROR, Activator.PLUGIN_ID,
+          Messages.getString("PORT_CHECK_FAILED"), ex)); //$NON-NLS-1$
+    }
+  }
+
+  @VisibleForTesting
+  CompletableFuture<InetAddress> resolve(String host) {
+    if (host == null) {
+      return CompletableFuture.completedFuture(InetAddress.getLoopbackAddress());
+    }
+    try {
+      CompletableFuture<Optional<InetAddress>> address = addresses.get(host,
+          () -> CompletableFuture.supplyAsync(
+              () -> Optional.ofNullable(resolver.apply(host)), executor));
+      return address.thenApply(resolved -> {
+        if (!resolved.isPresent()) {
+          // look again next time
+          addresses.invalidate(host);
+        }
+        return resolved.orElse(null);
+      });
+    } catch (ExecutionException ex) {
+      // only thrown if creating the future fails
+      throw new IllegalStateException(ex.getCause());
+    }
+  }
+
+  private IStatus check(InetAddress address, int port) {
+    try {
+      LocalAppEngineServerBehaviour.checkPort(address, port, portInUse);
+      return Status.OK_STATUS;
+    } catch (CoreException ex) {
+      return ex.getStatus();
+    }
+  }
+
+  /** The outcome of a {@link PortProber#probe probe}. */
+  static class Report {
+    private final InetAddress address;
+    private final SortedMap<Integer, IStatus> conflicts;
+
+    private Report(InetAddress address, Map<Integer, IStatus> conflicts) {
+      this.address = address;
+      this.conflicts = ImmutableSortedMap.copyOf(conflicts);
+    }
+
+    /** Returns the address the ports were checked on; {@code null} means all addresses. */
+    InetAddress getAddress() {
+      return address;
+    }
+
+    /** Returns the problem with each port that cannot be used, by port. */
+    SortedMap<Integer, IStatus> getConflicts() {
+      return conflicts;
+    }
+
+    /** Returns a status summarizing the conflicts, or an OK status if there are none. */
+    IStatus toStatus() {
+      if (conflicts.isEmpty()) {
+        return Status.OK_STATUS;
+      } else if (conflicts.size() == 1) {
+        return conflicts.values().iterator().next();
+      }
+      MultiStatus status = new MultiStatus(Activator.PLUGIN_ID, 0,
+          Messages.getString("PORTS_IN_USE"), null); //$NON-NLS-1$
+      for (IStatus conflict : conflicts.values()) {
+        status.add(conflict);
+      }
+      return status;
+    }
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.localserver.server;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.wst.server.core.IModule;
+
+/**
+ * The App Engine service IDs of the modules of a server. A module's service ID is read from its
+ * {@code appengine-web.xml} when first needed and kept until a file of that name in the module's
+ * project is added, changed, or removed. Once a server's modules have all been read, a module can
+ * also be found from its service ID without reading or searching.
+ */
+class ServiceRegistry implements IResourceChangeListener {
+  private static final Logger logger = Logger.getLogger(ServiceRegistry.class.getName());
+
+  private static final String DESCRIPTOR_NAME = "appengine-web.xml"; //$NON-NLS-1$
+
+  private final Function<IModule, String> serviceIdReader;
+
+  // all guarded by this
+  private final Map<IModule, String> serviceIds = new HashMap<>();
+  private final Map<String, IModule> modulesByServiceId = new HashMap<>();
+  /** The modules that {@link #modulesByServiceId} was built from; null if it must be rebuilt. */
+  private IModule[] indexedModules;
+
+  ServiceRegistry() {
+    this(ModuleUtils::getServiceId);
+  }
+
+  @VisibleForTesting
+  ServiceRegistry(Function<IModule, String> serviceIdReader) {
+    this.serviceIdReader = serviceIdReader;
+  }
+
+  /**
+   * Returns the service ID of {@code module}.
+   *
+   * @see ModuleUtils#getServiceId(IModule)
+   */
+  synchronized String getServiceId(IModule module) {
+    return serviceIds.computeIfAbsent(module, serviceIdReader);
+  }
+
+  /**
+   * Returns the first of {@code modules} with the service ID, or {@code null} if there is none.
+   * The lookup is only rebuilt when {@code modules} or one of their service IDs has changed.
+   */
+  synchronized IModule findModule(IModule[] modules, String serviceId) {
+    if (!Arrays.equals(modules, indexedModules)) {
+      modulesByServiceId.clear();
+      for (IModule module : modules) {
+        modulesByServiceId.putIfAbsent(getServiceId(module), module);
+      }
+      indexedModules = modules.clone();
+    }
+    return modulesByServiceId.get(serviceId);
+  }
+
+  /** Forgets the service ID of {@code module}, such as when it is removed from the server. */
+  synchronized void remove(IModule module) {
+    if (serviceIds.remove(module) != null) {
+      indexedModules = null;
+    }
+  }
+
+  /** Forgets the service IDs of the modules of {@code project}. */
+  @VisibleForTesting
+  synchronized void invalidate(IProject project) {
+    if (serviceIds.keySet().removeIf(module -> project.equals(module.getProject()))) {
+      indexedModules = null;
+    }
+  }
+
+  private synchronized boolean hasModuleOf(IProject project) {
+    for (IModule module : serviceIds.keySet()) {
+      if (project.equals(module.getProject())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void resourceChanged(IResourceChangeEvent event) {
+    IResourceDelta delta = event.getDelta();
+    if (delta == null) {
+      return;
+    }
+    Set<IProject> changed = new HashSet<>();
+    try {
+      delta.accept(child -> {
+        IResource resource = child.getResource();
+        if (resource.getType() == IResource.PROJECT) {
+          // only look into projects whose modules have been read
+          IProject project = (IProject) resource;
+          if (!hasModuleOf(project)) {
+            return false;
+          }
+          if (child.getKind() == IResourceDelta.REMOVED
+              || (child.getFlags() & IResourceDelta.OPEN) != 0) {
+            changed.add(project);
+            return false;
+          }
+        }
+        if (resource.getType() == IResource.FILE && DESCRIPTOR_NAME.equals(resource.getName())) {
+          changed.add(resource.getProject());
+        }
+        return true;
+      });
+    } catch (CoreException ex) {
+      logger.log(Level.WARNING, "Unable to process resource changes", ex); //$NON-NLS-1$
+      synchronized (this) {
+        serviceIds.clear();
+        indexedModules = null;
+      }
+      return;
+    }
+    for (IProject project : changed) {
+      invalidate(project);
+    }
+  }
+}
@@ -18,68 +18,44 @@ package com.google.cloud.tools.eclipse.appengine.validation;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.IOException;
 import java.util.List;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import org.junit.Before;
 import org.junit.Test;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
 
 public class AppEngineWebXmlValidatorTest {
   
-  private Document document;
   private final AppEngineWebXmlValidator validator = new AppEngineWebXmlValidator();
   
   // TODO we need to move these into a standard location
   private static final String RUNTIME_MARKER_ID =
       "com.google.cloud.tools.eclipse.appengine.validation.runtimeMarker";
 
-  @Before
-  public void setUp() throws ParserConfigurationException {
-    DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
-    DocumentBuilder documentBuilder  = builderFactory.newDocumentBuilder();
-    
-    document = documentBuilder.newDocument();
-  }
-  
   @Test
-  public void testCheckForApplication() {
-    Element root =
-        document.createElementNS("http://appengine.google.com/ns/1.0", "appengine-web-app");
-    document.appendChild(root);
- 
-    Element application =
-        document.createElementNS("http://appengine.google.com/ns/1.0", "application");
-    application.setUserData("location", new DocumentLocation(0, 25), null);
-    root.appendChild(application);
-    Element runtime =
-        document.createElementNS("http://appengine.google.com/ns/1.0", "runtime");
-    root.appendChild(runtime);
+  public void testCheckForApplication() throws SAXException, IOException {
+    String xml = "<appengine-web-app xmlns='http://appengine.google.com/ns/1.0'>\n"
+        + "<application></application>\n"
+        + "<runtime>java8</runtime>\n"
+        + "</appengine-web-app>";
     
-    List<ElementProblem> problems = validator.checkForProblems(null, document);
+    List<ElementProblem> problems = ValidationTestUtils.checkForProblems(validator, null, xml);
     assertEquals(1, problems.size());
     String markerId = "com.google.cloud.tools.eclipse.appengine.validation.applicationMarker";
     ElementProblem problem = problems.get(0);
     assertEquals(markerId, problem.getMarkerId());
     
-    assertEquals(0, problem.getStart().getLineNumber());
-    assertEquals(12, problem.getStart().getColumnNumber());
+    assertEquals(2, problem.getStart().getLineNumber());
+    assertEquals(1, problem.getStart().getColumnNumber());
     assertEquals(27, problem.getLength());    
   }
 
   @Test
-  public void testCheckForNoRuntime() {
-    Element element =
-        document.createElementNS("http://appengine.google.com/ns/1.0", "appengine-web-app");
-    document.appendChild(element);
-    
-    DocumentLocation location = new DocumentLocation(2, 1);
-    document.getDocumentElement().setUserData("location", location, null);
+  public void testCheckForNoRuntime() throws SAXException, IOException {
+    String xml = "<?xml version='1.0' encoding='UTF-8'?>\n"
+        + "<appengine-web-app xmlns='http://appengine.google.com/ns/1.0'>\n"
+        + "</appengine-web-app>";
     
-    List<ElementProblem> problems = validator.checkForProblems(null , document);
+    List<ElementProblem> problems = ValidationTestUtils.checkForProblems(validator, null, xml);
     assertEquals(1, problems.size());
     ElementProblem problem = problems.get(0);
     assertEquals(RUNTIME_MARKER_ID, problem.getMarkerId());
@@ -90,36 +66,41 @@ public class AppEngineWebXmlValidatorTest {
   }  
   
   @Test
-  public void testCheckForJava7() {
-    Element runtime =
-        document.createElementNS("http://appengine.google.com/ns/1.0", "runtime");
-    runtime.setUserData("location", new DocumentLocation(0, 25), null);
-    document.appendChild(runtime);
-    Node java7 = document.createTextNode("java7");
-    runtime.appendChild(java7);
+  public void testCheckForJava7() throws SAXException, IOException {
+    String xml = "<appengine-web-app xmlns='http://appengine.google.com/ns/1.0'>\n"
+        + "<runtime>java7</runtime>\n"
+        + "</appengine-web-app>";
     
-    List<ElementProblem> problems = validator.checkForProblems(null, document);
+    List<ElementProblem> problems = ValidationTestUtils.checkForProblems(validator, null, xml);
     assertEquals(1, problems.size());
     ElementProblem problem = problems.get(0);
     assertEquals(RUNTIME_MARKER_ID, problem.getMarkerId());
     
-    assertEquals(0, problem.getStart().getLineNumber());
-    assertEquals(16, problem.getStart().getColumnNumber());
+    assertEquals(2, problem.getStart().getLineNumber());
+    assertEquals(1, problem.getStart().getColumnNumber());
     assertEquals(24, problem.getLength());    
   }  
 
   @Test
-  public void testCheckForJava6() {
-    Element element =
-        document.createElementNS("http://appengine.google.com/ns/1.0", "runtime");
-    element.setUserData("location", new DocumentLocation(3, 15), null);
-    document.appendChild(element);
-    Node java6 = document.createTextNode("java"); // sic; java, not java6
-    element.appendChild(java6);
+  public void testCheckForJava6() throws SAXException, IOException {
+    String xml = "<appengine-web-app xmlns='http://appengine.google.com/ns/1.0'>"
+        + "<runtime>java</runtime>" // sic; java, not java6
+        + "</appengine-web-app>";
     
-    List<ElementProblem> problems = validator.checkForProblems(null, document);
+    List<ElementProblem> problems = ValidationTestUtils.checkForProblems(validator, null, xml);
     assertEquals(1, problems.size());
     assertEquals(RUNTIME_MARKER_ID, problems.get(0).getMarkerId());
   }
+
+  @Test
+  public void testCheckForApplication_otherNamespace() throws SAXException, IOException {
+    String xml = "<appengine-web-app xmlns='http://appengine.google.com/ns/1.0'>"
+        + "<runtime>java8</runtime>"
+        + "<application xmlns='urn:other'></application>"
+        + "</appengine-web-app>";
+
+    List<ElementProblem> problems = ValidationTestUtils.checkForProblems(validator, null, xml);
+    assertEquals(0, problems.size());
+  }
   
 }
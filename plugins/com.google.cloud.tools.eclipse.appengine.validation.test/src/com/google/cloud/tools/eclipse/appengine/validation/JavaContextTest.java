@@ -1,44 +0,0 @@
-/*
- * Copyright 2017 Google Inc.
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package com.google.cloud.tools.eclipse.appengine.validation;
-
-import static org.junit.Assert.assertEquals;
-
-import java.util.Iterator;
-
-import org.junit.Test;
-
-public class JavaContextTest {
-    
-  private static final JavaContext CONTEXT = new JavaContext();
-  
-  @Test
-  public void testGetNamespaceUri() {
-    assertEquals("http://java.sun.com/xml/ns/javaee", CONTEXT.getNamespaceURI(""));
-  }
-  
-  @Test
-  public void testGetPrefix() {
-    assertEquals("prefix", CONTEXT.getPrefix("http://java.sun.com/xml/ns/javaee"));
-  }
-  
-  @Test
-  public void testGetPrefixes() {
-    Iterator<String> iterator = CONTEXT.getPrefixes("http://java.sun.com/xml/ns/javaee");
-    assertEquals("prefix", iterator.next());
-  }
-}
@@ -17,88 +17,77 @@
 package com.google.cloud.tools.eclipse.appengine.validation;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNotNull;
-import java.util.Stack;
 
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 import org.xml.sax.ext.Locator2;
 import org.xml.sax.helpers.AttributesImpl;
 
 public class PositionalXmlHandlerTest {
 
-  private PositionalXmlHandler handler = new PositionalXmlHandler();
-  
-  @Test
-  public void testStartDocument() {
-    handler.startDocument();
-    assertNotNull(handler.getDocument());
-  }
-  
-  @Test
-  public void testStartElement() throws SAXException {
-    handler.startDocument();
-    Locator2 locator = Mockito.mock(Locator2.class);
+  private final XmlValidationRules rules = new XmlValidationRules();
+  private final List<ScannedElement> matched = new ArrayList<>();
+  private final PositionalXmlHandler handler = new PositionalXmlHandler(rules);
+  private final Locator2 locator = Mockito.mock(Locator2.class);
+
+  @Before
+  public void setUp() {
     handler.setDocumentLocator(locator);
     Mockito.when(locator.getLineNumber()).thenReturn(1);
     Mockito.when(locator.getColumnNumber()).thenReturn(7);
-    handler.startElement("", "", "element", new AttributesImpl());
-    
-    assertEquals(1, handler.getElementStack().size());
+    Mockito.when(locator.getEncoding()).thenReturn("UTF-8");
+    rules.onElement(null, "element", (element, problems) -> matched.add(element));
+  }
+
+  @Test
+  public void testStartElement() throws SAXException {
+    handler.startElement("", "element", "element", new AttributesImpl());
     
-    Element element = handler.getElementStack().pop();
-    DocumentLocation location = (DocumentLocation) element.getUserData("location");
-    assertEquals(1, location.getLineNumber());
-    assertEquals(7, location.getColumnNumber());
+    assertEquals(1, handler.getOpenElementCount());
+    assertEquals(0, matched.size());
   }
   
   @Test
   public void testEndElement() throws SAXException {
-    handler.startDocument();
-    Locator2 locator = Mockito.mock(Locator2.class);
-    handler.setDocumentLocator(locator);
-    Mockito.when(locator.getLineNumber()).thenReturn(1);
-    Mockito.when(locator.getColumnNumber()).thenReturn(7);
-    handler.startElement("", "", "element", new AttributesImpl());
-    
-    assertEquals(1, handler.getElementStack().size());
+    handler.startElement("", "element", "element", new AttributesImpl());
+    handler.endElement("", "element", "element");
     
-    Mockito.when(locator.getEncoding()).thenReturn("UTF-8");
-    handler.endElement("", "", "element");
-    
-    assertEquals(0, handler.getElementStack().size());
-    
-    Document document = handler.getDocument();
-    Node node = document.getDocumentElement();
-    DocumentLocation location = (DocumentLocation) node.getUserData("location");
+    assertEquals(0, handler.getOpenElementCount());
+    assertEquals(1, matched.size());
+    DocumentLocation location = matched.get(0).getLocation();
     assertEquals(1, location.getLineNumber());
     assertEquals(7, location.getColumnNumber());
+    assertEquals("UTF-8", handler.getEncoding());
   }
   
   @Test
-  public void testAddText() throws SAXException {
+  public void testCharacters() throws SAXException {
     char[] test = "test".toCharArray();
+    char[] nested = "nested".toCharArray();
     
-    handler.startDocument();
-    Locator2 locator = Mockito.mock(Locator2.class);
-    handler.setDocumentLocator(locator);
-    Mockito.when(locator.getLineNumber()).thenReturn(1);
-    Mockito.when(locator.getColumnNumber()).thenReturn(7);
-    handler.startElement("", "", "element", new AttributesImpl());
-    
+    handler.startElement("", "element", "element", new AttributesImpl());
     handler.characters(test, 0, test.length);
-    handler.addText();
+    handler.startElement("", "child", "child", new AttributesImpl());
+    handler.characters(nested, 0, nested.length);
+    handler.endElement("", "child", "child");
+    handler.endElement("", "element", "element");
     
-    Stack<Element> elements = handler.getElementStack();
-    Node parent = elements.pop();
-    NodeList childNodes = parent.getChildNodes();
-    assertEquals(1, childNodes.getLength());
-    assertEquals("test", childNodes.item(0).getTextContent());
+    assertEquals(1, matched.size());
+    assertEquals("testnested", matched.get(0).getTextContent());
+  }
+
+  @Test
+  public void testAttributes() throws SAXException {
+    AttributesImpl attributes = new AttributesImpl();
+    attributes.addAttribute("", "version", "version", "CDATA", "2.5");
+    handler.startElement("", "element", "element", attributes);
+    handler.endElement("", "element", "element");
+
+    assertEquals("2.5", matched.get(0).getAttribute("version"));
   }
 
 }
@@ -21,30 +21,78 @@ import static org.junit.Assert.assertNull;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Test;
-import org.w3c.dom.Document;
-import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 public class PositionalXmlScannerTest {
 
+  private final XmlValidationRules rules = new XmlValidationRules();
+  private final List<ScannedElement> matched = new ArrayList<>();
+
   @Test
-  public void testParse() throws SAXException, IOException {
-    byte[] bytes = "<root><child></child></root>".getBytes(StandardCharsets.UTF_8);
-    Document document = PositionalXmlScanner.parse(bytes);
-    
-    NodeList rootNode = document.getElementsByTagName("root");
-    assertEquals(1, rootNode.getLength());
-    
-    NodeList childNode = document.getElementsByTagName("child");
-    assertEquals(1, childNode.getLength());
+  public void testScan() throws SAXException, IOException {
+    rules.onElement(null, "child", (element, problems) -> matched.add(element));
+    byte[] bytes = "<root>\n  <child>text</child></root>".getBytes(StandardCharsets.UTF_8);
+    String encoding = PositionalXmlScanner.scan(bytes, rules);
+
+    assertEquals("UTF-8", encoding);
+    assertEquals(1, matched.size());
+    assertEquals("text", matched.get(0).getTextContent());
+    assertEquals(2, matched.get(0).getLocation().getLineNumber());
+    assertEquals(10, matched.get(0).getLocation().getColumnNumber());
   }
-  
+
   @Test
-  public void testParse_emptyXml() throws SAXException, IOException {
+  public void testScan_emptyXml() throws SAXException, IOException {
     byte[] bytes = "".getBytes(StandardCharsets.UTF_8);
-    Document document = PositionalXmlScanner.parse(bytes);
-    assertNull(document);
+    assertNull(PositionalXmlScanner.scan(bytes, rules));
+  }
+
+  @Test
+  public void testScan_path() throws SAXException, IOException {
+    rules.onPath(null, "parent/child", (element, problems) -> matched.add(element));
+    byte[] bytes = "<root><child>1</child><parent><child>2</child></parent></root>"
+        .getBytes(StandardCharsets.UTF_8);
+    PositionalXmlScanner.scan(bytes, rules);
+
+    assertEquals(1, matched.size());
+    assertEquals("2", matched.get(0).getTextContent());
+  }
+
+  @Test
+  public void testScan_namespace() throws SAXException, IOException {
+    rules.onElement("urn:a", "child", (element, problems) -> matched.add(element));
+    byte[] bytes = "<root xmlns='urn:a' xmlns:b='urn:b'><child>1</child><b:child>2</b:child></root>"
+        .getBytes(StandardCharsets.UTF_8);
+    PositionalXmlScanner.scan(bytes, rules);
+
+    assertEquals(1, matched.size());
+    assertEquals("1", matched.get(0).getTextContent());
+  }
+
+  @Test
+  public void testScan_endDocument() throws SAXException, IOException {
+    rules.onEndDocument((element, problems) -> matched.add(element));
+    byte[] bytes = "<root version='2.5'><child>text</child></root>"
+        .getBytes(StandardCharsets.UTF_8);
+    PositionalXmlScanner.scan(bytes, rules);
+
+    assertEquals(1, matched.size());
+    assertEquals("root", matched.get(0).getLocalName());
+    assertEquals("2.5", matched.get(0).getAttribute("version"));
+  }
+
+  @Test
+  public void testScan_problems() throws SAXException, IOException {
+    ElementProblem problem = new ElementProblem("message", "markerId", 0, 0,
+        new DocumentLocation(1, 1), 0, null);
+    rules.onElement(null, "child", (element, problems) -> problems.add(problem));
+    byte[] bytes = "<root><child/><child/></root>".getBytes(StandardCharsets.UTF_8);
+    PositionalXmlScanner.scan(bytes, rules);
+
+    assertEquals(2, rules.getProblems().size());
   }
 
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.eclipse.test.util.project.TestProjectCreator;
+import com.google.cloud.tools.eclipse.util.io.ResourceUtils;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jst.common.project.facet.core.JavaFacet;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class TypeExistenceCacheTest {
+
+  @Rule public TestProjectCreator projectCreator = new TestProjectCreator().withFacets(
+      JavaFacet.VERSION_1_7);
+
+  private final TypeExistenceCache cache = new TypeExistenceCache();
+  private IJavaProject javaProject;
+
+  @Before
+  public void setUp() throws CoreException {
+    javaProject = projectCreator.getJavaProject();
+    createFile("src/main/java", "ServletClass.java", "public class ServletClass {}");
+    createFile("src/com/example", "ServletClassInPackage.java",
+        "package com.example; public class ServletClassInPackage {"
+        + " public static class Nested {} }");
+    createFile("src/com/example", "ServletInterface.java",
+        "package com.example; public interface ServletInterface {}");
+  }
+
+  private void createFile(String folder, String filename, String contents)
+      throws CoreException {
+    IProject project = javaProject.getProject();
+    ResourceUtils.createFolders(project.getFolder(folder), null);
+    IFile file = project.getFile(folder + "/" + filename);
+    file.create(new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8)), true, null);
+  }
+
+  @Test
+  public void testFindMissingTypes() {
+    Set<String> missing = cache.findMissingTypes(javaProject, Arrays.asList(
+        "ServletClass",
+        "com.example.ServletClassInPackage",
+        "ServletClassInPackage",
+        "com.example.ServletClassInPackage$Nested",
+        "com.example.ServletInterface",
+        "other.ServletClass",
+        "DoesNotExist",
+        ""));
+    assertEquals(4, missing.size());
+    assertTrue(missing.contains("com.example.ServletInterface"));
+    assertTrue(missing.contains("other.ServletClass"));
+    assertTrue(missing.contains("DoesNotExist"));
+    assertTrue(missing.contains(""));
+  }
+
+  @Test
+  public void testFindMissingTypes_cached() throws CoreException {
+    assertEquals(Collections.singleton("Added"),
+        cache.findMissingTypes(javaProject, Collections.singleton("Added")));
+    createFile("src", "Added.java", "public class Added {}");
+    // still cached, as this instance does not listen to changes
+    assertEquals(Collections.singleton("Added"),
+        cache.findMissingTypes(javaProject, Collections.singleton("Added")));
+
+    cache.invalidate();
+    assertTrue(cache.findMissingTypes(javaProject, Collections.singleton("Added")).isEmpty());
+  }
+
+  @Test
+  public void testDefault_invalidatedByJavaChanges() throws CoreException {
+    TypeExistenceCache defaultCache = TypeExistenceCache.getDefault();
+    assertFalse(defaultCache.findMissingTypes(javaProject, Collections.singleton("Later"))
+        .isEmpty());
+    createFile("src", "Later.java", "public class Later {}");
+    assertTrue(defaultCache.findMissingTypes(javaProject, Collections.singleton("Later"))
+        .isEmpty());
+  }
+
+  @Test
+  public void testAffectsTypes_contentChange() {
+    IJavaElementDelta compilationUnit = mockDelta(IJavaElement.COMPILATION_UNIT,
+        IJavaElementDelta.CHANGED, IJavaElementDelta.F_CONTENT);
+    IJavaElementDelta project = mockDelta(IJavaElement.JAVA_PROJECT,
+        IJavaElementDelta.CHANGED, IJavaElementDelta.F_CHILDREN, compilationUnit);
+    assertTrue(TypeExistenceCache.affectsTypes(project));
+  }
+
+  @Test
+  public void testAffectsTypes_added() {
+    IJavaElementDelta compilationUnit = mockDelta(IJavaElement.COMPILATION_UNIT,
+        IJavaElementDelta.ADDED, 0);
+    assertTrue(TypeExistenceCache.affectsTypes(compilationUnit));
+  }
+
+  @Test
+  public void testAffectsTypes_classpathChange() {
+    IJavaElementDelta project = mockDelta(IJavaElement.JAVA_PROJECT,
+        IJavaElementDelta.CHANGED, IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED);
+    assertTrue(TypeExistenceCache.affectsTypes(project));
+  }
+
+  @Test
+  public void testAffectsTypes_nonJavaResourceChange() {
+    // e.g. web.xml saved
+    IJavaElementDelta project = mockDelta(IJavaElement.JAVA_PROJECT,
+        IJavaElementDelta.CHANGED, IJavaElementDelta.F_CONTENT);
+    assertFalse(TypeExistenceCache.affectsTypes(project));
+  }
+
+  @Test
+  public void testElementChanged_invalidatesChangedProjectOnly() throws CoreException {
+    assertEquals(Collections.singleton("Added"),
+        cache.findMissingTypes(javaProject, Collections.singleton("Added")));
+    createFile("src", "Added.java", "public class Added {}");
+
+    IJavaProject otherProject = mock(IJavaProject.class);
+    when(otherProject.getElementName()).thenReturn("other");
+    cache.elementChanged(contentChangeIn(otherProject));
+    assertEquals(Collections.singleton("Added"),
+        cache.findMissingTypes(javaProject, Collections.singleton("Added")));
+
+    cache.elementChanged(contentChangeIn(javaProject));
+    assertTrue(cache.findMissingTypes(javaProject, Collections.singleton("Added")).isEmpty());
+  }
+
+  private static ElementChangedEvent contentChangeIn(IJavaProject project) {
+    IJavaElementDelta compilationUnit = mockDelta(IJavaElement.COMPILATION_UNIT,
+        IJavaElementDelta.CHANGED, IJavaElementDelta.F_CONTENT);
+    IJavaElementDelta projectDelta = mockDelta(IJavaElement.JAVA_PROJECT,
+        IJavaElementDelta.CHANGED, IJavaElementDelta.F_CHILDREN, compilationUnit);
+    when(projectDelta.getElement().getJavaProject()).thenReturn(project);
+    IJavaElementDelta model = mockDelta(IJavaElement.JAVA_MODEL,
+        IJavaElementDelta.CHANGED, IJavaElementDelta.F_CHILDREN, projectDelta);
+    return new ElementChangedEvent(model, ElementChangedEvent.POST_CHANGE);
+  }
+
+  private static IJavaElementDelta mockDelta(int elementType, int kind, int flags,
+      IJavaElementDelta... children) {
+    IJavaElement element = mock(IJavaElement.class);
+    when(element.getElementType()).thenReturn(elementType);
+    IJavaElementDelta delta = mock(IJavaElementDelta.class);
+    when(delta.getElement()).thenReturn(element);
+    when(delta.getKind()).thenReturn(kind);
+    when(delta.getFlags()).thenReturn(flags);
+    when(delta.getAffectedChildren()).thenReturn(children);
+    return delta;
+  }
+
+}
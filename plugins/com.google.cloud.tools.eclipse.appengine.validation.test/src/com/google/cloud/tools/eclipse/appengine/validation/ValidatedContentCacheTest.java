@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.cloud.tools.eclipse.test.util.project.TestProjectCreator;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class ValidatedContentCacheTest {
+
+  private static final String SOURCE_ID = "test.source";
+
+  @Rule public TestProjectCreator projectCreator = new TestProjectCreator();
+
+  private final ValidatedContentCache cache = new ValidatedContentCache(SOURCE_ID, "1.0.0");
+  private IFile file;
+
+  @Before
+  public void setUp() throws CoreException {
+    file = projectCreator.getProject().getFile("test.xml");
+    file.create(new ByteArrayInputStream(new byte[0]), true, null);
+  }
+
+  @Test
+  public void testHash() {
+    byte[] bytes = "<test/>".getBytes(StandardCharsets.UTF_8);
+    assertEquals(ValidatedContentCache.hash(bytes), ValidatedContentCache.hash(bytes.clone()));
+    assertNotEquals(ValidatedContentCache.hash(bytes),
+        ValidatedContentCache.hash("<test />".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void testIsValidated_notValidated() throws CoreException {
+    assertFalse(cache.isValidated(file, "hash"));
+  }
+
+  @Test
+  public void testIsValidated() throws CoreException {
+    cache.setValidated(file, "hash");
+    assertTrue(cache.isValidated(file, "hash"));
+    assertFalse(cache.isValidated(file, "other hash"));
+  }
+
+  @Test
+  public void testIsValidated_otherToolsVersion() throws CoreException {
+    cache.setValidated(file, "hash");
+    assertFalse(new ValidatedContentCache(SOURCE_ID, "2.0.0").isValidated(file, "hash"));
+  }
+
+  @Test
+  public void testIsValidated_otherSource() throws CoreException {
+    cache.setValidated(file, "hash");
+    assertFalse(new ValidatedContentCache("other.source", "1.0.0").isValidated(file, "hash"));
+  }
+
+  @Test
+  public void testIsValidated_markersDeleted() throws CoreException {
+    createMarker(SOURCE_ID);
+    cache.setValidated(file, "hash");
+    assertTrue(cache.isValidated(file, "hash"));
+
+    file.deleteMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO);
+    assertFalse(cache.isValidated(file, "hash"));
+  }
+
+  @Test
+  public void testIsValidated_otherMarkersIgnored() throws CoreException {
+    cache.setValidated(file, "hash");
+    createMarker("other.source");
+    createMarker(null);
+    assertTrue(cache.isValidated(file, "hash"));
+  }
+
+  @Test
+  public void testClear() throws CoreException {
+    cache.setValidated(file, "hash");
+    cache.clear(file);
+    assertFalse(cache.isValidated(file, "hash"));
+  }
+
+  private void createMarker(String sourceId) throws CoreException {
+    IMarker marker = file.createMarker(IMarker.PROBLEM);
+    marker.setAttribute(IMarker.SOURCE_ID, sourceId);
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.validation;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.cloud.tools.eclipse.test.util.ArrayAssertions;
+import com.google.cloud.tools.eclipse.test.util.project.TestProjectCreator;
+import com.google.cloud.tools.eclipse.util.status.StatusUtil;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class ValidationBatchTest {
+
+  @Rule public TestProjectCreator projectCreator = new TestProjectCreator();
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(2);
+  private IProject project;
+  private ValidationBatch batch;
+
+  @Before
+  public void setUp() {
+    project = projectCreator.getProject();
+    batch = new ValidationBatch(project, executor);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testFinish_updatesAllFiles() throws CoreException, InterruptedException {
+    IFile file1 = createFile("file1.xml");
+    IFile file2 = createFile("file2.xml");
+    batch.submit(() -> monitor -> file1.createMarker(IMarker.PROBLEM));
+    batch.submit(() -> monitor -> file2.createMarker(IMarker.PROBLEM));
+    batch.finish(new NullProgressMonitor());
+
+    ArrayAssertions.assertSize(1,
+        file1.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO));
+    ArrayAssertions.assertSize(1,
+        file2.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO));
+  }
+
+  @Test
+  public void testFinish_singleNotification() throws CoreException, InterruptedException {
+    IFile file1 = createFile("file1.xml");
+    IFile file2 = createFile("file2.xml");
+    batch.submit(() -> monitor -> file1.createMarker(IMarker.PROBLEM));
+    batch.submit(() -> monitor -> file2.createMarker(IMarker.PROBLEM));
+
+    int[] notifications = new int[1];
+    IResourceChangeListener listener = event -> {
+      if (hasMarkerDelta(event, file1) || hasMarkerDelta(event, file2)) {
+        notifications[0]++;
+      }
+    };
+    IWorkspace workspace = ResourcesPlugin.getWorkspace();
+    workspace.addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+    try {
+      batch.finish(new NullProgressMonitor());
+    } finally {
+      workspace.removeResourceChangeListener(listener);
+    }
+    assertEquals(1, notifications[0]);
+  }
+
+  @Test
+  public void testFinish_failedCheckSkipped() throws CoreException, InterruptedException {
+    IFile file = createFile("file.xml");
+    batch.submit(() -> {
+      throw new CoreException(StatusUtil.error(this, "check failed"));
+    });
+    batch.submit(() -> monitor -> file.createMarker(IMarker.PROBLEM));
+    batch.finish(new NullProgressMonitor());
+
+    ArrayAssertions.assertSize(1,
+        file.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO));
+  }
+
+  @Test
+  public void testFinish_canceled() throws CoreException, InterruptedException {
+    IFile file = createFile("file.xml");
+    CountDownLatch blocked = new CountDownLatch(1);
+    batch.submit(() -> {
+      blocked.await();
+      return monitor -> file.createMarker(IMarker.PROBLEM);
+    });
+    NullProgressMonitor monitor = new NullProgressMonitor();
+    monitor.setCanceled(true);
+    batch.finish(monitor);
+    blocked.countDown();
+
+    ArrayAssertions.assertIsEmpty(
+        file.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO));
+  }
+
+  private static boolean hasMarkerDelta(IResourceChangeEvent event, IFile file) {
+    IResourceDelta delta = event.getDelta().findMember(file.getFullPath());
+    return delta != null && (delta.getFlags() & IResourceDelta.MARKERS) != 0;
+  }
+
+  private IFile createFile(String name) throws CoreException {
+    IFile file = project.getFile(name);
+    file.create(new ByteArrayInputStream(new byte[0]), true, null);
+    return file;
+  }
+}
@@ -18,9 +18,12 @@ package com.google.cloud.tools.eclipse.appengine.validation;
 
 import com.google.cloud.tools.eclipse.ui.util.WorkbenchUtil;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.ITextOperationTarget;
 import org.eclipse.jface.text.ITextViewer;
@@ -30,6 +33,7 @@ import org.eclipse.ui.IWorkbenchPage;
 import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.ide.ResourceUtil;
+import org.xml.sax.SAXException;
 
 public class ValidationTestUtils {
 
@@ -57,4 +61,15 @@ public class ValidationTestUtils {
     return new ByteArrayInputStream(string.getBytes(StandardCharsets.UTF_8));
   }
 
-}
\ No newline at end of file
+  /**
+   * Scans {@code xml} with the rules of {@code helper} and returns the problems found.
+   */
+  static List<ElementProblem> checkForProblems(XmlValidationHelper helper, IResource resource,
+      String xml) throws SAXException, IOException {
+    XmlValidationRules rules = new XmlValidationRules();
+    helper.addRules(resource, rules);
+    PositionalXmlScanner.scan(xml.getBytes(StandardCharsets.UTF_8), rules);
+    return rules.getProblems();
+  }
+
+}
@@ -21,11 +21,9 @@ import static org.junit.Assert.assertEquals;
 import com.google.cloud.tools.eclipse.test.util.project.TestProjectCreator;
 import com.google.cloud.tools.eclipse.util.io.ResourceUtils;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import java.util.List;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
@@ -35,8 +33,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
 
 public class WebXmlValidatorPluginJspTest {
 
@@ -69,39 +66,21 @@ public class WebXmlValidatorPluginJspTest {
   }
 
   @Test
-  public void testValidateJsp() throws ParserConfigurationException {
+  public void testValidateJsp() throws SAXException, IOException {
     // For a typical dynamic web project:
     //     /           -> WebContent
     // WEB-INF         -> WebContent/WEB-INF
     // WEB-INF/classes -> src
 
-    DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
-    DocumentBuilder documentBuilder = builderFactory.newDocumentBuilder();
-    Document document = documentBuilder.newDocument();
-
-    Element root = document.createElement("web-app");
-    root.setUserData("location", new DocumentLocation(1, 1), null);
-    root.setUserData("version", "2.5", null);
-
-    Element element = document.createElement("jsp-file");
-    element.setTextContent("InWebContent.jsp");
-    element.setUserData("location", new DocumentLocation(2, 1), null);
-    root.appendChild(element);
-
-    Element element2 = document.createElement("jsp-file");
-    element2.setTextContent("InSrc.jsp");
-    element2.setUserData("location", new DocumentLocation(3, 1), null);
-    root.appendChild(element2);
-
-    Element element3 = document.createElement("jsp-file");
-    element3.setTextContent("DoesNotExist.jsp");
-    element3.setUserData("location", new DocumentLocation(4, 1), null);
-    root.appendChild(element3);
-    document.appendChild(root);
+    String xml = "<web-app version='2.5'>"
+        + "<jsp-file>InWebContent.jsp</jsp-file>"
+        + "<jsp-file>InSrc.jsp</jsp-file>"
+        + "<jsp-file>DoesNotExist.jsp</jsp-file>"
+        + "</web-app>";
 
     IFile webXml = project.getFile("WebContent/WEB-INF/web.xml");
     WebXmlValidator validator = new WebXmlValidator();
-    ArrayList<ElementProblem> problems = validator.checkForProblems(webXml, document);
+    List<ElementProblem> problems = ValidationTestUtils.checkForProblems(validator, webXml, xml);
 
     assertEquals(1, problems.size());
     String markerId = "com.google.cloud.tools.eclipse.appengine.validation.jspFileMarker";
@@ -23,11 +23,9 @@ import static org.junit.Assert.assertTrue;
 import com.google.cloud.tools.eclipse.test.util.project.TestProjectCreator;
 import com.google.cloud.tools.eclipse.util.io.ResourceUtils;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import java.util.List;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -37,8 +35,7 @@ import org.eclipse.jst.common.project.facet.core.JavaFacet;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
 
 public class WebXmlValidatorPluginTest {
 
@@ -67,23 +64,14 @@ public class WebXmlValidatorPluginTest {
   }
 
   @Test
-  public void testCheckForElements_servletClass() throws ParserConfigurationException {
-    DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
-    DocumentBuilder documentBuilder = builderFactory.newDocumentBuilder();
-    Document document = documentBuilder.newDocument();
-
-    Element root = document.createElement("web-app");
-    root.setUserData("version", "2.5", null);
-    root.setUserData("location", new DocumentLocation(1, 1), null);
-
-    Element element = document.createElement("servlet-class");
-    element.setTextContent("DoesNotExist");
-    element.setUserData("location", new DocumentLocation(2, 1), null);
-    root.appendChild(element);
-    document.appendChild(root);
+  public void testCheckForElements_servletClass() throws SAXException, IOException {
+    String xml = "<web-app version='2.5'>"
+        + "<servlet-class>DoesNotExist</servlet-class>"
+        + "</web-app>";
 
     WebXmlValidator validator = new WebXmlValidator();
-    ArrayList<ElementProblem> problems = validator.checkForProblems(resource, document);
+    List<ElementProblem> problems =
+        ValidationTestUtils.checkForProblems(validator, resource, xml);
 
     assertEquals(1, problems.size());
     String markerId = "com.google.cloud.tools.eclipse.appengine.validation.undefinedServletMarker";
@@ -91,23 +79,14 @@ public class WebXmlValidatorPluginTest {
   }
 
   @Test
-  public void testCheckForElements_servletClassExists() throws ParserConfigurationException {
-    DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
-    DocumentBuilder documentBuilder = builderFactory.newDocumentBuilder();
-    Document document = documentBuilder.newDocument();
-
-    Element root = document.createElement("web-app");
-    root.setUserData("version", "2.5", null);
-    root.setUserData("location", new DocumentLocation(1, 1), null);
-
-    Element element = document.createElement("servlet-class");
-    element.setTextContent("ServletClass");
-    element.setUserData("location", new DocumentLocation(2, 1), null);
-    root.appendChild(element);
-    document.appendChild(root);
+  public void testCheckForElements_servletClassExists() throws SAXException, IOException {
+    String xml = "<web-app version='2.5'>"
+        + "<servlet-class>ServletClass</servlet-class>"
+        + "</web-app>";
 
     WebXmlValidator validator = new WebXmlValidator();
-    ArrayList<ElementProblem> problems = validator.checkForProblems(resource, document);
+    List<ElementProblem> problems =
+        ValidationTestUtils.checkForProblems(validator, resource, xml);
 
     assertTrue(problems.isEmpty());
   }
@@ -22,11 +22,9 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.when;
 
 import com.google.cloud.tools.eclipse.test.util.project.TestProjectCreator;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.List;
 import java.util.function.BiPredicate;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.jst.common.project.facet.core.JavaFacet;
@@ -36,8 +34,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
 
 @RunWith(MockitoJUnitRunner.class)
 public class WebXmlValidatorTest {
@@ -64,17 +61,11 @@ public class WebXmlValidatorTest {
   }
 
   @Test
-  public void testValidateJavaServlet() throws ParserConfigurationException {
-    DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
-    DocumentBuilder documentBuilder = builderFactory.newDocumentBuilder();
-    Document document = documentBuilder.newDocument();
+  public void testValidateJavaServlet() throws SAXException, IOException {
+    String xml = "<web-app xmlns='http://xmlns.jcp.org/xml/ns/javaee' version='3.1'></web-app>";
 
-    Element element = document.createElementNS("http://xmlns.jcp.org/xml/ns/javaee", "web-app");
-    element.setUserData("version", "3.1", null);
-    element.setUserData("location", new DocumentLocation(1, 1), null);
-    document.appendChild(element);
-
-    ArrayList<ElementProblem> problems = validator.checkForProblems(resource, document);
+    List<ElementProblem> problems =
+        ValidationTestUtils.checkForProblems(validator, resource, xml);
 
     assertEquals(1, problems.size());
     String markerId = "com.google.cloud.tools.eclipse.appengine.validation.servletMarker";
@@ -82,53 +73,41 @@ public class WebXmlValidatorTest {
   }
 
   @Test
-  public void testCheckForElements_noElements() throws ParserConfigurationException {
-
-    DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
-    DocumentBuilder documentBuilder = builderFactory.newDocumentBuilder();
-    Document document = documentBuilder.newDocument();
+  public void testCheckForElements_noElements() throws SAXException, IOException {
+    String xml = "<web-app xmlns='http://java.sun.com/xml/ns/javaee' version='2.5'></web-app>";
 
-    Element element = document.createElementNS("http://java.sun.com/xml/ns/javaee", "web-app");
-    element.setUserData("version", "2.5", null);
-    element.setUserData("location", new DocumentLocation(1, 1), null);
-    document.appendChild(element);
-
-    ArrayList<ElementProblem> problems = validator.checkForProblems(resource, document);
+    List<ElementProblem> problems =
+        ValidationTestUtils.checkForProblems(validator, resource, xml);
     assertEquals(0, problems.size());
   }
 
   @Test
-  public void testValidateServletMapping() throws ParserConfigurationException {
-    DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
-    DocumentBuilder documentBuilder = builderFactory.newDocumentBuilder();
-    Document document = documentBuilder.newDocument();
-
-    Element webApp = document.createElementNS("http://java.sun.com/xml/ns/javaee", "web-app");
-    webApp.setUserData("version", "2.5", null);
-    webApp.setUserData("location", new DocumentLocation(1, 1), null);
-
-    Element servlet = document.createElementNS("http://java.sun.com/xml/ns/javaee", "servlet");
-    servlet.setUserData("location", new DocumentLocation(2, 1), null);
-
-    Element servletName = document.createElementNS("http://java.sun.com/xml/ns/javaee", "servlet-name");
-    servletName.setTextContent("ServletName");
-    servletName.setUserData("location", new DocumentLocation(3, 1), null);
-    servlet.appendChild(servletName);
-    webApp.appendChild(servlet);
-
-    Element servletMapping = document.createElementNS("http://java.sun.com/xml/ns/javaee", "servlet-mapping");
-    servletMapping.setUserData("location", new DocumentLocation(4, 1), null);
-
-    Element servletMappingName = document.createElementNS("http://java.sun.com/xml/ns/javaee", "servlet-name");
-    servletMappingName.setTextContent("NotServletName");
-    servletMappingName.setUserData("location", new DocumentLocation(2, 1), null);
-    servletMapping.appendChild(servletMappingName);
-    webApp.appendChild(servletMapping);
-
-    document.appendChild(webApp);
-
-    ArrayList<ElementProblem> problems = validator.checkForProblems(resource, document);
+  public void testValidateServletMapping() throws SAXException, IOException {
+    String xml = "<web-app xmlns='http://java.sun.com/xml/ns/javaee' version='2.5'>\n"
+        + "<servlet>\n"
+        + "<servlet-name>ServletName</servlet-name>\n"
+        + "</servlet>\n"
+        + "<servlet-mapping>\n"
+        + "<servlet-name>NotServletName</servlet-name>\n"
+        + "</servlet-mapping>\n"
+        + "</web-app>";
+
+    List<ElementProblem> problems =
+        ValidationTestUtils.checkForProblems(validator, resource, xml);
     assertEquals(1, problems.size());
+    assertEquals(6, problems.get(0).getStart().getLineNumber());
+  }
+
+  @Test
+  public void testValidateServletMapping_mappingBeforeServlet() throws SAXException, IOException {
+    String xml = "<web-app xmlns='http://java.sun.com/xml/ns/javaee' version='2.5'>"
+        + "<servlet-mapping><servlet-name>ServletName</servlet-name></servlet-mapping>"
+        + "<servlet><servlet-name>ServletName</servlet-name></servlet>"
+        + "</web-app>";
+
+    List<ElementProblem> problems =
+        ValidationTestUtils.checkForProblems(validator, resource, xml);
+    assertEquals(0, problems.size());
   }
 
 }
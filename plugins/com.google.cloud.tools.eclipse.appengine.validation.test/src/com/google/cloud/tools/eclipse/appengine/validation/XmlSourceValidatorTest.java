@@ -20,19 +20,24 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.cloud.tools.eclipse.appengine.facets.AppEngineStandardFacet;
 import com.google.cloud.tools.eclipse.test.util.project.TestProjectCreator;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jst.common.project.facet.core.JavaFacet;
 import org.eclipse.jst.j2ee.web.project.facet.WebFacetUtils;
@@ -119,7 +124,7 @@ public class XmlSourceValidatorTest {
     
     file.create(ValidationTestUtils.stringToInputStream(xml), 0, null);
     
-    validator.validate(reporter, file, xml.getBytes(StandardCharsets.UTF_8));
+    validator.validate(reporter, file, new Document(xml));
     List<IMessage> messages = reporter.getMessages();
     if (!messages.isEmpty()) {
       Assert.fail(messages.get(0).getText());
@@ -133,13 +138,48 @@ public class XmlSourceValidatorTest {
     String xml = "<web-app xmlns='http://xmlns.jcp.org/xml/ns/javaee' version='3.1'></web-app>";
     IFile file = Mockito.mock(IFile.class);
     when(file.getProject()).thenReturn(appEngineStandardProject.getProject());
-    validator.validate(reporter, file, xml.getBytes(StandardCharsets.UTF_8));
+    validator.validate(reporter, file, new Document(xml));
     List<IMessage> messages = reporter.getMessages();
     assertEquals(1, messages.size());
     assertEquals(
         "App Engine Standard does not support this servlet version", messages.get(0).getText());
   }
 
+  @Test
+  public void testValidate_offset() throws IOException {
+    XmlSourceValidator validator = new XmlSourceValidator();
+    validator.setHelper(new AppEngineWebXmlValidator());
+    String xml = "<appengine-web-app xmlns='http://appengine.google.com/ns/1.0'>\r\n"
+        + "  <application></application>\r\n"
+        + "  <runtime>java8</runtime>\r\n"
+        + "</appengine-web-app>";
+    validator.validate(reporter, null, new Document(xml));
+    List<IMessage> messages = reporter.getMessages();
+    assertEquals(1, messages.size());
+    assertEquals(xml.indexOf("<application>"), messages.get(0).getOffset());
+  }
+
+  @Test
+  public void testValidate_unchangedTextNotScannedAgain() throws IOException {
+    XmlSourceValidator validator = new XmlSourceValidator();
+    XmlValidationHelper helper = spy(new AppEngineWebXmlValidator());
+    validator.setHelper(helper);
+    IDocument document = new Document(APPLICATION_XML);
+
+    validator.validate(reporter, null, document);
+    IncrementalReporter secondReporter = new IncrementalReporter(null);
+    validator.validate(secondReporter, null, document);
+    verify(helper, times(1)).addRules(any(IResource.class), any(XmlValidationRules.class));
+    assertEquals(1, reporter.getMessages().size());
+    assertEquals(1, secondReporter.getMessages().size());
+
+    document.set(APPLICATION_XML.replace("<application></application>", ""));
+    IncrementalReporter thirdReporter = new IncrementalReporter(null);
+    validator.validate(thirdReporter, null, document);
+    verify(helper, times(2)).addRules(any(IResource.class), any(XmlValidationRules.class));
+    assertTrue(thirdReporter.getMessages().isEmpty());
+  }
+
   @Test
   public void getDocumentEncodingTest() throws CoreException {
     IProject project = dynamicWebProject.getProject();
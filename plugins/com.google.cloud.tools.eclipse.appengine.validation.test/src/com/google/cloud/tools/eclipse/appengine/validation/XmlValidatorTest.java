@@ -31,9 +31,11 @@ import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jst.common.project.facet.core.JavaFacet;
 import org.eclipse.jst.j2ee.web.project.facet.WebFacetUtils;
+import org.eclipse.wst.validation.ValidationEvent;
 import org.eclipse.wst.validation.ValidationFramework;
 import org.eclipse.wst.validation.Validator;
 import org.eclipse.wst.validation.internal.provisional.core.IMessage;
@@ -145,6 +147,84 @@ public class XmlValidatorTest {
     assertEquals("line 1", markers[0].getAttribute(IMarker.LOCATION));
   }
 
+  @Test
+  public void testValidate_unchangedContentSkipped() throws IOException, CoreException {
+    XmlValidator validator = new XmlValidator();
+    validator.setHelper(new AppEngineWebXmlValidator());
+
+    IFile file = createBogusProjectFile();
+    byte[] bytes = XML.getBytes(StandardCharsets.UTF_8);
+    validator.validate(file, bytes);
+    IMarker[] markers = file.findMarkers(APPLICATION_MARKER, true, IResource.DEPTH_ZERO);
+    ArrayAssertions.assertSize(1, markers);
+
+    validator.validate(file, bytes);
+    IMarker[] markersAfter = file.findMarkers(APPLICATION_MARKER, true, IResource.DEPTH_ZERO);
+    ArrayAssertions.assertSize(1, markersAfter);
+    assertEquals(markers[0].getId(), markersAfter[0].getId());
+  }
+
+  @Test
+  public void testValidate_unchangedContentWithDeletedMarkers() throws IOException, CoreException {
+    XmlValidator validator = new XmlValidator();
+    validator.setHelper(new AppEngineWebXmlValidator());
+
+    IFile file = createBogusProjectFile();
+    byte[] bytes = XML.getBytes(StandardCharsets.UTF_8);
+    validator.validate(file, bytes);
+    validator.deleteMarkers(file);
+
+    validator.validate(file, bytes);
+    IMarker[] markers = file.findMarkers(APPLICATION_MARKER, true, IResource.DEPTH_ZERO);
+    ArrayAssertions.assertSize(1, markers);
+  }
+
+  @Test
+  public void testValidate_keepsOtherValidatorsMarkers() throws IOException, CoreException {
+    XmlValidator validator = new XmlValidator();
+    validator.setHelper(new AppEngineWebXmlValidator());
+
+    IFile file = createBogusProjectFile();
+    IMarker xsdMarker = file.createMarker(IMarker.PROBLEM);
+    xsdMarker.setAttribute(IMarker.SOURCE_ID, "org.eclipse.wst.xml.core.xml");
+    validator.validate(file, XML.getBytes(StandardCharsets.UTF_8));
+    validator.validate(file, XML_NO_PROBLEM_ELEMENTS.getBytes(StandardCharsets.UTF_8));
+
+    IMarker[] markers = file.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO);
+    ArrayAssertions.assertSize(1, markers);
+    assertEquals(xsdMarker.getId(), markers[0].getId());
+  }
+
+  @Test
+  public void testValidate_changedContent() throws IOException, CoreException {
+    XmlValidator validator = new XmlValidator();
+    validator.setHelper(new AppEngineWebXmlValidator());
+
+    IFile file = createBogusProjectFile();
+    validator.validate(file, XML.getBytes(StandardCharsets.UTF_8));
+    validator.validate(file, XML_NO_PROBLEM_ELEMENTS.getBytes(StandardCharsets.UTF_8));
+
+    IMarker[] markers = file.findMarkers(APPLICATION_MARKER, true, IResource.DEPTH_ZERO);
+    ArrayAssertions.assertIsEmpty(markers);
+  }
+
+  @Test
+  public void testValidate_batchedByProject() throws CoreException {
+    XmlValidator validator = new XmlValidator();
+    validator.setHelper(new AppEngineWebXmlValidator());
+
+    IFile file = createBogusProjectFile();
+    file.setContents(new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8)),
+        true, false, null);
+    IProject project = file.getProject();
+    validator.validationStarting(project, null, null);
+    validator.validate(new ValidationEvent(file, IResourceDelta.CHANGED, null), null, null);
+    validator.validationFinishing(project, null, null);
+
+    IMarker[] markers = file.findMarkers(APPLICATION_MARKER, true, IResource.DEPTH_ZERO);
+    ArrayAssertions.assertSize(1, markers);
+  }
+
   @Test
   public void testXsdValidation_appengineWebXml() throws CoreException {
     String xml = "<appengine-web-app xmlns='http://appengine.google.com/ns/1.0'>"
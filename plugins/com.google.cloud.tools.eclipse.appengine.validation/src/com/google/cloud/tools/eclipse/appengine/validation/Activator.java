@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 Google Inc.
+ * Copyright 2020 Google LLC
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,21 +16,17 @@
 
 package com.google.cloud.tools.eclipse.appengine.validation;
 
-import org.eclipse.core.runtime.CoreException;
-import org.eclipse.jdt.core.search.SearchMatch;
-import org.eclipse.jdt.core.search.SearchRequestor;
+import org.osgi.framework.BundleActivator;
+import org.osgi.framework.BundleContext;
 
-class TypeSearchRequestor extends SearchRequestor {
+public class Activator implements BundleActivator {
 
-  private int matchCount;
-  
   @Override
-  public void acceptSearchMatch(SearchMatch match) throws CoreException {
-    matchCount++;
-  }
-  
-  boolean foundMatch() {
-    return matchCount > 0;
+  public void start(BundleContext context) {
   }
 
-}
\ No newline at end of file
+  @Override
+  public void stop(BundleContext context) {
+    TypeExistenceCache.disposeDefault();
+  }
+}
@@ -16,63 +16,43 @@
 
 package com.google.cloud.tools.eclipse.appengine.validation;
 
-import java.util.ArrayList;
 import java.util.List;
 import org.eclipse.core.resources.IResource;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 /**
  * Validator for appengine-web.xml
  */
 class AppEngineWebXmlValidator implements XmlValidationHelper {
 
+  private static final String APPENGINE_NAMESPACE = "http://appengine.google.com/ns/1.0";
+
   @Override
-  public List<ElementProblem> checkForProblems(IResource resource, Document document) {
-    ArrayList<ElementProblem> problems = new ArrayList<>();
+  public void addRules(IResource resource, XmlValidationRules rules) {
+    for (String elementName : AppEngineWebProblems.getDeprecatedElements()) {
+      rules.onElement(APPENGINE_NAMESPACE, elementName,
+          (element, problems) -> problems.add(makeDeprecatedProblem(element)));
+    }
 
-    List<ElementProblem> deprecatedProblems = checkDeprecatedElements(document);
-    problems.addAll(deprecatedProblems);
-    
-    List<ElementProblem> runtimeProblems = checkRuntime(document);
-    problems.addAll(runtimeProblems);
-    
-    return problems;
+    RuntimeCheck runtimeCheck = new RuntimeCheck();
+    rules.onElement(APPENGINE_NAMESPACE, "runtime", runtimeCheck::checkRuntime);
+    rules.onEndDocument(runtimeCheck::checkRuntimeDeclared);
   }
 
-  private static List<ElementProblem> checkDeprecatedElements(Document document) {   
-    ArrayList<ElementProblem> problems = new ArrayList<>();
-    ArrayList<String> deprecatedElements = AppEngineWebProblems.getDeprecatedElements();
-    for (String elementName : deprecatedElements) {
-      NodeList nodeList =
-          document.getElementsByTagNameNS("http://appengine.google.com/ns/1.0", elementName);
-      for (int i = 0; i < nodeList.getLength(); i++) {
-        Node node = nodeList.item(i);
-        DocumentLocation location = (DocumentLocation) node.getUserData("location");
-        
-        // extend over the start-tag and end-tag
-        int tagLength = node.getNodeName().length() + 2; // + 2 for < and >
-        location = expandLocation(location, tagLength);
-        int length = addTagLength(node, tagLength);
-        
-        AppEngineDeprecatedElement problem = new AppEngineDeprecatedElement(
-            elementName,
-            location,
-            length);
-        problems.add(problem);
-      }
-    }
-    return problems;
+  private static ElementProblem makeDeprecatedProblem(ScannedElement element) {
+    // extend over the start-tag and end-tag
+    int tagLength = element.getQualifiedName().length() + 2; // + 2 for < and >
+    DocumentLocation location = expandLocation(element.getLocation(), tagLength);
+    int length = addTagLength(element, tagLength);
+
+    return new AppEngineDeprecatedElement(element.getLocalName(), location, length);
   }
 
   // This is not a general purpose utility. 
   // It only works for simple elements with no attributes or child elements
   // and non insignificant white space in the start-tag. It does not work
   // for empty-element tags either.
-  private static int addTagLength(Node node, int tagLength) {
-    return node.getTextContent().length() + 2 * tagLength + 1; // +1 for the / in the end-tag
+  private static int addTagLength(ScannedElement element, int tagLength) {
+    return element.getTextContent().length() + 2 * tagLength + 1; // +1 for the / in the end-tag
   }
 
   private static DocumentLocation expandLocation(DocumentLocation location, int tagLength) {
@@ -87,12 +67,12 @@ class AppEngineWebXmlValidator implements XmlValidationHelper {
   /**
    * Check for obsolete runtimes.
    */
-  private static List<ElementProblem> checkRuntime(Document document) {
-    ArrayList<ElementProblem> problems = new ArrayList<>();
-    NodeList nodeList =
-        document.getElementsByTagNameNS("http://appengine.google.com/ns/1.0", "runtime");
-    for (int i = 0; i < nodeList.getLength(); i++) {
-      Element runtimeElement = (Element) nodeList.item(i);
+  private static class RuntimeCheck {
+
+    private boolean hasRuntime;
+
+    private void checkRuntime(ScannedElement runtimeElement, List<ElementProblem> problems) {
+      hasRuntime = true;
       String runtime = runtimeElement.getTextContent();
       if ("java".equals(runtime) || "java7".equals(runtime)) {
         ElementProblem problem = makeRuntimeProblem(runtimeElement, runtime);
@@ -100,24 +80,22 @@ class AppEngineWebXmlValidator implements XmlValidationHelper {
       }
       // else java8 and later are not a problem
     }
-    
-    if (nodeList.getLength() == 0) {
-      DocumentLocation location =
-          (DocumentLocation) document.getDocumentElement().getUserData("location");
-      DocumentLocation expandedLocation = new DocumentLocation(location.getLineNumber(), 0);
-      ElementProblem problem = new ObsoleteRuntime("Java 7 runtime no longer supported", 
-          expandedLocation, "<appengine-web-app ".length());
-      problems.add(problem);
+
+    private void checkRuntimeDeclared(ScannedElement root, List<ElementProblem> problems) {
+      if (!hasRuntime) {
+        DocumentLocation location = root.getLocation();
+        DocumentLocation expandedLocation = new DocumentLocation(location.getLineNumber(), 0);
+        ElementProblem problem = new ObsoleteRuntime("Java 7 runtime no longer supported", 
+            expandedLocation, "<appengine-web-app ".length());
+        problems.add(problem);
+      }
     }
-    
-    return problems;
   }
 
-  private static ElementProblem makeRuntimeProblem(Element runtimeElement, String runtime) {
-    DocumentLocation location = (DocumentLocation) runtimeElement.getUserData("location");
+  private static ElementProblem makeRuntimeProblem(ScannedElement runtimeElement, String runtime) {
     // extend over the start-tag and end-tag
-    int tagLength = runtimeElement.getNodeName().length() + 2;
-    DocumentLocation expandedLocation = expandLocation(location, tagLength);
+    int tagLength = runtimeElement.getQualifiedName().length() + 2;
+    DocumentLocation expandedLocation = expandLocation(runtimeElement.getLocation(), tagLength);
     int length = addTagLength(runtimeElement, tagLength);
     
     String runtimeName = "java".equals(runtime) ? "Java 6" : "Java 7";
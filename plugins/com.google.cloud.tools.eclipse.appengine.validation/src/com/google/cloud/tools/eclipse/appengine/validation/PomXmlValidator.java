@@ -16,48 +16,56 @@
 
 package com.google.cloud.tools.eclipse.appengine.validation;
 
-import com.google.cloud.tools.eclipse.util.MappedNamespaceContext;
 import java.util.ArrayList;
-import javax.xml.namespace.NamespaceContext;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
+import java.util.List;
 import org.eclipse.core.resources.IResource;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 public class PomXmlValidator implements XmlValidationHelper {
 
-  private static final XPathFactory FACTORY = XPathFactory.newInstance();
+  private static final String MAVEN_NAMESPACE = "http://maven.apache.org/POM/4.0.0";
 
   /**
-   * Selects all the <groupId> elements with value "com.google.appengine" whose <artifactId>
+   * Flags all the <groupId> elements with value "com.google.appengine" whose <artifactId>
    * sibling has the value "appengine-maven-plugin" or "gcloud-maven-plugin".
    */
   @Override
-  public ArrayList<ElementProblem> checkForProblems(IResource resource, Document document) {
-    ArrayList<ElementProblem> problems = new ArrayList<>();
-    try {
-      XPath xPath = FACTORY.newXPath();
-      NamespaceContext nsContext =
-          new MappedNamespaceContext("prefix", "http://maven.apache.org/POM/4.0.0");
-      xPath.setNamespaceContext(nsContext);
-      String selectGroupId = "//prefix:plugin/prefix:groupId[.='com.google.appengine']"
-          + "[../prefix:artifactId[text()='appengine-maven-plugin'"
-          + " or text()='gcloud-maven-plugin']]";
-      NodeList groupIdElements =
-          (NodeList) xPath.compile(selectGroupId).evaluate(document, XPathConstants.NODESET);
-      for (int i = 0; i < groupIdElements.getLength(); i++) {
-        Node child = groupIdElements.item(i);
-        DocumentLocation location = (DocumentLocation) child.getUserData("location");
-        ElementProblem element = new MavenPluginElement(location, child.getTextContent().length());
-        problems.add(element);
+  public void addRules(IResource resource, XmlValidationRules rules) {
+    PluginCheck check = new PluginCheck();
+    rules.onPath(MAVEN_NAMESPACE, "plugin/groupId", check::addGroupId);
+    rules.onPath(MAVEN_NAMESPACE, "plugin/artifactId", check::addArtifactId);
+    // fires after the rules for the plugin's children
+    rules.onPath(MAVEN_NAMESPACE, "plugin", check::checkPlugin);
+  }
+
+  /** Collects the children of the current <plugin> element. */
+  private static class PluginCheck {
+
+    private final List<ScannedElement> groupIds = new ArrayList<>();
+    private boolean isAppEnginePlugin;
+
+    private void addGroupId(ScannedElement groupId, List<ElementProblem> problems) {
+      if ("com.google.appengine".equals(groupId.getTextContent())) {
+        groupIds.add(groupId);
+      }
+    }
+
+    private void addArtifactId(ScannedElement artifactId, List<ElementProblem> problems) {
+      String text = artifactId.getTextContent();
+      if ("appengine-maven-plugin".equals(text) || "gcloud-maven-plugin".equals(text)) {
+        isAppEnginePlugin = true;
+      }
+    }
+
+    private void checkPlugin(ScannedElement plugin, List<ElementProblem> problems) {
+      if (isAppEnginePlugin) {
+        for (ScannedElement groupId : groupIds) {
+          ElementProblem element = new MavenPluginElement(
+              groupId.getLocation(), groupId.getTextContent().length());
+          problems.add(element);
+        }
       }
-    } catch (XPathExpressionException ex) {
-      throw new RuntimeException("Invalid XPath expression");
+      groupIds.clear();
+      isAppEnginePlugin = false;
     }
-    return problems;
   }
-}
\ No newline at end of file
+}
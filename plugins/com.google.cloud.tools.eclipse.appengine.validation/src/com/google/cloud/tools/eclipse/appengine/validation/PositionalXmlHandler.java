@@ -16,117 +16,151 @@
 
 package com.google.cloud.tools.eclipse.appengine.validation;
 
-import org.xml.sax.helpers.DefaultHandler;
-
+import com.google.cloud.tools.eclipse.appengine.validation.XmlValidationRules.ElementRule;
 import com.google.common.annotations.VisibleForTesting;
-
-import java.util.Stack;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.xml.sax.Attributes;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 import org.xml.sax.ext.Locator2;
+import org.xml.sax.helpers.DefaultHandler;
 
 /**
- * Builds a DOM tree that maintains element line and column numbers.
+ * Applies {@link XmlValidationRules} to the elements of a document as they are read, recording
+ * element line and column numbers. Only the open elements are kept rather than a DOM tree, and
+ * text is only collected for elements that a rule has matched.
  */
 class PositionalXmlHandler extends DefaultHandler {
-  
-    private Document document;
-    private StringBuilder textBuffer = new StringBuilder();
-    private Locator2 locator;
-    private final Stack<Element> elementStack = new Stack<>();
-
-    @Override
-    public void startDocument() {
-      try {
-        DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder documentBuilder = builderFactory.newDocumentBuilder();
-        document = documentBuilder.newDocument();  
-      } catch (ParserConfigurationException ex) {
-        throw new RuntimeException("Cannot create document", ex);
-      }
+
+  /** An element whose end-tag has not been read yet. */
+  private static class OpenElement {
+    private final String namespaceUri;
+    private final String localName;
+    private final String qualifiedName;
+    private final Map<String, String> attributes;
+    private final DocumentLocation location;
+    private final List<ElementRule> rules;
+    private final StringBuilder text;
+
+    private OpenElement(String namespaceUri, String localName, String qualifiedName,
+        Map<String, String> attributes, DocumentLocation location, List<ElementRule> rules) {
+      this.namespaceUri = namespaceUri;
+      this.localName = localName;
+      this.qualifiedName = qualifiedName;
+      this.attributes = attributes;
+      this.location = location;
+      this.rules = rules;
+      this.text = rules.isEmpty() ? null : new StringBuilder();
     }
-    
-    @Override
-    public void setDocumentLocator(Locator locator) {
-      this.locator = (Locator2) locator;
+
+    private ScannedElement toScannedElement() {
+      String textContent = text == null ? "" : text.toString();
+      return new ScannedElement(
+          namespaceUri, localName, qualifiedName, attributes, location, textContent);
     }
-      
-    @Override
-    public void startElement(String uri, String localName, String qName, Attributes attributes)
-        throws SAXException {               
-      addText();
-      Element element = document.createElementNS(uri, qName);
+  }
+
+  private final XmlValidationRules rules;
+  private Locator2 locator;
+  private String encoding;
+  private final Deque<OpenElement> elementStack = new ArrayDeque<>();
+  // the path to the current element, as consumed by XmlValidationRules
+  private final List<String> namespaceUris = new ArrayList<>();
+  private final List<String> localNames = new ArrayList<>();
+  private int collectingText;
+
+  PositionalXmlHandler(XmlValidationRules rules) {
+    this.rules = rules;
+  }
+
+  @Override
+  public void setDocumentLocator(Locator locator) {
+    this.locator = (Locator2) locator;
+  }
+
+  @Override
+  public void startElement(String uri, String localName, String qName, Attributes attributes)
+      throws SAXException {
+    namespaceUris.add(uri);
+    localNames.add(localName);
+    List<ElementRule> matched = rules.getRules(namespaceUris, localNames);
+    Map<String, String> attributeValues = Collections.emptyMap();
+    // the root element's attributes are kept for the end-of-document rules
+    if (!matched.isEmpty() || elementStack.isEmpty()) {
+      attributeValues = new HashMap<>();
       for (int i = 0; i < attributes.getLength(); i++) {
-        element.setUserData(attributes.getQName(i), attributes.getValue(i), null);
+        attributeValues.put(attributes.getQName(i), attributes.getValue(i));
       }
-      DocumentLocation location = new DocumentLocation(
-          locator.getLineNumber(), locator.getColumnNumber());
-      element.setUserData("location", location, null);
-      elementStack.push(element);
     }
-      
-    @Override
-    public void endElement(String uri, String localName, String qName){
-      addText();
-      Element closedElement = elementStack.pop();
-      if (elementStack.isEmpty()) { // If this is the root element
-        closedElement.setUserData("encoding", locator.getEncoding(), null);
-        document.appendChild(closedElement);
-      } else {
-        Element parentElement = elementStack.peek();
-        parentElement.appendChild(closedElement);                   
-      }
+    DocumentLocation location = new DocumentLocation(
+        locator.getLineNumber(), locator.getColumnNumber());
+    OpenElement element =
+        new OpenElement(uri, localName, qName, attributeValues, location, matched);
+    if (element.text != null) {
+      collectingText++;
     }
-      
-    @Override
-    public void characters (char ch[], int start, int length) throws SAXException {
-      textBuffer.append(ch, start, length);
-    }
-    
-    /**
-     *  Returns the text inside the current tag
-     */
-    @VisibleForTesting
-    void addText() {
-      if (textBuffer.length() > 0) {
-        Element element = elementStack.peek();
-        Node textNode = document.createTextNode(textBuffer.toString());
-        element.appendChild(textNode);
-        textBuffer = new StringBuilder();
-      }
-    }
-    
-    Document getDocument() {
-      return document;
-    }
-    
-    @VisibleForTesting
-    Stack<Element> getElementStack() {
-      return elementStack;
-    }
-    
-    @Override
-    public void error(SAXParseException ex) throws SAXException {
-      //nests ex to conserve exception line number
-      throw new SAXException(ex.getMessage(), ex);
+    elementStack.push(element);
+  }
+
+  @Override
+  public void endElement(String uri, String localName, String qName) {
+    OpenElement closedElement = elementStack.pop();
+    namespaceUris.remove(namespaceUris.size() - 1);
+    localNames.remove(localNames.size() - 1);
+    ScannedElement scanned = closedElement.toScannedElement();
+    if (closedElement.text != null) {
+      collectingText--;
+      rules.apply(closedElement.rules, scanned);
     }
-    
-    @Override
-    public void fatalError(SAXParseException ex) throws SAXException {
-      throw new SAXException(ex.getMessage(), ex);
+    if (elementStack.isEmpty()) { // If this is the root element
+      encoding = locator.getEncoding();
+      rules.endDocument(scanned);
     }
+  }
 
-    @Override
-    public void warning(SAXParseException exception) throws SAXException { //do nothing
+  @Override
+  public void characters(char[] ch, int start, int length) throws SAXException {
+    if (collectingText > 0) {
+      for (OpenElement element : elementStack) {
+        if (element.text != null) {
+          element.text.append(ch, start, length);
+        }
+      }
     }
-    
+  }
+
+  /**
+   * Returns the encoding of the document, once it has been read.
+   */
+  String getEncoding() {
+    return encoding;
+  }
+
+  @VisibleForTesting
+  int getOpenElementCount() {
+    return elementStack.size();
+  }
+
+  @Override
+  public void error(SAXParseException ex) throws SAXException {
+    //nests ex to conserve exception line number
+    throw new SAXException(ex.getMessage(), ex);
+  }
+
+  @Override
+  public void fatalError(SAXParseException ex) throws SAXException {
+    throw new SAXException(ex.getMessage(), ex);
+  }
+
+  @Override
+  public void warning(SAXParseException exception) throws SAXException { //do nothing
+  }
+
 }
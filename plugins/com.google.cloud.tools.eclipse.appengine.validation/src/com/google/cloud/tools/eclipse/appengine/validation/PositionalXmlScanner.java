@@ -20,25 +20,45 @@ import org.xml.sax.helpers.XMLReaderFactory;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import org.w3c.dom.Document;
+import java.io.StringReader;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 
 class PositionalXmlScanner {
-  
-  static Document parse(byte[] bytes) throws SAXException, IOException {
+
+  /**
+   * Reads the document once, applying {@code rules} to its elements; the problems found are
+   * collected by {@code rules}.
+   *
+   * @return the encoding of the document, or null if it is empty
+   */
+  static String scan(byte[] bytes, XmlValidationRules rules) throws SAXException, IOException {
     if (bytes.length == 0) { //file is empty
       return null;
     }
     ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-    InputSource is = new InputSource(bais);
-    XMLReader reader = XMLReaderFactory.createXMLReader();     
-    PositionalXmlHandler handler = new PositionalXmlHandler();
+    return scan(new InputSource(bais), rules).getEncoding();
+  }
+
+  /**
+   * Reads an already decoded document once, applying {@code rules} to its elements; the problems
+   * found are collected by {@code rules}.
+   */
+  static void scan(String text, XmlValidationRules rules) throws SAXException, IOException {
+    if (!text.isEmpty()) {
+      scan(new InputSource(new StringReader(text)), rules);
+    }
+  }
+
+  private static PositionalXmlHandler scan(InputSource is, XmlValidationRules rules)
+      throws SAXException, IOException {
+    XMLReader reader = XMLReaderFactory.createXMLReader();
+    PositionalXmlHandler handler = new PositionalXmlHandler(rules);
     reader.setContentHandler(handler);
     reader.setErrorHandler(handler);
     reader.parse(is);
-    return handler.getDocument();
+    return handler;
   }
-    
+
 }
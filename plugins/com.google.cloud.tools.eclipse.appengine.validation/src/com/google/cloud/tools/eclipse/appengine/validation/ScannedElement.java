@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.validation;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+
+/**
+ * An element seen by the {@link PositionalXmlScanner} and handed to the
+ * {@link XmlValidationRules} it matched.
+ */
+class ScannedElement {
+
+  private final String namespaceUri;
+  private final String localName;
+  private final String qualifiedName;
+  private final ImmutableMap<String, String> attributes;
+  private final DocumentLocation location;
+  private final String textContent;
+
+  ScannedElement(String namespaceUri, String localName, String qualifiedName,
+      Map<String, String> attributes, DocumentLocation location, String textContent) {
+    this.namespaceUri = namespaceUri;
+    this.localName = localName;
+    this.qualifiedName = qualifiedName;
+    this.attributes = ImmutableMap.copyOf(attributes);
+    this.location = location;
+    this.textContent = textContent;
+  }
+
+  /** Returns the namespace URI, or the empty string if the element has no namespace. */
+  String getNamespaceUri() {
+    return namespaceUri;
+  }
+
+  String getLocalName() {
+    return localName;
+  }
+
+  /** Returns the name as written in the document, including any prefix. */
+  String getQualifiedName() {
+    return qualifiedName;
+  }
+
+  /** Returns the value of the attribute with the given qualified name, or null if unset. */
+  String getAttribute(String qualifiedName) {
+    return attributes.get(qualifiedName);
+  }
+
+  /** Returns the location of the end of the start-tag. */
+  DocumentLocation getLocation() {
+    return location;
+  }
+
+  /**
+   * Returns the text of this element and its descendants. Only collected for elements matched by
+   * element or path rules; empty for the root element handed to end-of-document rules.
+   */
+  String getTextContent() {
+    return textContent;
+  }
+
+}
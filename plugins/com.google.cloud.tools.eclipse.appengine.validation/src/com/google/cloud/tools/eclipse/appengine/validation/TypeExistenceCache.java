@@ -0,0 +1,301 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.validation;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.Flags;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.TypeNameRequestor;
+
+/**
+ * Remembers which classes are visible to each Java project, so that validating a web.xml does not
+ * search for its servlet classes on every pass. Names not yet known are looked up together in a
+ * single search. A project's entries are forgotten when a Java element delta could have added or
+ * removed a type in it or in a project it requires.
+ */
+class TypeExistenceCache implements IElementChangedListener {
+
+  private static final Logger logger = Logger.getLogger(TypeExistenceCache.class.getName());
+
+  private static TypeExistenceCache instance;
+
+  /** Flags of a project or root whose change can make types appear or disappear. */
+  private static final int CLASSPATH_FLAGS = IJavaElementDelta.F_CLASSPATH_CHANGED
+      | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED
+      | IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED
+      | IJavaElementDelta.F_ADDED_TO_CLASSPATH
+      | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH
+      | IJavaElementDelta.F_OPENED
+      | IJavaElementDelta.F_CLOSED;
+
+  private final Map<IJavaProject, Map<String, Boolean>> projects = new ConcurrentHashMap<>();
+
+  /** Incremented on every invalidation, so that searches overtaken by one are not cached. */
+  private final AtomicInteger generation = new AtomicInteger();
+
+  /**
+   * Returns the shared cache, which listens to Java element changes from its first use.
+   */
+  static synchronized TypeExistenceCache getDefault() {
+    if (instance == null) {
+      instance = new TypeExistenceCache();
+      JavaCore.addElementChangedListener(instance, ElementChangedEvent.POST_CHANGE);
+    }
+    return instance;
+  }
+
+  /** Stops the shared cache, if any, from listening to Java element changes. */
+  static synchronized void disposeDefault() {
+    if (instance != null) {
+      JavaCore.removeElementChangedListener(instance);
+      instance = null;
+    }
+  }
+
+  @VisibleForTesting
+  TypeExistenceCache() {
+  }
+
+  /**
+   * Returns those of {@code typeNames} that are not classes visible to {@code project}. A name
+   * may be fully qualified or, to match a class in any package, simple.
+   */
+  Set<String> findMissingTypes(IJavaProject project, Collection<String> typeNames) {
+    Map<String, Boolean> known = projects.computeIfAbsent(project,
+        key -> new ConcurrentHashMap<>());
+    Map<String, Boolean> results = new HashMap<>();
+    Set<String> unknown = new HashSet<>();
+    for (String typeName : typeNames) {
+      if (Strings.isNullOrEmpty(typeName)) {
+        results.put(typeName, false);
+      } else {
+        Boolean exists = known.get(typeName);
+        if (exists == null) {
+          unknown.add(typeName);
+        } else {
+          results.put(typeName, exists);
+        }
+      }
+    }
+
+    if (!unknown.isEmpty()) {
+      int searchGeneration = generation.get();
+      IJavaSearchScope scope = SearchEngine.createJavaSearchScope(new IJavaElement[] {project});
+      try {
+        Set<String> found = findTypes(scope, unknown);
+        for (String typeName : unknown) {
+          results.put(typeName, found.contains(typeName));
+        }
+        if (searchGeneration == generation.get()) {
+          for (String typeName : unknown) {
+            known.put(typeName, found.contains(typeName));
+          }
+        }
+      } catch (CoreException ex) {
+        // reported as missing, as before, but searched again next time
+        logger.log(Level.SEVERE, ex.getMessage());
+        for (String typeName : unknown) {
+          results.put(typeName, false);
+        }
+      }
+    }
+
+    Set<String> missing = new LinkedHashSet<>();
+    for (String typeName : typeNames) {
+      if (!results.get(typeName)) {
+        missing.add(typeName);
+      }
+    }
+    return missing;
+  }
+
+  /**
+   * Searches {@code scope} once for all of {@code typeNames} and returns those that name a class.
+   *
+   * @throws CoreException if the search failed, so that its result is not complete
+   */
+  static Set<String> findTypes(IJavaSearchScope scope, Collection<String> typeNames)
+      throws CoreException {
+    // match nested classes given by binary name
+    Map<String, String> requested = new HashMap<>();
+    Set<String> simpleNames = new HashSet<>();
+    for (String typeName : typeNames) {
+      if (!Strings.isNullOrEmpty(typeName)) {
+        String sourceName = typeName.replace('$', '.');
+        requested.put(sourceName, typeName);
+        simpleNames.add(sourceName.substring(sourceName.lastIndexOf('.') + 1));
+      }
+    }
+    Set<String> found = new HashSet<>();
+    if (simpleNames.isEmpty()) {
+      return found;
+    }
+
+    char[][] simpleNameChars = new char[simpleNames.size()][];
+    int i = 0;
+    for (String simpleName : simpleNames) {
+      simpleNameChars[i++] = simpleName.toCharArray();
+    }
+    TypeNameRequestor requestor = new TypeNameRequestor() {
+      @Override
+      public void acceptType(int modifiers, char[] packageName, char[] simpleTypeName,
+          char[][] enclosingTypeNames, String path) {
+        if (Flags.isInterface(modifiers) || Flags.isEnum(modifiers)
+            || Flags.isAnnotation(modifiers)) {
+          return;
+        }
+        String simpleName = new String(simpleTypeName);
+        StringBuilder qualifiedName = new StringBuilder();
+        if (packageName.length > 0) {
+          qualifiedName.append(packageName).append('.');
+        }
+        for (char[] enclosingTypeName : enclosingTypeNames) {
+          qualifiedName.append(enclosingTypeName).append('.');
+        }
+        qualifiedName.append(simpleName);
+        addIfRequested(qualifiedName.toString());
+        addIfRequested(simpleName);
+      }
+
+      private void addIfRequested(String name) {
+        String typeName = requested.get(name);
+        if (typeName != null) {
+          found.add(typeName);
+        }
+      }
+    };
+    new SearchEngine().searchAllTypeNames(null, simpleNameChars, scope, requestor,
+        IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH, null);
+    return found;
+  }
+
+  @Override
+  public void elementChanged(ElementChangedEvent event) {
+    IJavaElementDelta delta = event.getDelta();
+    if (delta.getElement().getElementType() != IJavaElement.JAVA_MODEL
+        || delta.getKind() != IJavaElementDelta.CHANGED
+        || (delta.getFlags() & CLASSPATH_FLAGS) != 0) {
+      if (affectsTypes(delta)) {
+        invalidate();
+      }
+      return;
+    }
+    for (IJavaElementDelta projectDelta : delta.getAffectedChildren()) {
+      if (affectsTypes(projectDelta)) {
+        IJavaProject project = projectDelta.getElement().getJavaProject();
+        if (project == null) {
+          invalidate();
+          return;
+        }
+        invalidate(project);
+      }
+    }
+  }
+
+  /** Returns a number that changes whenever cached types are forgotten. */
+  int getGeneration() {
+    return generation.get();
+  }
+
+  void invalidate() {
+    generation.incrementAndGet();
+    projects.clear();
+  }
+
+  /** Forgets the types of {@code changed} and of the cached projects that require it. */
+  @VisibleForTesting
+  void invalidate(IJavaProject changed) {
+    generation.incrementAndGet();
+    projects.remove(changed);
+    Set<String> invalidated = new HashSet<>();
+    invalidated.add(changed.getElementName());
+    // repeated for projects that only require it through another project
+    boolean removed = true;
+    while (removed) {
+      removed = false;
+      for (IJavaProject project : projects.keySet()) {
+        if (requiresAny(project, invalidated)) {
+          projects.remove(project);
+          invalidated.add(project.getElementName());
+          removed = true;
+        }
+      }
+    }
+  }
+
+  private static boolean requiresAny(IJavaProject project, Set<String> projectNames) {
+    try {
+      for (String required : project.getRequiredProjectNames()) {
+        if (projectNames.contains(required)) {
+          return true;
+        }
+      }
+      return false;
+    } catch (JavaModelException ex) {
+      // e.g. closed: cannot tell
+      return true;
+    }
+  }
+
+  /**
+   * Returns true if {@code delta} may have added or removed a type. Content changes of source
+   * and class files count, as they may rename or remove the types they declare; changes to other
+   * resources, such as web.xml, do not.
+   */
+  @VisibleForTesting
+  static boolean affectsTypes(IJavaElementDelta delta) {
+    if (delta.getKind() != IJavaElementDelta.CHANGED) {
+      return true;
+    }
+    int flags = delta.getFlags();
+    if ((flags & CLASSPATH_FLAGS) != 0) {
+      return true;
+    }
+    if ((flags & IJavaElementDelta.F_CONTENT) != 0
+        && delta.getElement().getElementType() >= IJavaElement.COMPILATION_UNIT) {
+      return true;
+    }
+    for (IJavaElementDelta child : delta.getAffectedChildren()) {
+      if (affectsTypes(child)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
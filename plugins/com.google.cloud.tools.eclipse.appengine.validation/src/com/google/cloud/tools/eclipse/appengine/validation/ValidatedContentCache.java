@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.validation;
+
+import com.google.cloud.tools.eclipse.util.CloudToolsInfo;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hashing;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.QualifiedName;
+
+/**
+ * Remembers, in a persistent property of each validated file, a hash of the content last
+ * validated and how many markers that left, so that a file unchanged since then need not be
+ * parsed again nor have its markers recreated. The markers themselves are persistent, so they
+ * are the cached problems; a file whose markers have since been removed is validated again.
+ */
+class ValidatedContentCache {
+
+  private static final String QUALIFIER = "com.google.cloud.tools.eclipse.appengine.validation";
+
+  private final QualifiedName key;
+  private final String sourceId;
+  private final String toolsVersion;
+
+  /**
+   * @param sourceId the {@link IMarker#SOURCE_ID} of the markers that the validation creates
+   */
+  ValidatedContentCache(String sourceId) {
+    this(sourceId, CloudToolsInfo.getToolsVersion());
+  }
+
+  /**
+   * @param toolsVersion recorded with each hash, so that files are validated again once the
+   *     validators may have changed
+   */
+  @VisibleForTesting
+  ValidatedContentCache(String sourceId, String toolsVersion) {
+    this.sourceId = sourceId;
+    this.toolsVersion = toolsVersion;
+    key = new QualifiedName(QUALIFIER, "validatedContent." + sourceId);
+  }
+
+  static String hash(byte[] bytes) {
+    return Hashing.murmur3_128().hashBytes(bytes).toString();
+  }
+
+  /**
+   * Returns true if {@code file} was last validated with content of the given hash, and still has
+   * the markers that validation created.
+   */
+  boolean isValidated(IFile file, String hash) throws CoreException {
+    String stamp = file.getPersistentProperty(key);
+    if (stamp == null) {
+      return false;
+    }
+    String prefix = getStampPrefix(hash);
+    if (!stamp.startsWith(prefix)) {
+      return false;
+    }
+    try {
+      int markerCount = Integer.parseInt(stamp.substring(prefix.length()));
+      return markerCount == countMarkers(file);
+    } catch (NumberFormatException ex) {
+      return false;
+    }
+  }
+
+  /**
+   * Records that {@code file} has been validated with content of the given hash, once its markers
+   * have been created.
+   */
+  void setValidated(IFile file, String hash) throws CoreException {
+    file.setPersistentProperty(key, getStampPrefix(hash) + countMarkers(file));
+  }
+
+  void clear(IFile file) throws CoreException {
+    file.setPersistentProperty(key, null);
+  }
+
+  private String getStampPrefix(String hash) {
+    return toolsVersion + ':' + hash + ':';
+  }
+
+  private int countMarkers(IFile file) throws CoreException {
+    int count = 0;
+    for (IMarker marker : file.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO)) {
+      if (sourceId.equals(marker.getAttribute(IMarker.SOURCE_ID, null))) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * The files of one project that an {@link XmlValidator} is validating. The files are read and
+ * checked concurrently, and the resulting marker updates are then made in a single workspace
+ * operation, so that listeners receive one resource change notification for the project.
+ */
+class ValidationBatch {
+
+  private static final Logger logger = Logger.getLogger(ValidationBatch.class.getName());
+
+  private final IProject project;
+  private final ExecutorService executor;
+  private final List<Future<IWorkspaceRunnable>> checks = new ArrayList<>();
+
+  ValidationBatch(IProject project, ExecutorService executor) {
+    this.project = project;
+    this.executor = executor;
+  }
+
+  /**
+   * Starts checking a file.
+   *
+   * @param check returns the update to the file's markers, to be run by {@link #finish}
+   */
+  synchronized void submit(Callable<IWorkspaceRunnable> check) {
+    checks.add(executor.submit(check));
+  }
+
+  /**
+   * Waits for the submitted checks and updates the markers of all the files at once. Files whose
+   * check failed are left as they are.
+   */
+  void finish(IProgressMonitor monitor) throws CoreException, InterruptedException {
+    List<Future<IWorkspaceRunnable>> submitted;
+    synchronized (this) {
+      submitted = new ArrayList<>(checks);
+      checks.clear();
+    }
+    SubMonitor progress = SubMonitor.convert(monitor, submitted.size() * 2);
+    List<IWorkspaceRunnable> updates = new ArrayList<>();
+    for (Future<IWorkspaceRunnable> check : submitted) {
+      if (progress.isCanceled()) {
+        cancel(submitted);
+        return;
+      }
+      try {
+        updates.add(check.get());
+      } catch (ExecutionException ex) {
+        logger.log(Level.SEVERE, ex.getCause().getMessage(), ex.getCause());
+      }
+      progress.worked(1);
+    }
+    if (updates.isEmpty()) {
+      return;
+    }
+
+    IWorkspaceRunnable updateAll = updateMonitor -> {
+      SubMonitor updateProgress = SubMonitor.convert(updateMonitor, updates.size());
+      for (IWorkspaceRunnable update : updates) {
+        update.run(updateProgress.newChild(1));
+      }
+    };
+    IWorkspace workspace = ResourcesPlugin.getWorkspace();
+    workspace.run(updateAll, project, IWorkspace.AVOID_UPDATE, progress.newChild(updates.size()));
+  }
+
+  private static void cancel(List<Future<IWorkspaceRunnable>> checks) {
+    for (Future<IWorkspaceRunnable> check : checks) {
+      check.cancel(true);
+    }
+  }
+}
@@ -20,36 +20,24 @@ import com.google.cloud.tools.eclipse.appengine.facets.AppEngineStandardFacet;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.function.BiPredicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.xml.namespace.NamespaceContext;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
-import org.eclipse.jdt.core.search.IJavaSearchConstants;
 import org.eclipse.jdt.core.search.IJavaSearchScope;
 import org.eclipse.jdt.core.search.SearchEngine;
-import org.eclipse.jdt.core.search.SearchParticipant;
-import org.eclipse.jdt.core.search.SearchPattern;
 import org.eclipse.wst.common.componentcore.ComponentCore;
 import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
 import org.eclipse.wst.common.componentcore.resources.IVirtualFile;
 import org.eclipse.wst.common.componentcore.resources.IVirtualFolder;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 /**
  * Validator for web.xml.
@@ -57,10 +45,8 @@ import org.w3c.dom.NodeList;
 public class WebXmlValidator implements XmlValidationHelper {
 
   private static final Logger logger = Logger.getLogger(WebXmlValidator.class.getName());
-  private static final XPathFactory FACTORY = XPathFactory.newInstance();
-  private Document document;
-  private IResource resource;
-  private ArrayList<ElementProblem> problems;
+
+  private static final String JAVAEE_NAMESPACE = "http://java.sun.com/xml/ns/javaee";
 
   private final BiPredicate<IProject, String> servletApiSupportChecker;
 
@@ -74,112 +60,139 @@ public class WebXmlValidator implements XmlValidationHelper {
   }
 
   @Override
-  public ArrayList<ElementProblem> checkForProblems(IResource resource, Document document) {
-    this.document = document;
-    this.resource = resource;
-    problems = new ArrayList<>();
-    validateServletVersion();
-    validateServletClass();
-    validateServletMapping();
-    validateJsp();
-    return problems;
+  public void addRules(IResource resource, XmlValidationRules rules) {
+    WebXmlCheck check = new WebXmlCheck(resource);
+    rules.onElement(null, "servlet-class", check::addServletClass);
+    rules.onPath(JAVAEE_NAMESPACE, "servlet/servlet-name", check::addServletName);
+    rules.onPath(JAVAEE_NAMESPACE, "servlet-mapping/servlet-name", check::addServletMapping);
+    rules.onElement(null, "jsp-file", check::addJspFile);
+    rules.onEndDocument(check::validateDocument);
   }
 
   /**
-   * Validates that web.xml specifies a compatible deployment descriptor version.
+   * Returns false, as the problems also depend on the classes and JSP files of the project and on
+   * its facets.
    */
-  private void validateServletVersion() {
-    NodeList webAppList = document.getElementsByTagName("web-app");
-    for (int i = 0; i < webAppList.getLength(); i++) {
-      Element webApp = (Element) webAppList.item(i);
-      String namespace = webApp.getNamespaceURI();
-      String version = (String) webApp.getUserData("version");
-      if ("http://xmlns.jcp.org/xml/ns/javaee".equals(namespace)
-          || "http://java.sun.com/xml/ns/javaee".equals(namespace)) {
-        // Check that web.xml version is compatible with our supported Dynamic Web Project versions
-        if (!servletApiSupportChecker.test(resource.getProject(), version)) {
-          DocumentLocation location = (DocumentLocation) webApp.getUserData("location");
-          ElementProblem element = new JavaServletElement(location, 0);
-          problems.add(element);
-        }
-      }
-    }
+  @Override
+  public boolean dependsOnContentOnly() {
+    return false;
   }
 
   /**
-   * Validates that all <servlet-class> elements exist in the project.
+   * The checks of a single web.xml, some of which must wait until the whole document has been
+   * scanned.
    */
-  private void validateServletClass() {
-    NodeList servletClassList = document.getElementsByTagName("servlet-class");
-    for (int i = 0; i < servletClassList.getLength(); i++) {
-      Node servletClassNode = servletClassList.item(i);
-      String servletClassName = servletClassNode.getTextContent();
-      IJavaProject project = getJavaProject(resource);
-      if (project != null && !classExists(project, servletClassName)) {
-        DocumentLocation location = (DocumentLocation) servletClassNode.getUserData("location");
-        ElementProblem element =
-            new UndefinedServletElement(servletClassName, location, servletClassName.length());
-        problems.add(element);
+  private class WebXmlCheck {
+
+    private final IResource resource;
+    private final IJavaProject javaProject;
+    private final Set<String> servletNames = new HashSet<>();
+    private final List<ScannedElement> servletClasses = new ArrayList<>();
+    private final List<ScannedElement> servletMappings = new ArrayList<>();
+    private final List<ScannedElement> jspFiles = new ArrayList<>();
+
+    private WebXmlCheck(IResource resource) {
+      this.resource = resource;
+      javaProject = getJavaProject(resource);
+    }
+
+    private void addServletClass(ScannedElement servletClass, List<ElementProblem> problems) {
+      servletClasses.add(servletClass);
+    }
+
+    private void addServletName(ScannedElement servletName, List<ElementProblem> problems) {
+      servletNames.add(servletName.getTextContent());
+    }
+
+    private void addServletMapping(ScannedElement servletName, List<ElementProblem> problems) {
+      servletMappings.add(servletName);
+    }
+
+    private void addJspFile(ScannedElement jspFile, List<ElementProblem> problems) {
+      jspFiles.add(jspFile);
+    }
+
+    private void validateDocument(ScannedElement webApp, List<ElementProblem> problems) {
+      validateServletVersion(webApp, problems);
+      validateServletClasses(problems);
+      validateServletMapping(problems);
+      validateJsp(webApp, problems);
+    }
+
+    /**
+     * Validates that web.xml specifies a compatible deployment descriptor version.
+     */
+    private void validateServletVersion(ScannedElement webApp, List<ElementProblem> problems) {
+      if ("web-app".equals(webApp.getLocalName())) {
+        String namespace = webApp.getNamespaceUri();
+        String version = webApp.getAttribute("version");
+        if ("http://xmlns.jcp.org/xml/ns/javaee".equals(namespace)
+            || JAVAEE_NAMESPACE.equals(namespace)) {
+          // Check that web.xml version is compatible with our supported Dynamic Web Project versions
+          if (!servletApiSupportChecker.test(resource.getProject(), version)) {
+            ElementProblem element = new JavaServletElement(webApp.getLocation(), 0);
+            problems.add(element);
+          }
+        }
       }
     }
-  }
 
-  /**
-   * Adds all defined servlet names to a set, then adds a
-   * {@link ServletMappingElement} to the problems list for all
-   * <servlet-mapping> elements whose <servlet-name> is undefined.
-   */
-  private void validateServletMapping() {
-    try {
-      XPath xPath = FACTORY.newXPath();
-      NamespaceContext nsContext = new JavaContext();
-      xPath.setNamespaceContext(nsContext);
-      String selectServletNames = "//prefix:servlet/prefix:servlet-name";
-      NodeList servletNameNodes = (NodeList) xPath
-          .compile(selectServletNames)
-          .evaluate(document, XPathConstants.NODESET);
-      Set<String> servletNames = new HashSet<>();
-      for (int i = 0; i < servletNameNodes.getLength(); i++) {
-        String servletName = servletNameNodes.item(i).getTextContent();
-        servletNames.add(servletName);
+    /**
+     * Validates that all <servlet-class> elements exist in the project. The classes are looked up
+     * together, and only those not seen since the last relevant Java change are searched for.
+     */
+    private void validateServletClasses(List<ElementProblem> problems) {
+      if (javaProject == null || servletClasses.isEmpty()) {
+        return;
       }
-      String selectServletMappings = "//prefix:servlet-mapping/prefix:servlet-name";
-      NodeList servletMappings = (NodeList) xPath
-          .compile(selectServletMappings)
-          .evaluate(document, XPathConstants.NODESET);
-      for (int i = 0; i < servletMappings.getLength(); i++) {
-        Node servletMapping = servletMappings.item(i);
+      Set<String> servletClassNames = new HashSet<>();
+      for (ScannedElement servletClass : servletClasses) {
+        servletClassNames.add(servletClass.getTextContent());
+      }
+      Set<String> missing =
+          TypeExistenceCache.getDefault().findMissingTypes(javaProject, servletClassNames);
+      for (ScannedElement servletClass : servletClasses) {
+        String servletClassName = servletClass.getTextContent();
+        if (missing.contains(servletClassName)) {
+          ElementProblem element = new UndefinedServletElement(
+              servletClassName, servletClass.getLocation(), servletClassName.length());
+          problems.add(element);
+        }
+      }
+    }
+
+    /**
+     * Adds a {@link ServletMappingElement} to the problems list for all
+     * <servlet-mapping> elements whose <servlet-name> is undefined.
+     */
+    private void validateServletMapping(List<ElementProblem> problems) {
+      for (ScannedElement servletMapping : servletMappings) {
         String textContent = servletMapping.getTextContent();
         if (!servletNames.contains(textContent)) {
-          DocumentLocation location = (DocumentLocation) servletMapping.getUserData("location");
-          ElementProblem element =
-              new ServletMappingElement(textContent, location, textContent.length());
+          ElementProblem element = new ServletMappingElement(
+              textContent, servletMapping.getLocation(), textContent.length());
           problems.add(element);
         }
       }
-    } catch (XPathExpressionException ex) {
-      throw new RuntimeException("Invalid XPath expression");
     }
-  }
 
-  /**
-   * Verifies that every <jsp-file> element exists in the project.
-   */
-  private void validateJsp() {
-    if (isVersion25()) {
-      IProject project = resource.getProject();
-      IVirtualComponent component = ComponentCore.createComponent(project);
-      if (component != null && component.exists()) {
-        IVirtualFolder root = component.getRootFolder();
-        if (root.exists()) {
-          NodeList jspList = document.getElementsByTagName("jsp-file");
-          for (int i = 0; i < jspList.getLength(); i++) {
-            Node jspNode = jspList.item(i);
-            String jspName = jspNode.getTextContent();
-            if (!resolveJsp(root, jspName)) {
-              DocumentLocation location = (DocumentLocation) jspNode.getUserData("location");
-              ElementProblem element = new JspFileElement(jspName, location, jspName.length());
-              problems.add(element);
+    /**
+     * Verifies that every <jsp-file> element exists in the project.
+     */
+    private void validateJsp(ScannedElement webApp, List<ElementProblem> problems) {
+      if (!jspFiles.isEmpty() && "2.5".equals(webApp.getAttribute("version"))) {
+        IProject project = resource.getProject();
+        IVirtualComponent component = ComponentCore.createComponent(project);
+        if (component != null && component.exists()) {
+          IVirtualFolder root = component.getRootFolder();
+          if (root.exists()) {
+            for (ScannedElement jspFile : jspFiles) {
+              String jspName = jspFile.getTextContent();
+              if (!resolveJsp(root, jspName)) {
+                ElementProblem element =
+                    new JspFileElement(jspName, jspFile.getLocation(), jspName.length());
+                problems.add(element);
+              }
             }
           }
         }
@@ -211,12 +224,6 @@ public class WebXmlValidator implements XmlValidationHelper {
     return false;
   }
 
-  private boolean isVersion25() {
-    Node node = document.getFirstChild();
-    String versionString = (String) node.getUserData("version");
-    return "2.5".equals(versionString);
-  }
-
   private static IJavaProject getJavaProject(IResource resource) {
     if (resource != null) {
       return JavaCore.create(resource.getProject());
@@ -229,31 +236,16 @@ public class WebXmlValidator implements XmlValidationHelper {
     if (Strings.isNullOrEmpty(typeName)) {
       return false;
     }
-    SearchPattern pattern = SearchPattern.createPattern(typeName,
-        IJavaSearchConstants.CLASS,
-        IJavaSearchConstants.DECLARATIONS,
-        SearchPattern.R_EXACT_MATCH | SearchPattern.R_ERASURE_MATCH);
-    IJavaSearchScope scope = project == null ? SearchEngine.createWorkspaceScope()
-        : SearchEngine.createJavaSearchScope(new IJavaElement[] {project});
-    return performSearch(pattern, scope, null);
-  }
-
-  /**
-   * Searches for a class that matches a pattern.
-   */
-  @VisibleForTesting
-  static boolean performSearch(SearchPattern pattern, IJavaSearchScope scope,
-      IProgressMonitor monitor) {
-    try {
-      SearchEngine searchEngine = new SearchEngine();
-      TypeSearchRequestor requestor = new TypeSearchRequestor();
-      searchEngine.search(pattern,
-          new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() },
-          scope, requestor, monitor);
-      return requestor.foundMatch();
-    } catch (CoreException ex) {
-      logger.log(Level.SEVERE, ex.getMessage());
-      return false;
+    if (project == null) {
+      IJavaSearchScope scope = SearchEngine.createWorkspaceScope();
+      try {
+        return !TypeExistenceCache.findTypes(scope, Collections.singleton(typeName)).isEmpty();
+      } catch (CoreException ex) {
+        logger.log(Level.SEVERE, ex.getMessage());
+        return false;
+      }
     }
+    return TypeExistenceCache.getDefault()
+        .findMissingTypes(project, Collections.singleton(typeName)).isEmpty();
   }
 }
@@ -20,8 +20,9 @@ import com.google.cloud.tools.eclipse.appengine.facets.AppEngineStandardFacet;
 import com.google.cloud.tools.eclipse.util.status.StatusUtil;
 import com.google.common.annotations.VisibleForTesting;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.eclipse.core.resources.IFile;
@@ -33,6 +34,7 @@ import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExecutableExtension;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.quickassist.IQuickAssistProcessor;
@@ -47,7 +49,6 @@ import org.eclipse.wst.validation.internal.provisional.core.IMessage;
 import org.eclipse.wst.validation.internal.provisional.core.IReporter;
 import org.eclipse.wst.validation.internal.provisional.core.IValidationContext;
 import org.eclipse.wst.validation.internal.provisional.core.IValidator;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
@@ -62,6 +63,27 @@ public class XmlSourceValidator implements ISourceValidator, IValidator, IExecut
   private IDocument document;
   private XmlValidationHelper helper;
 
+  /**
+   * The text last scanned, and the state of the Java types it was checked against; while both are
+   * unchanged, such as when the reconciler runs again for an unedited document, the problems found
+   * then are reported again without scanning.
+   */
+  private String validatedText;
+  private IFile validatedSource;
+  private int validatedTypesGeneration;
+  private List<LocatedProblem> validatedProblems;
+
+  /** A problem and its offset in the document. */
+  private static class LocatedProblem {
+    private final ElementProblem problem;
+    private final int offset;
+
+    private LocatedProblem(ElementProblem problem, int offset) {
+      this.problem = problem;
+      this.offset = offset;
+    }
+  }
+
   /**
    * Validates a given {@link IDocument} if the project has the App Engine Standard facet.
    */
@@ -71,10 +93,8 @@ public class XmlSourceValidator implements ISourceValidator, IValidator, IExecut
     try {
       IFacetedProject facetedProject = ProjectFacetsManager.create(project);
       if (facetedProject != null && AppEngineStandardFacet.hasFacet(facetedProject)) {
-        String encoding = getDocumentEncoding(document);
-        byte[] bytes = document.get().getBytes(encoding);
         IFile source = getFile(helper);
-        validate(reporter, source, bytes);
+        validate(reporter, source, document);
       }
     } catch (IOException | CoreException ex) {
       logger.log(Level.SEVERE, ex.getMessage());
@@ -83,25 +103,49 @@ public class XmlSourceValidator implements ISourceValidator, IValidator, IExecut
 
   /**
    * Adds an {@link IMessage} to the XML file for every
-   * {@link ElementProblem} found in the file.
+   * {@link ElementProblem} found in the file. The document's text is scanned as is rather than
+   * re-encoded, and offsets come from the document's own line information.
    */
   @VisibleForTesting
-  void validate(IReporter reporter, IFile source, byte[] bytes) throws IOException {
+  void validate(IReporter reporter, IFile source, IDocument document) throws IOException {
+    String text = document.get();
+    int typesGeneration = TypeExistenceCache.getDefault().getGeneration();
+    if (validatedProblems == null || !text.equals(validatedText)
+        || !Objects.equals(source, validatedSource)
+        || typesGeneration != validatedTypesGeneration) {
+      validatedProblems = scan(source, document, text);
+      validatedText = text;
+      validatedSource = source;
+      validatedTypesGeneration = typesGeneration;
+    }
+    for (LocatedProblem located : validatedProblems) {
+      createMessage(reporter, located.problem, located.offset);
+    }
+  }
+
+  private List<LocatedProblem> scan(IFile source, IDocument document, String text)
+      throws IOException {
+    List<LocatedProblem> located = new ArrayList<>();
     try {
-      Document document = PositionalXmlScanner.parse(bytes);
-      if (document != null) {
-        List<ElementProblem> problems = helper.checkForProblems(source, document);
-        String encoding = (String) document.getDocumentElement().getUserData("encoding");
-        Map<ElementProblem, Integer> problemOffsetMap =
-            ValidationUtils.getOffsetMap(bytes, problems, encoding);
-        for (Map.Entry<ElementProblem, Integer> entry : problemOffsetMap.entrySet()) {
-          createMessage(reporter, entry.getKey(), entry.getValue());
+      XmlValidationRules rules = new XmlValidationRules();
+      helper.addRules(source, rules);
+      PositionalXmlScanner.scan(text, rules);
+      for (ElementProblem problem : rules.getProblems()) {
+        DocumentLocation start = problem.getStart();
+        try {
+          int offset = document.getLineOffset(start.getLineNumber() - 1)
+              + start.getColumnNumber() - 1;
+          located.add(new LocatedProblem(problem, offset));
+        } catch (BadLocationException ex) {
+          // the document changed since it was scanned; it will be validated again
+          logger.log(Level.FINE, ex.getMessage());
         }
       }
     } catch (SAXException ex) {
       // Do nothing
       // Default Eclipse parser flags syntax errors
     }
+    return located;
   }
 
   /**
@@ -136,6 +180,7 @@ public class XmlSourceValidator implements ISourceValidator, IValidator, IExecut
   @VisibleForTesting
   void setHelper(XmlValidationHelper helper) {
     this.helper = helper;
+    validatedProblems = null;
   }
 
   /**
@@ -208,13 +253,23 @@ public class XmlSourceValidator implements ISourceValidator, IValidator, IExecut
   @Override
   public void connect(IDocument document) {
     this.document = document;
+    validatedProblems = null;
   }
 
   @Override
   public void disconnect(IDocument document) {
     this.document = null;
+    validatedText = null;
+    validatedProblems = null;
   }
 
+  /**
+   * Does nothing: the rules span the whole document (servlet mappings must name declared
+   * servlets, a missing {@code <runtime>} is reported at the root element), so the problems in
+   * a dirty region cannot be found from that region alone. The whole document is validated by
+   * {@link #validate(IValidationContext, IReporter)} instead, which skips the scan while the
+   * text is unchanged.
+   */
   @Override
   public void validate(IRegion dirtyRegion, IValidationContext helper, IReporter reporter) {
   }
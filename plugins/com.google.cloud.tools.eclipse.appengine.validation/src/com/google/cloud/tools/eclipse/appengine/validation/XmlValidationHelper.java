@@ -16,16 +16,22 @@
 
 package com.google.cloud.tools.eclipse.appengine.validation;
 
-import java.util.List;
 import org.eclipse.core.resources.IResource;
-import org.w3c.dom.Document;
 
 interface XmlValidationHelper {
 
   /**
-   * Searches the {@link Document} for element problems and returns them
-   * as a list of {@link ElementProblem}s.
+   * Registers the {@link XmlValidationRules} that find element problems in {@code resource}.
+   * Called once for each document, before it is scanned, so the rules may keep state about it.
    */
-  List<ElementProblem> checkForProblems(IResource resource, Document document);
+  void addRules(IResource resource, XmlValidationRules rules);
+
+  /**
+   * Returns true if the problems found in a document depend on nothing but its content, so that a
+   * document that has not changed since it was last validated need not be validated again.
+   */
+  default boolean dependsOnContentOnly() {
+    return true;
+  }
 
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.validation;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The rules an {@link XmlValidationHelper} applies to a document, and the problems they find.
+ * The {@link PositionalXmlScanner} fires each rule as it reads the end-tag of a matching element,
+ * so that a document is validated in a single pass without building a DOM. A new instance is
+ * used for each document, so rules may keep state about the document being scanned.
+ */
+class XmlValidationRules {
+
+  /** Checks an element matched by a rule, adding any problems found. */
+  interface ElementRule {
+    void check(ScannedElement element, List<ElementProblem> problems);
+  }
+
+  private static class PathRule {
+    private final String namespaceUri;
+    private final String[] steps;
+    private final ElementRule rule;
+
+    private PathRule(String namespaceUri, String[] steps, ElementRule rule) {
+      this.namespaceUri = namespaceUri;
+      this.steps = steps;
+      this.rule = rule;
+    }
+
+    private boolean matches(List<String> namespaceUris, List<String> localNames) {
+      int offset = localNames.size() - steps.length;
+      if (offset < 0) {
+        return false;
+      }
+      for (int i = 0; i < steps.length; i++) {
+        if (!steps[i].equals(localNames.get(offset + i))) {
+          return false;
+        }
+        if (namespaceUri != null && !namespaceUri.equals(namespaceUris.get(offset + i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /** Path rules keyed by the local name of the element they select. */
+  private final Map<String, List<PathRule>> pathRules = new HashMap<>();
+  private final List<ElementRule> endDocumentRules = new ArrayList<>();
+  private final List<ElementProblem> problems = new ArrayList<>();
+
+  /**
+   * Applies {@code rule} to every element with the given name, wherever it appears.
+   *
+   * @param namespaceUri the element's namespace, or {@code null} to match any namespace
+   */
+  void onElement(String namespaceUri, String localName, ElementRule rule) {
+    onPath(namespaceUri, localName, rule);
+  }
+
+  /**
+   * Applies {@code rule} to every element selected by {@code path}, a series of local names
+   * separated by {@code /} that must match the element and its closest ancestors; for example
+   * {@code "servlet/servlet-name"} selects the same elements as the XPath
+   * {@code //servlet/servlet-name}.
+   *
+   * @param namespaceUri the namespace of every step, or {@code null} to match any namespace
+   */
+  void onPath(String namespaceUri, String path, ElementRule rule) {
+    Preconditions.checkNotNull(path);
+    Preconditions.checkNotNull(rule);
+    String[] steps = path.split("/", -1);
+    for (String step : steps) {
+      Preconditions.checkArgument(!step.isEmpty(), "invalid path: %s", path);
+    }
+    pathRules.computeIfAbsent(steps[steps.length - 1], name -> new ArrayList<>())
+        .add(new PathRule(namespaceUri, steps, rule));
+  }
+
+  /**
+   * Applies {@code rule} to the root element once the whole document has been scanned, for checks
+   * that depend on what the other rules have seen.
+   */
+  void onEndDocument(ElementRule rule) {
+    endDocumentRules.add(Preconditions.checkNotNull(rule));
+  }
+
+  /**
+   * Returns the rules for the last element of a path from the root; both lists are indexed by
+   * depth.
+   */
+  List<ElementRule> getRules(List<String> namespaceUris, List<String> localNames) {
+    List<PathRule> candidates = pathRules.get(localNames.get(localNames.size() - 1));
+    if (candidates == null) {
+      return Collections.emptyList();
+    }
+    List<ElementRule> matched = new ArrayList<>(candidates.size());
+    for (PathRule candidate : candidates) {
+      if (candidate.matches(namespaceUris, localNames)) {
+        matched.add(candidate.rule);
+      }
+    }
+    return matched;
+  }
+
+  void apply(List<ElementRule> rules, ScannedElement element) {
+    for (ElementRule rule : rules) {
+      rule.check(element, problems);
+    }
+  }
+
+  void endDocument(ScannedElement root) {
+    apply(endDocumentRules, root);
+  }
+
+  List<ElementProblem> getProblems() {
+    return problems;
+  }
+
+}
@@ -19,15 +19,21 @@ package com.google.cloud.tools.eclipse.appengine.validation;
 import com.google.cloud.tools.eclipse.util.status.StatusUtil;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExecutableExtension;
@@ -36,7 +42,6 @@ import org.eclipse.wst.validation.AbstractValidator;
 import org.eclipse.wst.validation.ValidationEvent;
 import org.eclipse.wst.validation.ValidationResult;
 import org.eclipse.wst.validation.ValidationState;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
@@ -47,44 +52,148 @@ public class XmlValidator extends AbstractValidator implements IExecutableExtens
 
   private static final Logger logger = Logger.getLogger(XmlValidator.class.getName());
 
+  /** System property to override the number of files checked concurrently. */
+  static final String PARALLELISM_PROPERTY =
+      "com.google.cloud.tools.eclipse.appengine.validation.threads";
+
+  /** Checks the files of the projects being validated; shared by all the validators. */
+  private static final ExecutorService executor = Executors.newFixedThreadPool(
+      Math.max(1, Integer.getInteger(PARALLELISM_PROPERTY,
+          Math.min(4, Runtime.getRuntime().availableProcessors()))),
+      new ThreadFactoryBuilder()
+          .setNameFormat("xml-validator-%d")
+          .setDaemon(true)
+          .build());
+
+  /** The marker types defined by this bundle. */
+  private static final String MARKER_TYPE_PREFIX =
+      "com.google.cloud.tools.eclipse.appengine.validation.";
+
   private XmlValidationHelper helper;
+  private ValidatedContentCache cache;
+  private final Map<IProject, ValidationBatch> batches = new ConcurrentHashMap<>();
+
+  @Override
+  public void validationStarting(IProject project, ValidationState state,
+      IProgressMonitor monitor) {
+    if (project != null) {
+      batches.put(project, new ValidationBatch(project, executor));
+    }
+  }
 
   /**
-   * Extracts byte[] from XML.
+   * Extracts byte[] from XML. When the file's project is being validated, the file is checked in
+   * the background and its markers are updated once the whole project has been checked.
    */
   @Override
   public ValidationResult validate(ValidationEvent event, ValidationState state,
       IProgressMonitor monitor) {
     IFile file = (IFile) event.getResource();
-    try (InputStream in = file.getContents()) {
-        byte[] bytes = ByteStreams.toByteArray(in);
-        validate(file, bytes);
-    } catch (IOException | CoreException ex) {
-      logger.log(Level.SEVERE, ex.getMessage());
+    ValidationBatch batch = batches.get(file.getProject());
+    if (batch != null) {
+      batch.submit(() -> check(file));
+    } else {
+      try {
+        check(file).run(monitor);
+      } catch (IOException | CoreException ex) {
+        logger.log(Level.SEVERE, ex.getMessage());
+      }
     }
     return new ValidationResult();
   }
 
+  @Override
+  public void validationFinishing(IProject project, ValidationState state,
+      IProgressMonitor monitor) {
+    if (project == null) {
+      return;
+    }
+    ValidationBatch batch = batches.remove(project);
+    if (batch != null) {
+      try {
+        batch.finish(monitor);
+      } catch (CoreException ex) {
+        logger.log(Level.SEVERE, ex.getMessage());
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private IWorkspaceRunnable check(IFile file) throws IOException, CoreException {
+    try (InputStream in = file.getContents()) {
+      byte[] bytes = ByteStreams.toByteArray(in);
+      return check(file, bytes);
+    }
+  }
+
   /**
-   * Clears all problem markers from the resource, then adds a marker to
-   * the resource for every {@link ElementProblem} found in the file.
+   * Clears this validator's problem markers from the resource, then adds a marker to
+   * the resource for every {@link ElementProblem} found in the file. Nothing is done if the
+   * helper's problems depend only on the file's content and it has not changed since it was
+   * last validated.
    */
   void validate(IFile resource, byte[] bytes) throws CoreException, IOException {
-    try {
-      deleteMarkers(resource);
-      Document document = PositionalXmlScanner.parse(bytes);
-      if (document != null) {
-        List<ElementProblem> problems = helper.checkForProblems(resource, document);
-        String encoding = (String) document.getDocumentElement().getUserData("encoding");
-        Map<ElementProblem, Integer> problemOffsetMap =
-            ValidationUtils.getOffsetMap(bytes, problems, encoding);
-        for (Map.Entry<ElementProblem, Integer> entry : problemOffsetMap.entrySet()) {
-          createMarker(resource, entry.getKey());
-        }
+    check(resource, bytes).run(null);
+  }
+
+  /**
+   * Finds the problems in the file without modifying the workspace, and so may be called from any
+   * thread.
+   *
+   * @return the update to the file's markers
+   */
+  @VisibleForTesting
+  IWorkspaceRunnable check(IFile resource, byte[] bytes) throws CoreException, IOException {
+    if (helper.dependsOnContentOnly()) {
+      String hash = ValidatedContentCache.hash(bytes);
+      if (cache.isValidated(resource, hash)) {
+        return monitor -> {};
       }
+      List<ElementProblem> problems = findProblems(resource, bytes);
+      return monitor -> updateMarkers(resource, problems, hash);
+    }
+    List<ElementProblem> problems = findProblems(resource, bytes);
+    return monitor -> updateMarkers(resource, problems, null);
+  }
+
+  /**
+   * Returns the problems found in the file, or null if it could not be parsed.
+   */
+  private List<ElementProblem> findProblems(IFile resource, byte[] bytes) throws IOException {
+    try {
+      XmlValidationRules rules = new XmlValidationRules();
+      helper.addRules(resource, rules);
+      PositionalXmlScanner.scan(bytes, rules);
+      return rules.getProblems();
     } catch (SAXException ex) {
-      // Do nothing; Eclipse notifies users of general SAX errors.
+      // Eclipse notifies users of general SAX errors.
+      return null;
+    }
+  }
+
+  private void updateMarkers(IFile resource, List<ElementProblem> problems, String hash)
+      throws CoreException {
+    deleteMarkers(resource);
+    if (problems == null) {
+      // validate the file again next time
+      if (hash != null) {
+        cache.clear(resource);
+      }
+      return;
     }
+    String sourceId = getSourceId();
+    for (ElementProblem problem : problems) {
+      IMarker marker = createMarker(resource, problem);
+      marker.setAttribute(IMarker.SOURCE_ID, sourceId);
+    }
+    if (hash != null) {
+      cache.setValidated(resource, hash);
+    }
+  }
+
+  private String getSourceId() {
+    return helper.getClass().getName();
   }
 
   /**
@@ -119,16 +228,30 @@ public class XmlValidator extends AbstractValidator implements IExecutableExtens
   @VisibleForTesting
   void setHelper(XmlValidationHelper helper) {
     this.helper = helper;
+    cache = new ValidatedContentCache(getSourceId());
   }
 
-  static void deleteMarkers(IResource resource) throws CoreException {
-    resource.deleteMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO);
+  /**
+   * Deletes the markers that this validator created on the resource. Other validators of the file,
+   * such as the XSD validator, may already have added their markers, so those are left alone.
+   */
+  @VisibleForTesting
+  void deleteMarkers(IResource resource) throws CoreException {
+    String sourceId = getSourceId();
+    for (IMarker marker : resource.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO)) {
+      String markerSourceId = marker.getAttribute(IMarker.SOURCE_ID, null);
+      // markers created by earlier versions have no source ID
+      if (sourceId.equals(markerSourceId)
+          || (markerSourceId == null && marker.getType().startsWith(MARKER_TYPE_PREFIX))) {
+        marker.delete();
+      }
+    }
   }
 
   /**
    * Creates a marker from a given {@link ElementProblem}
    */
-  static void createMarker(IResource resource, ElementProblem problem)
+  static IMarker createMarker(IResource resource, ElementProblem problem)
       throws CoreException {
     IMarker marker = resource.createMarker(problem.getMarkerId());
     marker.setAttribute(IMarker.SEVERITY, problem.getIMarkerSeverity());
@@ -136,6 +259,7 @@ public class XmlValidator extends AbstractValidator implements IExecutableExtens
     int lineNumber = problem.getStart().getLineNumber();
     marker.setAttribute(IMarker.LOCATION, "line " + lineNumber);
     marker.setAttribute(IMarker.LINE_NUMBER, lineNumber);
+    return marker;
   }
 
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.ui.console.MessageConsoleStream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BufferedConsoleOutputTest {
+  @Mock private MessageConsoleStream stdout;
+  @Mock private MessageConsoleStream stderr;
+  @Mock private ScheduledExecutorService scheduler;
+
+  @Test
+  public void testOutputLines_writtenTogether() {
+    BufferedConsoleOutput output = new BufferedConsoleOutput(10, scheduler);
+    BufferedConsoleOutput.StreamWriter writer = output.newWriter(stdout);
+    writer.onOutputLine("line 1");
+    writer.onOutputLine("line 2");
+    writer.console("raw");
+    verify(stdout, never()).print(anyString());
+
+    output.flush();
+    verify(stdout).print("line 1\nline 2\nraw");
+    assertEquals(2, output.getCoalescedCount());
+    assertEquals(0, output.getDroppedCount());
+  }
+
+  @Test
+  public void testFlush_scheduledOncePerBatch() {
+    BufferedConsoleOutput output = new BufferedConsoleOutput(10, scheduler);
+    BufferedConsoleOutput.StreamWriter writer = output.newWriter(stdout);
+    writer.onOutputLine("line 1");
+    writer.onOutputLine("line 2");
+    verify(scheduler).schedule(any(Runnable.class),
+        eq(BufferedConsoleOutput.FRAME_MILLIS), eq(TimeUnit.MILLISECONDS));
+
+    output.flush();
+    writer.onOutputLine("line 3");
+    verify(scheduler, times(2)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+  }
+
+  @Test
+  public void testFlush_nothingPending() {
+    BufferedConsoleOutput output = new BufferedConsoleOutput(10, scheduler);
+    output.newWriter(stdout);
+    output.flush();
+    verify(stdout, never()).print(anyString());
+  }
+
+  @Test
+  public void testFlush_keepsOrderAcrossStreams() {
+    BufferedConsoleOutput output = new BufferedConsoleOutput(10, scheduler);
+    BufferedConsoleOutput.StreamWriter out = output.newWriter(stdout);
+    BufferedConsoleOutput.StreamWriter err = output.newWriter(stderr);
+    out.onOutputLine("out 1");
+    out.onOutputLine("out 2");
+    err.onOutputLine("err 1");
+    out.onOutputLine("out 3");
+
+    output.flush();
+    InOrder inOrder = inOrder(stdout, stderr);
+    inOrder.verify(stdout).print("out 1\nout 2\n");
+    inOrder.verify(stderr).print("err 1\n");
+    inOrder.verify(stdout).print("out 3\n");
+    assertEquals(1, output.getCoalescedCount());
+  }
+
+  @Test
+  public void testOverflow_dropsOldest() {
+    BufferedConsoleOutput output = new BufferedConsoleOutput(2, scheduler);
+    BufferedConsoleOutput.StreamWriter writer = output.newWriter(stdout);
+    writer.onOutputLine("line 1");
+    writer.onOutputLine("line 2");
+    writer.onOutputLine("line 3");
+    writer.onOutputLine("line 4");
+
+    output.flush();
+    String dropped = Messages.getString("console.output.dropped", 2);
+    verify(stdout).print(dropped + "\nline 3\nline 4\n");
+    assertEquals(2, output.getDroppedCount());
+  }
+
+  @Test
+  public void testFlush_closedStream() {
+    when(stdout.isClosed()).thenReturn(true);
+    BufferedConsoleOutput output = new BufferedConsoleOutput(10, scheduler);
+    output.newWriter(stdout).onOutputLine("line");
+
+    output.flush();
+    verify(stdout, never()).print(anyString());
+  }
+}
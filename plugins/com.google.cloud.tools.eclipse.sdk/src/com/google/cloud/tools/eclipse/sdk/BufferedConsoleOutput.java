@@ -0,0 +1,187 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.sdk;
+
+import com.google.cloud.tools.appengine.operations.cloudsdk.process.ProcessOutputLineListener;
+import com.google.cloud.tools.managedcloudsdk.ConsoleListener;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.ui.console.MessageConsoleStream;
+
+/**
+ * Collects process output bound for one or more console streams and writes it out in batches, at
+ * most once per {@link #FRAME_MILLIS}, so that a process printing thousands of lines a second
+ * does not make the console update its document for every line. Output is written in the order it
+ * arrived, even across streams.
+ *
+ * <p>At most {@code capacity} pieces of output wait to be written. When more arrive, the oldest
+ * are dropped and a note of how many were dropped is written in their place.
+ */
+public class BufferedConsoleOutput {
+
+  /** The interval at which pending output is written to the console. */
+  static final long FRAME_MILLIS = 50;
+
+  static final int DEFAULT_CAPACITY = 10000;
+
+  private static final ScheduledExecutorService defaultScheduler =
+      Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+          .setNameFormat("console-output-%d") //$NON-NLS-1$
+          .setDaemon(true)
+          .build());
+
+  private final int capacity;
+  private final ScheduledExecutorService scheduler;
+
+  private final Object flushLock = new Object();
+
+  // all guarded by this
+  private final Deque<Output> pending = new ArrayDeque<>();
+  private boolean flushScheduled;
+  private int droppedSinceFlush;
+  private long droppedCount;
+  private long coalescedCount;
+
+  public BufferedConsoleOutput() {
+    this(DEFAULT_CAPACITY, defaultScheduler);
+  }
+
+  @VisibleForTesting
+  BufferedConsoleOutput(int capacity, ScheduledExecutorService scheduler) {
+    Preconditions.checkArgument(capacity > 0, "capacity must be positive"); //$NON-NLS-1$
+    this.capacity = capacity;
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Returns a listener that writes output lines or raw output to {@code stream} through this
+   * buffer.
+   */
+  public StreamWriter newWriter(MessageConsoleStream stream) {
+    return new StreamWriter(stream);
+  }
+
+  /** Returns the number of pieces of output dropped so far, as they could not be kept up with. */
+  public synchronized long getDroppedCount() {
+    return droppedCount;
+  }
+
+  /**
+   * Returns the number of pieces of output so far that were appended to the console along with
+   * earlier output, rather than on their own.
+   */
+  public synchronized long getCoalescedCount() {
+    return coalescedCount;
+  }
+
+  private synchronized void add(MessageConsoleStream stream, String text) {
+    if (pending.size() == capacity) {
+      pending.removeFirst();
+      droppedSinceFlush++;
+      droppedCount++;
+    }
+    pending.addLast(new Output(stream, text));
+    if (!flushScheduled) {
+      flushScheduled = true;
+      scheduler.schedule(this::flush, FRAME_MILLIS, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /** Writes out all pending output now. */
+  public void flush() {
+    // keeps concurrent flushes from writing their batches out of order
+    synchronized (flushLock) {
+      Deque<Output> batch;
+      int dropped;
+      synchronized (this) {
+        flushScheduled = false;
+        if (pending.isEmpty()) {
+          return;
+        }
+        batch = new ArrayDeque<>(pending);
+        pending.clear();
+        dropped = droppedSinceFlush;
+        droppedSinceFlush = 0;
+      }
+
+      StringBuilder text = new StringBuilder();
+      MessageConsoleStream stream = batch.peekFirst().stream;
+      if (dropped > 0) {
+        text.append(Messages.getString("console.output.dropped", dropped)).append('\n'); //$NON-NLS-1$
+      }
+      int appends = 1;
+      for (Output output : batch) {
+        if (output.stream != stream) {
+          print(stream, text.toString());
+          text.setLength(0);
+          stream = output.stream;
+          appends++;
+        }
+        text.append(output.text);
+      }
+      print(stream, text.toString());
+
+      synchronized (this) {
+        coalescedCount += batch.size() - appends;
+      }
+    }
+  }
+
+  private static void print(MessageConsoleStream stream, String text) {
+    if (!stream.isClosed()) {
+      // there's still a small chance that the stream will be closed and the error will be logged by
+      // the ConsolePlugin
+      stream.print(text);
+    }
+  }
+
+  /** Output waiting to be written to a stream. */
+  private static class Output {
+    private final MessageConsoleStream stream;
+    private final String text;
+
+    private Output(MessageConsoleStream stream, String text) {
+      this.stream = stream;
+      this.text = text;
+    }
+  }
+
+  /** Adds process output to the buffer, to be written to a single stream. */
+  public class StreamWriter implements ProcessOutputLineListener, ConsoleListener {
+    private final MessageConsoleStream stream;
+
+    private StreamWriter(MessageConsoleStream stream) {
+      this.stream = Preconditions.checkNotNull(stream);
+    }
+
+    @Override
+    public void onOutputLine(String line) {
+      add(stream, line + '\n');
+    }
+
+    @Override
+    public void console(String rawString) {
+      add(stream, rawString);
+    }
+  }
+}
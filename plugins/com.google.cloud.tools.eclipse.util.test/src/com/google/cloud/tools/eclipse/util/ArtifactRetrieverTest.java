@@ -16,15 +16,26 @@
 
 package com.google.cloud.tools.eclipse.util;
 
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
-
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class ArtifactRetrieverTest {
-  
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
   @Test
   public void testGetInstance() throws URISyntaxException {
     ArtifactRetriever retriever1 = ArtifactRetriever.getInstance("http://www.example.com/");
@@ -55,5 +66,59 @@ public class ArtifactRetrieverTest {
     Assert.assertEquals("com.google.cloud.dataflow", actual[0]);
     Assert.assertEquals("google-cloud-dataflow-java-sdk-all", actual[1]);
   }
-  
+
+  @Test
+  public void testGetLatestVersion_servedFromStoreWhenOffline() throws IOException {
+    Path repository = tempFolder.newFolder("repository").toPath();
+    Path metadata = repository.resolve("com/example/foo/maven-metadata.xml");
+    Files.createDirectories(metadata.getParent());
+    Files.write(metadata, ("<metadata><versioning><versions><version>1.0</version>"
+        + "<version>2.0</version></versions></versioning></metadata>")
+        .getBytes(StandardCharsets.UTF_8));
+    Path cache = tempFolder.newFolder("cache").toPath();
+    String repositoryUrl = repository.toUri().toString();
+
+    ArtifactRetriever retriever =
+        new ArtifactRetriever(repositoryUrl, new MavenMetadataStore(cache));
+    Assert.assertEquals("2.0", retriever.getLatestVersion("com.example", "foo").toString());
+
+    // the repository is gone, as when offline after a restart
+    Files.delete(metadata);
+    ArtifactRetriever restarted =
+        new ArtifactRetriever(repositoryUrl, new MavenMetadataStore(cache));
+    Assert.assertEquals("2.0", restarted.getLatestVersion("com.example", "foo").toString());
+    Assert.assertNull(restarted.getLatestVersion("com.example", "bar"));
+  }
+
+  @Test
+  public void testPrefetch() throws IOException, InterruptedException, ExecutionException,
+      TimeoutException {
+    Path repository = tempFolder.newFolder("repository").toPath();
+    Path foo = writeMetadata(repository.resolve("com/example/foo/maven-metadata.xml"), "1.0");
+    Path bar = writeMetadata(repository.resolve("com/example/bar/maven-metadata.xml"), "2.0");
+    ArtifactRetriever retriever =
+        new ArtifactRetriever(repository.toUri().toString(), new MavenMetadataStore(null));
+
+    // a missing artifact does not fail the others
+    retriever.prefetch(Arrays.asList("com.example:foo", "com.example:bar", "com.example:baz"))
+        .get(10, TimeUnit.SECONDS);
+
+    // lookups are now answered without reading the repository
+    Files.delete(foo);
+    Files.delete(bar);
+    Assert.assertEquals("1.0", retriever.getLatestVersion("com.example", "foo").toString());
+    Assert.assertEquals("2.0", retriever.getLatestVersion("com.example", "bar").toString());
+    Assert.assertNull(retriever.getLatestVersion("com.example", "baz"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPrefetch_invalidCoordinates() {
+    ArtifactRetriever.DEFAULT.prefetch(Arrays.asList("com.example.foo"));
+  }
+
+  private static Path writeMetadata(Path file, String version) throws IOException {
+    Files.createDirectories(file.getParent());
+    return Files.write(file, ("<metadata><versioning><versions><version>" + version
+        + "</version></versions></versioning></metadata>").getBytes(StandardCharsets.UTF_8));
+  }
 }
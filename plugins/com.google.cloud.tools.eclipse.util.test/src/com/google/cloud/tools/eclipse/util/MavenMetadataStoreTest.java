@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.cloud.tools.eclipse.test.util.http.TestHttpServer;
+import com.google.cloud.tools.eclipse.util.MavenMetadataStore.CachedMetadata;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MavenMetadataStoreTest {
+
+  private static final String METADATA_PATH = "com/example/foo/maven-metadata.xml";
+  private static final String METADATA = "<metadata><versioning><versions>"
+      + "<version>1.0</version></versions></versioning></metadata>";
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+  @Rule public TestHttpServer server = new TestHttpServer(METADATA_PATH, METADATA);
+
+  private Path cacheDirectory;
+  private URL url;
+
+  @Before
+  public void setUp() throws IOException {
+    cacheDirectory = tempFolder.newFolder("cache").toPath();
+    url = new URL(server.getAddress() + METADATA_PATH);
+  }
+
+  @Test
+  public void testFetch_persisted() throws IOException {
+    MavenMetadataStore store = new MavenMetadataStore(cacheDirectory);
+    assertNull(store.getCached(url));
+
+    CachedMetadata fetched = store.fetch(url, null);
+    assertEquals(METADATA, new String(fetched.getContent(), StandardCharsets.UTF_8));
+    assertFalse(fetched.isOlderThan(60_000));
+    assertFalse(server.getRequestHeaders().containsKey("If-None-Match"));
+
+    // as after a restart
+    CachedMetadata cached = new MavenMetadataStore(cacheDirectory).getCached(url);
+    assertArrayEquals(fetched.getContent(), cached.getContent());
+  }
+
+  @Test
+  public void testFetch_conditional() throws IOException {
+    MavenMetadataStore store = new MavenMetadataStore(null);
+    CachedMetadata previous = new CachedMetadata(new byte[0], "\"abc\"",
+        "Wed, 21 Oct 2015 07:28:00 GMT", 0);
+    assertTrue(previous.isOlderThan(60_000));
+
+    // the stand-in server ignores the validators, so the document is returned
+    CachedMetadata fetched = store.fetch(url, previous);
+    assertEquals(METADATA, new String(fetched.getContent(), StandardCharsets.UTF_8));
+    assertEquals("\"abc\"", server.getRequestHeaders().get("If-None-Match"));
+    assertEquals("Wed, 21 Oct 2015 07:28:00 GMT",
+        server.getRequestHeaders().get("If-Modified-Since"));
+    assertArrayEquals(fetched.getContent(), store.getCached(url).getContent());
+  }
+
+  @Test
+  public void testGetFile_staysInCacheDirectory() throws IOException {
+    MavenMetadataStore store = new MavenMetadataStore(cacheDirectory);
+    assertTrue(store.getFile(url).startsWith(cacheDirectory));
+    assertNull(store.getFile(new URL("http://example.com/../../maven-metadata.xml")));
+    // satisfy the server rule
+    store.fetch(url, null);
+  }
+}
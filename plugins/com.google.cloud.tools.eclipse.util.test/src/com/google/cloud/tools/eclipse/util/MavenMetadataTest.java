@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.NavigableSet;
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.junit.Test;
+
+public class MavenMetadataTest {
+
+  private static final String METADATA = "<?xml version='1.0' encoding='UTF-8'?>\n"
+      + "<metadata>\n"
+      + "  <groupId>com.google.guava</groupId>\n"
+      + "  <artifactId>guava</artifactId>\n"
+      + "  <version>10.0</version>\n"
+      + "  <versioning>\n"
+      + "    <latest>28.1-android</latest>\n"
+      + "    <release>28.1-android</release>\n"
+      + "    <versions>\n"
+      + "      <version>28.1-jre</version>\n"
+      + "      <version>9.0</version>\n"
+      + "      <version> 28.1-android </version>\n"
+      + "      <version></version>\n"
+      + "      <version>10.0</version>\n"
+      + "    </versions>\n"
+      + "    <lastUpdated>20190828164102</lastUpdated>\n"
+      + "  </versioning>\n"
+      + "</metadata>\n";
+
+  @Test
+  public void testRead() throws IOException {
+    MavenMetadata metadata = MavenMetadata.read(METADATA.getBytes(StandardCharsets.UTF_8));
+    assertEquals("28.1-android", metadata.getLatest());
+    assertEquals("28.1-android", metadata.getRelease());
+
+    NavigableSet<ArtifactVersion> versions = metadata.getVersions();
+    assertEquals(4, versions.size());
+    assertEquals("9.0", versions.first().toString());
+    assertEquals("28.1-jre", versions.last().toString());
+  }
+
+  @Test
+  public void testRead_noVersioning() throws IOException {
+    MavenMetadata metadata = MavenMetadata.read(
+        "<metadata><version>1.0</version></metadata>".getBytes(StandardCharsets.UTF_8));
+    assertNull(metadata.getLatest());
+    assertNull(metadata.getRelease());
+    assertTrue(metadata.getVersions().isEmpty());
+  }
+
+  @Test
+  public void testRead_versionsOutsideVersioningIgnored() throws IOException {
+    MavenMetadata metadata = MavenMetadata.read(("<metadata><versions><version>1.0</version>"
+        + "</versions><versioning><versions><version>2.0</version></versions></versioning>"
+        + "</metadata>").getBytes(StandardCharsets.UTF_8));
+    assertEquals(1, metadata.getVersions().size());
+    assertEquals("2.0", metadata.getVersions().first().toString());
+  }
+
+  @Test
+  public void testRead_manyVersions() throws IOException {
+    StringBuilder xml = new StringBuilder("<metadata><versioning><versions>");
+    for (int i = 0; i < 1000; i++) {
+      xml.append("<version>1.").append(i).append("</version>");
+    }
+    xml.append("</versions></versioning></metadata>");
+    MavenMetadata metadata = MavenMetadata.read(xml.toString().getBytes(StandardCharsets.UTF_8));
+    assertEquals(1000, metadata.getVersions().size());
+    assertEquals("1.999", metadata.getVersions().last().toString());
+  }
+
+  @Test(expected = IOException.class)
+  public void testRead_malformed() throws IOException {
+    MavenMetadata.read("<metadata><versioning>".getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -16,45 +16,49 @@
 
 package com.google.cloud.tools.eclipse.util;
 
+import com.google.cloud.tools.eclipse.util.MavenMetadataStore.CachedMetadata;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
-import com.google.common.collect.ImmutableSortedSet;
-import com.google.common.collect.ImmutableSortedSet.Builder;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.NavigableSet;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathFactory;
 import org.apache.maven.artifact.versioning.ArtifactVersion;
-import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
 import org.apache.maven.artifact.versioning.VersionRange;
-import org.w3c.dom.Document;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
 /**
- * {@link ArtifactRetriever} provides access to Maven artifacts using low-level URL and XPath APIs
- * rather than using the M2E plugin in order to work around shortcomings in the ability of M2E to
- * query Maven for available versions. Additionally, M2E APIs are internal and unstable, and thus
- * may change between versions.
+ * {@link ArtifactRetriever} provides access to Maven artifacts using low-level URL and XML
+ * streaming APIs rather than using the M2E plugin in order to work around shortcomings in the
+ * ability of M2E to query Maven for available versions. Additionally, M2E APIs are internal and
+ * unstable, and thus may change between versions.
  *
  * <p>The artifact retriever reads Maven Central metadata XML files to retrieve available and latest
- * versions.
+ * versions. Retrieved metadata is persisted by a {@link MavenMetadataStore}; once metadata for an
+ * artifact has been retrieved, lookups are answered from it and it is revalidated in the
+ * background, so lookups do not wait for the network.
  */
 public class ArtifactRetriever {
 
@@ -75,28 +79,52 @@ public class ArtifactRetriever {
     }
   }
 
-  private final LoadingCache<String, NavigableSet<ArtifactVersion>> availableVersions =
+  private static final long REFRESH_INTERVAL_HOURS = 4;
+
+  /** The number of concurrent metadata requests; further requests are queued. */
+  private static final int MAX_CONCURRENT_REQUESTS = 4;
+
+  /** Revalidates metadata in the background, so that callers are served the last known versions. */
+  private static final ExecutorService refreshExecutor = newRefreshExecutor();
+
+  private static ExecutorService newRefreshExecutor() {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        MAX_CONCURRENT_REQUESTS, MAX_CONCURRENT_REQUESTS, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(),
+        new ThreadFactoryBuilder()
+            .setNameFormat("maven-metadata-refresh-%d")
+            .setDaemon(true)
+            .build());
+    // no threads are kept while idle
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /** Retrieves metadata ahead of version lookups; see {@link #prefetch(Collection)}. */
+  private static final ListeningExecutorService prefetchExecutor =
+      MoreExecutors.listeningDecorator(refreshExecutor);
+
+  private final MavenMetadataStore metadataStore;
+
+  private final LoadingCache<String, MavenMetadata> metadataCache =
       CacheBuilder.newBuilder()
-          .refreshAfterWrite(4, TimeUnit.HOURS)
-          .build(
-              new CacheLoader<String, NavigableSet<ArtifactVersion>>() {
+          .refreshAfterWrite(REFRESH_INTERVAL_HOURS, TimeUnit.HOURS)
+          .build(CacheLoader.asyncReloading(
+              new CacheLoader<String, MavenMetadata>() {
 
                 @Override
-                public NavigableSet<ArtifactVersion> load(String coordinates) throws Exception {
-                  Document document = getMetadataDocument(coordinates);
-                  XPath xpath = XPathFactory.newInstance().newXPath();
-                  NodeList versionNodes = (NodeList) xpath.evaluate(
-                      "/metadata/versioning/versions/version",
-                      document,
-                      XPathConstants.NODESET);
-                  Builder<ArtifactVersion> versions = ImmutableSortedSet.naturalOrder();
-                  for (int i = 0; i < versionNodes.getLength(); i++) {
-                    String versionString = versionNodes.item(i).getTextContent();
-                    versions.add(new DefaultArtifactVersion(versionString));
-                  }
-                  return versions.build();
+                public MavenMetadata load(String coordinates) throws IOException {
+                  return loadMetadata(coordinates);
                 }
-              });
+
+                @Override
+                public ListenableFuture<MavenMetadata> reload(
+                    String coordinates, MavenMetadata oldMetadata) throws IOException {
+                  // the old versions remain in use if this fails
+                  return Futures.immediateFuture(revalidateMetadata(coordinates));
+                }
+              },
+              refreshExecutor));
 
   private static final LoadingCache<String, ArtifactRetriever> retrievers =
       CacheBuilder.newBuilder()
@@ -127,7 +155,13 @@ public class ArtifactRetriever {
    *     "https://repo1.maven.org/maven2/"
    */
   private ArtifactRetriever(String repositoryUrl) {
+    this(repositoryUrl, MavenMetadataStore.getDefault());
+  }
+
+  @VisibleForTesting
+  ArtifactRetriever(String repositoryUrl, MavenMetadataStore metadataStore) {
     this.repositoryUrl = repositoryUrl;
+    this.metadataStore = metadataStore;
   }
 
   /**
@@ -158,7 +192,7 @@ public class ArtifactRetriever {
       String groupId, String artifactId, VersionRange range) {
     String coordinates = idToKey(groupId, artifactId);
     try {
-      NavigableSet<ArtifactVersion> versions = availableVersions.get(coordinates);
+      NavigableSet<ArtifactVersion> versions = metadataCache.get(coordinates).getVersions();
       for (ArtifactVersion version : versions.descendingSet()) {
         if (isReleased(version)) {
           if (range == null || range.containsVersion(version)) {
@@ -182,7 +216,7 @@ public class ArtifactRetriever {
   public ArtifactVersion getLatestVersion(String groupId, String artifactId) {
     String coordinates = idToKey(groupId, artifactId);
     try {
-      NavigableSet<ArtifactVersion> versions = availableVersions.get(coordinates);
+      NavigableSet<ArtifactVersion> versions = metadataCache.get(coordinates).getVersions();
       return versions.last();
     } catch (ExecutionException ex) {
       logger.log(
@@ -193,6 +227,27 @@ public class ArtifactRetriever {
     }
   }
 
+  /**
+   * Starts retrieving the metadata of the given artifacts concurrently, so that a following series
+   * of version lookups for them costs a single round trip rather than one per artifact. Lookups
+   * made while an artifact is still being retrieved wait for that retrieval rather than starting
+   * another. Artifacts whose metadata is already cached are skipped.
+   *
+   * @param coordinates artifacts as {@code groupId:artifactId}
+   * @return a future that completes once all retrievals have finished; failures are logged by the
+   *     later lookups rather than reported through the future
+   */
+  public ListenableFuture<?> prefetch(Collection<String> coordinates) {
+    List<ListenableFuture<?>> loads = new ArrayList<>();
+    for (String key : new LinkedHashSet<>(coordinates)) {
+      Preconditions.checkArgument(keyToId(key).length == 2, "not groupId:artifactId: %s", key);
+      if (metadataCache.getIfPresent(key) == null) {
+        loads.add(prefetchExecutor.submit(() -> metadataCache.get(key)));
+      }
+    }
+    return Futures.whenAllComplete(loads).run(() -> {}, MoreExecutors.directExecutor());
+  }
+
   private static boolean isReleased(ArtifactVersion version) {
     String qualifier = version.getQualifier();
     if (version.getMajorVersion() <= 0) {
@@ -206,20 +261,48 @@ public class ArtifactRetriever {
     return false;
   }
 
-  private Document getMetadataDocument(String coordinates) throws IOException {
-    String[] x = keyToId(coordinates);
-    String groupId = x[0];
-    String artifactId = x[1];
+  /**
+   * Returns the last retrieved metadata, if any, without waiting for the
+   * network; metadata older than the refresh interval is revalidated in the background. Only
+   * metadata that has never been retrieved is fetched synchronously.
+   */
+  private MavenMetadata loadMetadata(String coordinates) throws IOException {
+    URL url = getMetadataUrl(coordinates);
+    CachedMetadata cached = metadataStore.getCached(url);
+    if (cached != null) {
+      try {
+        MavenMetadata metadata = MavenMetadata.read(cached.getContent());
+        if (cached.isOlderThan(TimeUnit.HOURS.toMillis(REFRESH_INTERVAL_HOURS))) {
+          refreshExecutor.execute(() -> revalidateInBackground(coordinates));
+        }
+        return metadata;
+      } catch (IOException ex) {
+        logger.log(Level.WARNING, "Ignoring invalid cached metadata for " + coordinates, ex);
+      }
+    }
+    return MavenMetadata.read(metadataStore.fetch(url, null).getContent());
+  }
+
+  private void revalidateInBackground(String coordinates) {
     try {
-      return DocumentBuilderFactory.newInstance()
-          .newDocumentBuilder()
-          .parse(getMetadataUrl(groupId, artifactId).toString());
-    } catch (ParserConfigurationException | SAXException ex) {
-      // these really shouldn't happen but if they do we'll wrap them
-      throw new IOException("Could not configure Document Builder", ex);
+      // replaces the value being loaded, if still loading
+      metadataCache.put(coordinates, revalidateMetadata(coordinates));
+    } catch (IOException ex) {
+      // e.g., offline: keep using the cached versions
+      logger.log(Level.FINE, "Could not revalidate metadata for " + coordinates, ex);
     }
   }
 
+  private MavenMetadata revalidateMetadata(String coordinates) throws IOException {
+    URL url = getMetadataUrl(coordinates);
+    return MavenMetadata.read(metadataStore.fetch(url, metadataStore.getCached(url)).getContent());
+  }
+
+  private URL getMetadataUrl(String coordinates) {
+    String[] x = keyToId(coordinates);
+    return getMetadataUrl(x[0], x[1]);
+  }
+
   @VisibleForTesting
   static String idToKey(String groupId, String artifactId) {
     return groupId + ":" + artifactId;
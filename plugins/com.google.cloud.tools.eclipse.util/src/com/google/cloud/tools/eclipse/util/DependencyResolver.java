@@ -17,8 +17,10 @@
 package com.google.cloud.tools.eclipse.util;
 
 import com.google.cloud.tools.eclipse.util.status.StatusUtil;
+import com.google.common.base.Preconditions;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositoryException;
@@ -57,18 +59,33 @@ public class DependencyResolver {
   public static Collection<Artifact> getTransitiveDependencies(
       String groupId, String artifactId, String version, IProgressMonitor monitor)
       throws CoreException {
+    String coords = groupId + ":" + artifactId + ":" + version;
+    return getTransitiveDependencies(Collections.singletonList(coords), monitor);
+  }
+
+  /**
+   * Returns all transitive runtime dependencies of the specified Maven jar artifacts including the
+   * artifacts themselves. All artifacts are resolved in a single dependency graph, so conflicting
+   * versions are mediated by Maven's rules (nearest wins, then first declaration wins) and each
+   * artifact appears at most once in the result.
+   *
+   * @param coordinates {@code groupId:artifactId:version} of the Maven artifacts to resolve
+   * @return artifacts in the transitive dependency graph. Order not guaranteed.
+   * @throws CoreException if the dependencies could not be resolved
+   */
+  public static Collection<Artifact> getTransitiveDependencies(
+      List<String> coordinates, IProgressMonitor monitor) throws CoreException {
+    Preconditions.checkArgument(!coordinates.isEmpty(), "no artifacts to resolve");
     return MavenUtils.runOperation(
         monitor,
         (context, system, progress) ->
-            _getTransitiveDependencies(context, system, groupId, artifactId, version, progress));
+            _getTransitiveDependencies(context, system, coordinates, progress));
   }
 
   private static Collection<Artifact> _getTransitiveDependencies(
       IMavenExecutionContext context,
       RepositorySystem system,
-      String groupId,
-      String artifactId,
-      String version,
+      List<String> coordinates,
       IProgressMonitor monitor)
       throws CoreException {
     SubMonitor progress = SubMonitor.convert(monitor);
@@ -76,10 +93,17 @@ public class DependencyResolver {
     
     // todo we'd prefer not to depend on m2e here
 
-    String coords = groupId + ":" + artifactId + ":" + version;
-    Artifact artifact = new DefaultArtifact(coords);
     CollectRequest collectRequest = new CollectRequest();
-    collectRequest.setRoot(new Dependency(artifact, JavaScopes.RUNTIME));
+    if (coordinates.size() == 1) {
+      collectRequest.setRoot(new Dependency(new DefaultArtifact(coordinates.get(0)),
+          JavaScopes.RUNTIME));
+    } else {
+      // no root artifact: the requested artifacts become siblings in one graph
+      for (String coords : coordinates) {
+        collectRequest.addDependency(new Dependency(new DefaultArtifact(coords),
+            JavaScopes.RUNTIME));
+      }
+    }
     collectRequest.setRepositories(centralRepository(system));
     DependencyRequest request = new DependencyRequest(collectRequest, filter);
     
@@ -106,7 +130,7 @@ public class DependencyResolver {
       throw new CoreException(
           StatusUtil.error(
               DependencyResolver.class,
-              "Possible corrupt artifact in local .m2 repository for " + coords,
+              "Possible corrupt artifact in local .m2 repository for " + coordinates,
               ex));
     }
   }
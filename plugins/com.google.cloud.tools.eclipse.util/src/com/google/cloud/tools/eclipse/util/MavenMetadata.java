@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.util;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.NavigableSet;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+
+/**
+ * The versioning information of a {@code maven-metadata.xml} document, read in a single streaming
+ * pass. Versions are kept as strings until {@link #getVersions()} is first called.
+ *
+ * @see <a href="https://maven.apache.org/ref/3.5.0/maven-repository-metadata/repository-metadata.html">
+ *     Maven Repository Metadata</a>
+ */
+class MavenMetadata {
+
+  private static final XMLInputFactory inputFactory = createInputFactory();
+
+  private final List<String> versionStrings;
+  private final String latest;
+  private final String release;
+  private final Supplier<NavigableSet<ArtifactVersion>> versions =
+      Suppliers.memoize(this::sortVersions);
+
+  private MavenMetadata(List<String> versionStrings, String latest, String release) {
+    this.versionStrings = versionStrings;
+    this.latest = latest;
+    this.release = release;
+  }
+
+  /** Returns the listed versions in ascending order. */
+  NavigableSet<ArtifactVersion> getVersions() {
+    return versions.get();
+  }
+
+  /** Returns the {@code latest} element, or {@code null} if absent. */
+  String getLatest() {
+    return latest;
+  }
+
+  /** Returns the {@code release} element, or {@code null} if absent. */
+  String getRelease() {
+    return release;
+  }
+
+  private NavigableSet<ArtifactVersion> sortVersions() {
+    ImmutableSortedSet.Builder<ArtifactVersion> sorted = ImmutableSortedSet.naturalOrder();
+    for (String version : versionStrings) {
+      sorted.add(new DefaultArtifactVersion(version));
+    }
+    return sorted.build();
+  }
+
+  /**
+   * Reads {@code /metadata/versioning/versions/version}, {@code /metadata/versioning/latest} and
+   * {@code /metadata/versioning/release}; all other content is skipped.
+   *
+   * @throws IOException if {@code content} is not well-formed
+   */
+  static MavenMetadata read(byte[] content) throws IOException {
+    try {
+      XMLStreamReader reader =
+          inputFactory.createXMLStreamReader(new ByteArrayInputStream(content));
+      try {
+        return read(reader);
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException ex) {
+      throw new IOException("Invalid Maven metadata", ex);
+    }
+  }
+
+  private static MavenMetadata read(XMLStreamReader reader) throws XMLStreamException {
+    ImmutableList.Builder<String> versions = ImmutableList.builder();
+    String latest = null;
+    String release = null;
+    // the names of the enclosing elements, as far as they matter
+    String[] path = new String[3];
+    int depth = 0;
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      } else if (event == XMLStreamConstants.START_ELEMENT) {
+        String name = reader.getLocalName();
+        if (depth == 3 && "version".equals(name) && isVersioning(path)
+            && "versions".equals(path[2])) {
+          addIfNotEmpty(versions, reader.getElementText());  // consumes the end element
+        } else if (depth == 2 && isVersioning(path) && "latest".equals(name)) {
+          latest = reader.getElementText().trim();
+        } else if (depth == 2 && isVersioning(path) && "release".equals(name)) {
+          release = reader.getElementText().trim();
+        } else {
+          if (depth < path.length) {
+            path[depth] = name;
+          }
+          depth++;
+        }
+      }
+    }
+    return new MavenMetadata(versions.build(), latest, release);
+  }
+
+  private static boolean isVersioning(String[] path) {
+    return "metadata".equals(path[0]) && "versioning".equals(path[1]);
+  }
+
+  private static void addIfNotEmpty(ImmutableList.Builder<String> versions, String text) {
+    String version = text.trim();
+    if (!version.isEmpty()) {
+      versions.add(version);
+    }
+  }
+
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    // metadata never needs a DTD; also guards against entity expansion attacks
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    return factory;
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.util;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.io.ByteStreams;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.core.runtime.Platform;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Keeps the {@code maven-metadata.xml} documents retrieved by {@link ArtifactRetriever}, in memory
+ * and in the bundle state location, so that they are available across restarts and while offline.
+ * Documents are revalidated with conditional requests ({@code If-None-Match} and {@code
+ * If-Modified-Since}), so an unchanged document is not transferred again.
+ */
+class MavenMetadataStore {
+
+  private static final Logger logger = Logger.getLogger(MavenMetadataStore.class.getName());
+
+  private static final String CACHE_DIRECTORY_NAME = "maven-metadata"; //$NON-NLS-1$
+  private static final String INFO_FILE_SUFFIX = ".info"; //$NON-NLS-1$
+  private static final String ETAG = "etag"; //$NON-NLS-1$
+  private static final String LAST_MODIFIED = "lastModified"; //$NON-NLS-1$
+  private static final String FETCH_TIME = "fetchTime"; //$NON-NLS-1$
+
+  private static final int CONNECT_TIMEOUT_MS = 5000;
+  private static final int READ_TIMEOUT_MS = 10000;
+
+  private static MavenMetadataStore instance;
+
+  /** A metadata document and the validators the server returned with it. */
+  static class CachedMetadata {
+    private final byte[] content;
+    private final String etag;
+    private final String lastModified;
+    private final long fetchTime;
+
+    @VisibleForTesting
+    CachedMetadata(byte[] content, String etag, String lastModified, long fetchTime) {
+      this.content = Preconditions.checkNotNull(content);
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.fetchTime = fetchTime;
+    }
+
+    byte[] getContent() {
+      return content;
+    }
+
+    String getEtag() {
+      return etag;
+    }
+
+    String getLastModified() {
+      return lastModified;
+    }
+
+    /** Returns {@code true} if this document was fetched or revalidated before {@code maxAge}. */
+    boolean isOlderThan(long maxAgeMillis) {
+      return System.currentTimeMillis() - fetchTime > maxAgeMillis;
+    }
+  }
+
+  private final Path directory;
+  /** Keyed by URL string, as {@link URL#equals} resolves host names. */
+  private final Map<String, CachedMetadata> memoryCache = new ConcurrentHashMap<>();
+
+  /** @param directory where documents are persisted; if {@code null}, only kept in memory */
+  @VisibleForTesting
+  MavenMetadataStore(Path directory) {
+    this.directory = directory == null ? null : directory.toAbsolutePath().normalize();
+  }
+
+  static synchronized MavenMetadataStore getDefault() {
+    if (instance == null) {
+      instance = new MavenMetadataStore(getDefaultDirectory());
+    }
+    return instance;
+  }
+
+  /**
+   * Returns the last retrieved document for {@code url}, however old, or {@code null} if it has
+   * never been retrieved. Does not access the network.
+   */
+  CachedMetadata getCached(URL url) {
+    CachedMetadata cached = memoryCache.get(url.toString());
+    if (cached == null) {
+      cached = read(url);
+      if (cached != null) {
+        memoryCache.put(url.toString(), cached);
+      }
+    }
+    return cached;
+  }
+
+  /**
+   * Retrieves the document at {@code url}, revalidating {@code previous} if given, and records the
+   * result.
+   *
+   * @return the retrieved document, or {@code previous} refreshed if it has not changed
+   * @throws FileNotFoundException if the document does not exist
+   * @throws IOException if the document cannot be retrieved
+   */
+  CachedMetadata fetch(URL url, CachedMetadata previous) throws IOException {
+    URLConnection connection = url.openConnection();
+    connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+    connection.setReadTimeout(READ_TIMEOUT_MS);
+    connection.setRequestProperty("User-Agent", CloudToolsInfo.USER_AGENT); //$NON-NLS-1$
+    if (previous != null && previous.etag != null) {
+      connection.setRequestProperty("If-None-Match", previous.etag); //$NON-NLS-1$
+    }
+    if (previous != null && previous.lastModified != null) {
+      connection.setRequestProperty("If-Modified-Since", previous.lastModified); //$NON-NLS-1$
+    }
+
+    CachedMetadata fetched;
+    if (connection instanceof HttpURLConnection) {
+      HttpURLConnection httpConnection = (HttpURLConnection) connection;
+      try {
+        int responseCode = httpConnection.getResponseCode();
+        if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && previous != null) {
+          fetched = new CachedMetadata(previous.content, previous.etag, previous.lastModified,
+              System.currentTimeMillis());
+        } else if (responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
+          throw new FileNotFoundException(url.toString());
+        } else if (responseCode != HttpURLConnection.HTTP_OK) {
+          throw new IOException("Unexpected response " + responseCode + " for " + url); //$NON-NLS-1$ //$NON-NLS-2$
+        } else {
+          fetched = readResponse(httpConnection);
+        }
+      } finally {
+        httpConnection.disconnect();
+      }
+    } else {
+      fetched = readResponse(connection);
+    }
+    memoryCache.put(url.toString(), fetched);
+    write(url, fetched);
+    return fetched;
+  }
+
+  private static CachedMetadata readResponse(URLConnection connection) throws IOException {
+    try (InputStream in = connection.getInputStream()) {
+      return new CachedMetadata(ByteStreams.toByteArray(in), connection.getHeaderField("ETag"), //$NON-NLS-1$
+          connection.getHeaderField("Last-Modified"), System.currentTimeMillis()); //$NON-NLS-1$
+    }
+  }
+
+  /**
+   * Returns the file holding the document for {@code url}, or {@code null} if documents are not
+   * persisted.
+   */
+  @VisibleForTesting
+  Path getFile(URL url) {
+    if (directory == null) {
+      return null;
+    }
+    String host = url.getPort() == -1 ? url.getHost() : url.getHost() + "_" + url.getPort(); //$NON-NLS-1$
+    // drop the leading slashes, and drive letters of file URLs
+    String path = url.getPath().replaceFirst("^/+", "").replace(':', '_'); //$NON-NLS-1$ //$NON-NLS-2$
+    Path file = directory.resolve(host).resolve(path).normalize();
+    // the path comes from group and artifact IDs; do not let it escape the cache
+    if (!file.startsWith(directory) || file.equals(directory)) {
+      return null;
+    }
+    return file;
+  }
+
+  private CachedMetadata read(URL url) {
+    Path file = getFile(url);
+    if (file == null || !Files.isRegularFile(file)) {
+      return null;
+    }
+    Path infoFile = file.resolveSibling(file.getFileName() + INFO_FILE_SUFFIX);
+    if (!Files.isRegularFile(infoFile)) {
+      return null;
+    }
+    try (Reader reader = Files.newBufferedReader(infoFile, StandardCharsets.UTF_8)) {
+      Properties info = new Properties();
+      info.load(reader);
+      long fetchTime = Long.parseLong(info.getProperty(FETCH_TIME, "0")); //$NON-NLS-1$
+      return new CachedMetadata(Files.readAllBytes(file), info.getProperty(ETAG),
+          info.getProperty(LAST_MODIFIED), fetchTime);
+    } catch (IOException | NumberFormatException ex) {
+      logger.log(Level.WARNING, "Ignoring unreadable cached metadata: " + file, ex); //$NON-NLS-1$
+      return null;
+    }
+  }
+
+  private void write(URL url, CachedMetadata metadata) {
+    Path file = getFile(url);
+    if (file == null) {
+      return;
+    }
+    Properties info = new Properties();
+    if (metadata.etag != null) {
+      info.setProperty(ETAG, metadata.etag);
+    }
+    if (metadata.lastModified != null) {
+      info.setProperty(LAST_MODIFIED, metadata.lastModified);
+    }
+    info.setProperty(FETCH_TIME, Long.toString(metadata.fetchTime));
+    try {
+      Files.createDirectories(file.getParent());
+      // a document without its info file is ignored, so it is never paired with stale validators
+      Path infoFile = file.resolveSibling(file.getFileName() + INFO_FILE_SUFFIX);
+      Files.deleteIfExists(infoFile);
+      replace(file, out -> out.write(metadata.content));
+      replace(infoFile, out -> {
+        try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+          info.store(writer, null);
+        }
+      });
+    } catch (IOException ex) {
+      logger.log(Level.WARNING, "Could not cache metadata: " + file, ex); //$NON-NLS-1$
+    }
+  }
+
+  private interface Content {
+    void writeTo(OutputStream out) throws IOException;
+  }
+
+  /** Writes to a temporary file first so that a concurrent IDE never reads a partial file. */
+  private static void replace(Path file, Content content) throws IOException {
+    Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp"); //$NON-NLS-1$
+    try {
+      try (OutputStream out = Files.newOutputStream(temporary)) {
+        content.writeTo(out);
+      }
+      try {
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException ex) {
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  private static Path getDefaultDirectory() {
+    Bundle bundle = FrameworkUtil.getBundle(MavenMetadataStore.class);
+    if (bundle == null) {
+      return null;
+    }
+    try {
+      return Platform.getStateLocation(bundle).append(CACHE_DIRECTORY_NAME).toFile().toPath();
+    } catch (IllegalStateException ex) {
+      logger.log(Level.WARNING, "No state location; Maven metadata cache is memory-only", ex); //$NON-NLS-1$
+      return null;
+    }
+  }
+}